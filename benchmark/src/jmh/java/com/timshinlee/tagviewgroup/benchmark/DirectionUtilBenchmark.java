@@ -0,0 +1,51 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.DirectionUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DirectionUtil 按标签数与模式查询方向，每次操作查询一组标签在全部模式下的方向
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectionUtilBenchmark {
+    /**
+     * 1~3 使用固定的模式表，更多时按区域计算
+     */
+    @Param({"1", "3", "10", "100"})
+    public int tagCount;
+
+    private DirectionUtil mDirectionUtil;
+
+    @Setup
+    public void setUp() {
+        mDirectionUtil = DirectionUtil.getInstance();
+    }
+
+    @Benchmark
+    public void getDirection(Blackhole blackhole) {
+        for (int mode = 0; mode < DirectionUtil.MODE_COUNT; mode++) {
+            for (int i = 0; i < tagCount; i++) {
+                blackhole.consume(mDirectionUtil.getDirection(tagCount, mode, i));
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.DIRECTION;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DIRECTION.valueOf 把保存的方向值转换为枚举，反序列化与绑定数据时每个标签调用一次
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectionValueOfBenchmark {
+    @Param({"10", "100", "1000"})
+    public int tagCount;
+
+    private int[] mValues;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(tagCount);
+        final DIRECTION[] directions = DIRECTION.values();
+        mValues = new int[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            mValues[i] = directions[random.nextInt(directions.length)].getValue();
+        }
+    }
+
+    @Benchmark
+    public void valueOf(Blackhole blackhole) {
+        for (int value : mValues) {
+            blackhole.consume(DIRECTION.valueOf(value));
+        }
+    }
+
+    /**
+     * 对照：转换后再取回 int，确认 switch 与枚举字段读取的开销
+     */
+    @Benchmark
+    public int roundTrip() {
+        int sum = 0;
+        for (int value : mValues) {
+            sum += DIRECTION.valueOf(value).getValue();
+        }
+        return sum;
+    }
+}
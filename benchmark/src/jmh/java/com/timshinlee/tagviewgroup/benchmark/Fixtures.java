@@ -0,0 +1,75 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.DIRECTION;
+import com.timshinlee.tagviewgroup.DirectionUtil;
+import com.timshinlee.tagviewgroup.TagGroupModel;
+import com.timshinlee.tagviewgroup.TagLayoutSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试共用的固定数据，同样的参数每次生成的数据相同，不同版本之间的结果可以直接比较
+ */
+final class Fixtures {
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 1920;
+    static final int INNER_RADIUS = 8;
+    static final int TILT_DISTANCE = 40;
+    static final int VER_DISTANCE = 40;
+
+    private static final String[] NAMES = {"连衣裙", "运动鞋", "Handbag", "墨镜", "Denim jacket", "帽子", "耳环", "Watch"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * 生成 groupCount 个标签组，每组 tagCount 个标签，方向按 DirectionUtil 的模式分配
+     */
+    static List<TagGroupModel> models(int groupCount, int tagCount, long seed) {
+        final Random random = new Random(seed);
+        final List<TagGroupModel> models = new ArrayList<>(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            final TagGroupModel model = new TagGroupModel();
+            model.setPercentX(0.2f + random.nextFloat() * 0.6f);
+            model.setPercentY(0.2f + random.nextFloat() * 0.6f);
+            final int mode = random.nextInt(DirectionUtil.MODE_COUNT);
+            for (int i = 0; i < tagCount; i++) {
+                final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+                tag.setName(NAMES[random.nextInt(NAMES.length)] + i);
+                tag.setDirection(DirectionUtil.getInstance().getDirection(tagCount, mode, i).getValue());
+                model.getTags().add(tag);
+            }
+            models.add(model);
+        }
+        return models;
+    }
+
+    /**
+     * 把标签组展开成 TagLayoutSolver 使用的数组，第 g 组的标签从 g * tagCount 开始
+     */
+    static DIRECTION[] directions(List<TagGroupModel> models, int tagCount) {
+        final DIRECTION[] directions = new DIRECTION[models.size() * tagCount];
+        for (int group = 0; group < models.size(); group++) {
+            final List<TagGroupModel.Tag> tags = models.get(group).getTags();
+            for (int i = 0; i < tagCount; i++) {
+                directions[group * tagCount + i] = DIRECTION.valueOf(tags.get(i).getDirection());
+            }
+        }
+        return directions;
+    }
+
+    /**
+     * 随机的标签尺寸，宽高与 TagTextView 常见的尺寸相近
+     */
+    static int[] sizes(int count, long seed) {
+        final Random random = new Random(seed);
+        final int[] sizes = new int[count * TagLayoutSolver.SIZE_STRIDE];
+        for (int i = 0; i < count; i++) {
+            sizes[i * TagLayoutSolver.SIZE_STRIDE] = 80 + random.nextInt(200);
+            sizes[i * TagLayoutSolver.SIZE_STRIDE + 1] = 40 + random.nextInt(20);
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,97 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.TagGroupModel;
+import com.timshinlee.tagviewgroup.TagGroupModelCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TagGroupModel 通过 Serializable 保存与恢复，与 Activity 间传递数据时的方式相同，
+ * 对比 {@link TagGroupModelCodec} 批量编码为字节数组与写入复用的 ByteBuffer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagGroupModelSerializationBenchmark {
+    @Param({"1", "100"})
+    public int groupCount;
+
+    @Param({"3", "10", "100"})
+    public int tagCount;
+
+    private ArrayList<TagGroupModel> mModels;
+    private byte[] mSerialized;
+    private byte[] mEncoded;
+    private ByteBuffer mBuffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        mModels = new ArrayList<>(Fixtures.models(groupCount, tagCount, 42));
+        mSerialized = serialize();
+        mEncoded = encode();
+        mBuffer = ByteBuffer.allocate(TagGroupModelCodec.sizeOf(mModels));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(mModels);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<TagGroupModel> deserialize() throws IOException, ClassNotFoundException {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(mSerialized));
+        try {
+            return (List<TagGroupModel>) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return TagGroupModelCodec.encode(mModels);
+    }
+
+    /**
+     * 写入复用的 ByteBuffer，不分配内存
+     */
+    @Benchmark
+    public ByteBuffer encodeIntoBuffer() {
+        mBuffer.clear();
+        TagGroupModelCodec.encode(mModels, mBuffer);
+        return mBuffer;
+    }
+
+    @Benchmark
+    public List<TagGroupModel> decode() {
+        return TagGroupModelCodec.decodeList(ByteBuffer.wrap(mEncoded));
+    }
+}
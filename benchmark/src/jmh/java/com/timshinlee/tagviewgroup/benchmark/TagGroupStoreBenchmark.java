@@ -0,0 +1,75 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.TagGroupModel;
+import com.timshinlee.tagviewgroup.TagGroupStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大量标签组按 List&lt;TagGroupModel&gt; 与 TagGroupStore 保存时，遍历所有标签方向与批量添加的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagGroupStoreBenchmark {
+    private static final int TAG_COUNT = 3;
+
+    @Param({"1000", "34000"})
+    public int groupCount;
+
+    private List<TagGroupModel> mModels;
+    private TagGroupStore mStore;
+
+    @Setup
+    public void setUp() {
+        mModels = Fixtures.models(groupCount, TAG_COUNT, 42);
+        mStore = new TagGroupStore(groupCount, groupCount * TAG_COUNT);
+        mStore.addAll(mModels);
+    }
+
+    @Benchmark
+    public int iterateModels() {
+        int sum = 0;
+        for (int g = 0; g < mModels.size(); g++) {
+            final List<TagGroupModel.Tag> tags = mModels.get(g).getTags();
+            for (int i = 0; i < tags.size(); i++) {
+                sum += tags.get(i).getDirection();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int iterateStore() {
+        int sum = 0;
+        for (int g = 0; g < mStore.getGroupCount(); g++) {
+            for (int i = mStore.getTagStart(g); i < mStore.getTagEnd(g); i++) {
+                sum += mStore.getDirectionValue(i);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public TagGroupStore addAll() {
+        final TagGroupStore store = new TagGroupStore();
+        store.addAll(mModels);
+        return store;
+    }
+}
@@ -0,0 +1,89 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.TagHitIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标签点击检测：TagHitIndex 网格索引与逐个检查的线性扫描对比，结果为单次查询的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagHitTestBenchmark {
+    private static final int TAG_WIDTH = 160;
+    private static final int TAG_HEIGHT = 48;
+    private static final int QUERIES = 1024;
+
+    @Param({"3", "10", "100", "1000"})
+    public int tagCount;
+
+    private TagHitIndex mIndex;
+    private float[] mPoints;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(tagCount);
+        mIndex = new TagHitIndex();
+        mIndex.resize(Fixtures.WIDTH, Fixtures.HEIGHT);
+        for (int i = 0; i < tagCount; i++) {
+            final float left = random.nextInt(Fixtures.WIDTH - TAG_WIDTH);
+            final float top = random.nextInt(Fixtures.HEIGHT - TAG_HEIGHT);
+            mIndex.set(i, left, top, left + TAG_WIDTH, top + TAG_HEIGHT);
+        }
+        mPoints = new float[QUERIES * 2];
+        for (int i = 0; i < mPoints.length; i += 2) {
+            mPoints[i] = random.nextFloat() * Fixtures.WIDTH;
+            mPoints[i + 1] = random.nextFloat() * Fixtures.HEIGHT;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int indexed() {
+        int sum = 0;
+        for (int i = 0; i < mPoints.length; i += 2) {
+            sum += mIndex.query(mPoints[i], mPoints[i + 1]);
+        }
+        return sum;
+    }
+
+    /**
+     * 原来 isTouchingTags 的做法：按顺序检查每个标签
+     */
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int linear() {
+        int sum = 0;
+        for (int i = 0; i < mPoints.length; i += 2) {
+            final float x = mPoints[i];
+            final float y = mPoints[i + 1];
+            int hit = -1;
+            for (int tag = 0; tag < mIndex.size(); tag++) {
+                if (mIndex.contains(tag, x, y)) {
+                    hit = tag;
+                    break;
+                }
+            }
+            sum += hit;
+        }
+        return sum;
+    }
+}
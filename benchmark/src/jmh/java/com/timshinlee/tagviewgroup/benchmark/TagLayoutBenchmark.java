@@ -0,0 +1,93 @@
+package com.timshinlee.tagviewgroup.benchmark;
+
+import com.timshinlee.tagviewgroup.DIRECTION;
+import com.timshinlee.tagviewgroup.TagGroupModel;
+import com.timshinlee.tagviewgroup.TagLayoutSolver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TagViewGroup 测量与布局中的几何计算：getChildUsed 对应 computeUsed，onLayout 对应 layout。
+ * 多个标签组共用同一组数组，与列表中多个 TagViewGroup 依次布局的情况相同
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagLayoutBenchmark {
+    @Param({"1", "100"})
+    public int groupCount;
+
+    /**
+     * 3 个以内各方向最多一个标签，更多时同一方向的标签需要堆叠
+     */
+    @Param({"1", "3", "10", "100"})
+    public int tagCount;
+
+    private TagLayoutSolver mSolver;
+    private DIRECTION[] mDirections;
+    private int[] mSizes;
+    private int[] mCenters;
+    private int[] mUsed;
+    private int[] mRects;
+
+    @Setup
+    public void setUp() {
+        mSolver = new TagLayoutSolver(Fixtures.INNER_RADIUS, Fixtures.TILT_DISTANCE, Fixtures.VER_DISTANCE);
+        final List<TagGroupModel> models = Fixtures.models(groupCount, tagCount, 42);
+        mDirections = Fixtures.directions(models, tagCount);
+        mSizes = Fixtures.sizes(groupCount * tagCount, 7);
+        mCenters = new int[groupCount * 2];
+        for (int group = 0; group < groupCount; group++) {
+            mCenters[group * 2] = TagLayoutSolver.center(Fixtures.WIDTH, models.get(group).getPercentX());
+            mCenters[group * 2 + 1] = TagLayoutSolver.center(Fixtures.HEIGHT, models.get(group).getPercentY());
+        }
+        mUsed = new int[4];
+        mRects = new int[groupCount * tagCount * TagLayoutSolver.RECT_STRIDE];
+    }
+
+    @Benchmark
+    public int[] computeUsed() {
+        for (int group = 0; group < groupCount; group++) {
+            mSolver.computeUsed(mDirections, mSizes, group * tagCount, tagCount, mUsed);
+        }
+        return mUsed;
+    }
+
+    @Benchmark
+    public int[] layout() {
+        for (int group = 0; group < groupCount; group++) {
+            mSolver.layout(mCenters[group * 2], mCenters[group * 2 + 1], mDirections, mSizes,
+                    group * tagCount, tagCount, mRects);
+        }
+        return mRects;
+    }
+
+    /**
+     * 一次完整的测量加布局
+     */
+    @Benchmark
+    public int[] measureAndLayout() {
+        for (int group = 0; group < groupCount; group++) {
+            mSolver.computeUsed(mDirections, mSizes, group * tagCount, tagCount, mUsed);
+            mSolver.layout(mCenters[group * 2], mCenters[group * 2 + 1], mDirections, mSizes,
+                    group * tagCount, tagCount, mRects);
+        }
+        return mRects;
+    }
+}
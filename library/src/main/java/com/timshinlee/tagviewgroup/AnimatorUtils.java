@@ -6,6 +6,9 @@ import android.animation.ObjectAnimator;
 import android.view.animation.DecelerateInterpolator;
 
 /**
+ * 属性通过 {@link TagViewGroup} 中的 Property 设置，不通过反射查找方法。
+ * 大量标签组同时播放时可以改用 {@link TagViewGroup#setClockAnimation}
+ * <p>
  * author: shell
  * date 2016/12/22 下午12:53
  **/
@@ -25,8 +28,8 @@ public class AnimatorUtils {
     public static Animator getTagHideAnimator(final TagViewGroup target) {
         AnimatorSet together = new AnimatorSet();
         AnimatorSet sequential = new AnimatorSet();
-        ObjectAnimator linesAnimator = ObjectAnimator.ofFloat(target, "LinesRatio", 1, 0);
-        ObjectAnimator tagTextAnimator = ObjectAnimator.ofFloat(target, "TagAlpha", 1, 0);
+        ObjectAnimator linesAnimator = ObjectAnimator.ofFloat(target, TagViewGroup.LINES_RATIO, 1, 0);
+        ObjectAnimator tagTextAnimator = ObjectAnimator.ofFloat(target, TagViewGroup.TAG_ALPHA, 1, 0);
         Animator circleAnimator = circleRadiusAnimator(target);
         together.playTogether(linesAnimator, tagTextAnimator);
         together.setDuration(400);
@@ -39,7 +42,7 @@ public class AnimatorUtils {
      * 文本透明度动画
      */
     private static Animator tagTextAnimator(TagViewGroup target) {
-        ObjectAnimator animator = ObjectAnimator.ofFloat(target, "TagAlpha", 0, 1);
+        ObjectAnimator animator = ObjectAnimator.ofFloat(target, TagViewGroup.TAG_ALPHA, 0, 1);
         animator.setDuration(200);
         animator.setInterpolator(new DecelerateInterpolator());
         return animator;
@@ -49,7 +52,7 @@ public class AnimatorUtils {
      * 线条长度比例动画
      */
     private static Animator linesAnimator(TagViewGroup target) {
-        ObjectAnimator animator = ObjectAnimator.ofFloat(target, "LinesRatio", 0, 1);
+        ObjectAnimator animator = ObjectAnimator.ofFloat(target, TagViewGroup.LINES_RATIO, 0, 1);
         animator.setDuration(300);
         animator.setInterpolator(new DecelerateInterpolator());
         return animator;
@@ -62,8 +65,8 @@ public class AnimatorUtils {
         int radius = target.getRadius();
         int innerRadius = target.getInnerRadius();
         AnimatorSet set = new AnimatorSet();
-        set.playTogether(ObjectAnimator.ofInt(target, "CircleRadius", radius - 10, radius + 10, radius),
-                ObjectAnimator.ofInt(target, "CircleInnerRadius", innerRadius - 10, innerRadius + 10, innerRadius));
+        set.playTogether(ObjectAnimator.ofInt(target, TagViewGroup.CIRCLE_RADIUS, radius - 10, radius + 10, radius),
+                ObjectAnimator.ofInt(target, TagViewGroup.CIRCLE_INNER_RADIUS, innerRadius - 10, innerRadius + 10, innerRadius));
         set.setDuration(400);
         return set;
     }
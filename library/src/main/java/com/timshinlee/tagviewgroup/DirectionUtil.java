@@ -8,6 +8,10 @@ import java.util.List;
  */
 
 public class DirectionUtil {
+    /**
+     * 每种标签数的模式数量
+     */
+    public static final int MODE_COUNT = 4;
     private static DirectionUtil mInstance;
     private List<DIRECTION[][]> mDirections = new ArrayList<>();
     /**
@@ -51,4 +55,42 @@ public class DirectionUtil {
     public List<DIRECTION[][]> getModes() {
         return mDirections;
     }
+
+    /**
+     * 得到任意标签数在某种模式下第 index 个标签的方向
+     * <p>
+     * 标签数不超过三个时使用固定的模式；超过时前三分之一向上斜、中间居中、后三分之一向下斜，
+     * 四种模式分别为全部在右侧、奇数在右侧、偶数在右侧、全部在左侧，同一区域的多个标签由 {@link TagLayoutSolver} 堆叠排列
+     *
+     * @param tagCount 标签数
+     * @param mode     模式 [0,{@link #MODE_COUNT})
+     * @param index    标签下标
+     */
+    public DIRECTION getDirection(int tagCount, int mode, int index) {
+        if (tagCount <= mDirections.size()) {
+            return mDirections.get(tagCount - 1)[mode][index];
+        }
+        final boolean left;
+        switch (mode) {
+            case 0:
+                left = false;
+                break;
+            case 1:
+                left = index % 2 == 0;
+                break;
+            case 2:
+                left = index % 2 != 0;
+                break;
+            default:
+                left = true;
+                break;
+        }
+        final int band = index * 3 / tagCount; // 0上 1中 2下
+        if (band == 0) {
+            return left ? DIRECTION.LEFT_TOP_TILT : DIRECTION.RIGHT_TOP_TILT;
+        } else if (band == 1) {
+            return left ? DIRECTION.LEFT_CENTER : DIRECTION.RIGHT_CENTER;
+        }
+        return left ? DIRECTION.LEFT_BOTTOM_TILT : DIRECTION.RIGHT_BOTTOM_TILT;
+    }
 }
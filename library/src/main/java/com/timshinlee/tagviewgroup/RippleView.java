@@ -1,28 +1,57 @@
 package com.timshinlee.tagviewgroup;
 
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.util.AttributeSet;
+import android.util.Property;
 import android.view.View;
-import android.view.animation.LinearInterpolator;
+import android.view.ViewParent;
 
 /**
  * author: shell
  * date 2016/12/25 下午7:18
  **/
 public class RippleView extends View implements ITagView {
+    /**
+     * 水波纹半径，供属性动画使用，不通过反射
+     */
+    public static final Property<RippleView, Integer> RIPPLE_RADIUS = new Property<RippleView, Integer>(Integer.class, "RippleRadius") {
+        @Override
+        public Integer get(RippleView object) {
+            return object.mRadius;
+        }
+
+        @Override
+        public void set(RippleView object, Integer value) {
+            object.setRippleRadius(value);
+        }
+    };
+    /**
+     * 水波纹透明度，供属性动画使用，不通过反射
+     */
+    public static final Property<RippleView, Integer> RIPPLE_ALPHA = new Property<RippleView, Integer>(Integer.class, "RippleAlpha") {
+        @Override
+        public Integer get(RippleView object) {
+            return object.mAlpha;
+        }
+
+        @Override
+        public void set(RippleView object, Integer value) {
+            object.setRippleAlpha(value);
+        }
+    };
 
     private int mRadius;
     private int mAlpha;
     private DIRECTION mDirection;
     private Paint mPaint;
-    private AnimatorSet mAnimator;
     private int mX, mY;
+    private int mMinRadius;
+    private int mMaxRadius;
+    private int mStartAlpha;
 
     public RippleView(Context context) {
         this(context, null);
@@ -57,6 +86,37 @@ public class RippleView extends View implements ITagView {
         startRipple(); // attached时播放动画
     }
 
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        TagAnimationClock.getInstance().requestVisibilityCheck();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        TagAnimationClock.getInstance().requestVisibilityCheck();
+    }
+
+    /**
+     * 水波纹是否在屏幕上可见：自身与父布局可见、所在标签组没有隐藏，且波纹范围没有被父布局完全裁剪
+     *
+     * @param outRect 用于计算的临时对象
+     */
+    boolean isVisibleOnScreen(Rect outRect) {
+        if (!isShown() || getWindowVisibility() != VISIBLE) {
+            return false;
+        }
+        final ViewParent parent = getParent();
+        if (parent instanceof TagViewGroup && ((TagViewGroup) parent).isHidden()) {
+            return false;
+        }
+        if (!getLocalVisibleRect(outRect)) {
+            return false;
+        }
+        return outRect.intersects(mX - mMaxRadius, mY - mMaxRadius, mX + mMaxRadius, mY + mMaxRadius);
+    }
+
     @Override
     public void setDirection(DIRECTION direction) {
         mDirection = direction;
@@ -68,25 +128,45 @@ public class RippleView extends View implements ITagView {
     }
 
     /**
-     * 开始动画
+     * 开始动画，由 {@link TagAnimationClock} 统一推进
      */
     public void startRipple() {
-        mAnimator.start();
+        TagAnimationClock.getInstance().addRipple(this);
     }
 
     /**
-     * 停止动画
+     * 停止动画，停在结束状态
      */
     public void stopRipple() {
-        mAnimator.end();
+        TagAnimationClock.getInstance().removeRipple(this);
+        setRippleFraction(1);
+    }
+
+    /**
+     * 设置动画进度，半径变大的同时透明度变小
+     *
+     * @param fraction 进度 [0-1]
+     */
+    void setRippleFraction(float fraction) {
+        mRadius = (int) (mMinRadius + fraction * (mMaxRadius - mMinRadius));
+        mAlpha = (int) (mStartAlpha - fraction * mStartAlpha);
+        invalidateRipple();
+    }
+
+    /**
+     * 只重绘水波纹可能覆盖的范围
+     */
+    private void invalidateRipple() {
+        TagInvalidator.invalidateCircle(this, mX, mY, Math.max(mRadius, mMaxRadius));
     }
 
     /**
      * 设置水波纹半径
      */
     public void setRippleRadius(int radius) {
+        final int oldRadius = mRadius;
         mRadius = radius;
-        invalidate();
+        TagInvalidator.invalidateCircle(this, mX, mY, Math.max(Math.max(oldRadius, radius), mMaxRadius));
     }
 
     /**
@@ -94,7 +174,7 @@ public class RippleView extends View implements ITagView {
      */
     public void setRippleAlpha(int alpha) {
         mAlpha = alpha;
-        invalidate();
+        invalidateRipple();
     }
 
     /**
@@ -106,23 +186,15 @@ public class RippleView extends View implements ITagView {
     }
 
     /**
-     * 初始化水波纹动画，半径变大的同时透明度变小
+     * 初始化水波纹动画，半径变大的同时透明度变小，每 {@link TagAnimationClock#RIPPLE_DURATION} 毫秒匀速播放一次
      *
      * @param minRadius 波纹最小半径
      * @param maxRadius 波纹最大半径
      * @param alpha     透明度
      */
     public void initAnimator(int minRadius, int maxRadius, int alpha) {
-        ObjectAnimator radiusAnimator = ObjectAnimator.ofInt(this, "RippleRadius", minRadius, maxRadius);
-        radiusAnimator.setRepeatMode(ValueAnimator.RESTART); // 正向播放
-        radiusAnimator.setRepeatCount(ValueAnimator.INFINITE); // 无限播放
-        ObjectAnimator alphaAnimator = ObjectAnimator.ofInt(this, "RippleAlpha", alpha, 0);
-        alphaAnimator.setRepeatMode(ValueAnimator.RESTART);
-        alphaAnimator.setRepeatCount(ValueAnimator.INFINITE);
-        mAnimator = new AnimatorSet();
-        mAnimator.playTogether(radiusAnimator, alphaAnimator);
-        mAnimator.setDuration(1500);
-//        mAnimator.setInterpolator(new AccelerateInterpolator()); // 加速播放
-        mAnimator.setInterpolator(new LinearInterpolator()); // 匀速播放
+        mMinRadius = minRadius;
+        mMaxRadius = maxRadius;
+        mStartAlpha = alpha;
     }
 }
@@ -0,0 +1,410 @@
+package com.timshinlee.tagviewgroup;
+
+import android.graphics.Rect;
+import android.support.annotation.MainThread;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * 所有 TagViewGroup 与 RippleView 共用的动画时钟
+ * <p>
+ * 只注册一个 {@link Choreographer.FrameCallback}，每帧一次遍历推进所有水波纹的半径与透明度，
+ * 以及所有标签组显示、隐藏动画的圆半径、线条比例与 Tag 透明度。动画参数直接计算，
+ * 不创建 Animator，不通过反射调用属性方法。每个注册项只占用几个数组元素，没有需要推进的动画时不请求下一帧
+ * <p>
+ * 水波纹只在屏幕上可见时播放：不可见、所在标签组隐藏、或者被父布局裁剪到屏幕外的水波纹暂停，
+ * 同时播放的水波纹数量有上限，超出的暂停，还可以降低水波纹的刷新帧率。暂停期间每隔
+ * {@link #VISIBILITY_CHECK_INTERVAL} 毫秒检查一次是否重新可见
+ * <p>
+ * 时间轴与 {@link AnimatorUtils} 相同：
+ * 显示为圆形动画 400ms、线条 300ms、文本 200ms 依次播放；隐藏为圆形动画 400ms 之后线条与文本一起 400ms。
+ * 只能在主线程使用
+ */
+@MainThread
+public final class TagAnimationClock implements Choreographer.FrameCallback {
+    public static final long RIPPLE_DURATION = 1500;
+    public static final int DEFAULT_MAX_ACTIVE_RIPPLES = 16;
+    /**
+     * 检查水波纹是否可见的间隔
+     */
+    public static final long VISIBILITY_CHECK_INTERVAL = 250;
+    /**
+     * 降低帧率时允许提前半帧刷新，避免和 vsync 对不齐时多等一帧
+     */
+    private static final long FRAME_SLACK = 8;
+    static final long CIRCLE_DURATION = 400;
+    static final long SHOW_LINES_DURATION = 300;
+    static final long SHOW_TEXT_DURATION = 200;
+    static final long HIDE_FADE_DURATION = 400;
+    /**
+     * 圆形动画中半径先缩小再放大的幅度
+     */
+    static final int CIRCLE_DELTA = 10;
+
+    static final byte TRANSITION_SHOW = 0;
+    static final byte TRANSITION_HIDE = 1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static TagAnimationClock mInstance;
+
+    private Choreographer mChoreographer;
+    private boolean mFrameScheduled;
+    /**
+     * 已请求的帧是否是延迟的
+     */
+    private boolean mFrameDelayed;
+
+    private RippleView[] mRipples = new RippleView[INITIAL_CAPACITY];
+    private long[] mRippleStart = new long[INITIAL_CAPACITY];
+    /**
+     * 水波纹是否正在播放，否则为暂停
+     */
+    private boolean[] mRippleActive = new boolean[INITIAL_CAPACITY];
+    private int mRippleCount;
+    private int mActiveRippleCount;
+    private int mMaxActiveRipples = DEFAULT_MAX_ACTIVE_RIPPLES;
+    /**
+     * 水波纹两次刷新的最小间隔，0 表示每帧刷新
+     */
+    private long mRippleFrameInterval;
+    private long mLastRippleFrame;
+    private long mLastVisibilityCheck;
+    private boolean mVisibilityDirty;
+    private final Rect mVisibleRect = new Rect();
+
+    private TagViewGroup[] mGroups = new TagViewGroup[INITIAL_CAPACITY];
+    private long[] mGroupStart = new long[INITIAL_CAPACITY];
+    private byte[] mGroupKinds = new byte[INITIAL_CAPACITY];
+    /**
+     * 动画开始时的外圆与内圆半径 {radius, innerRadius, ...}
+     */
+    private int[] mGroupRadii = new int[INITIAL_CAPACITY * 2];
+    private int mGroupCount;
+
+    private TagAnimationClock() {
+    }
+
+    public static TagAnimationClock getInstance() {
+        if (mInstance == null) {
+            mInstance = new TagAnimationClock();
+        }
+        return mInstance;
+    }
+
+    /**
+     * 开始推进水波纹，已经注册时不做任何事
+     */
+    public void addRipple(RippleView ripple) {
+        if (indexOf(mRipples, mRippleCount, ripple) >= 0) {
+            return;
+        }
+        if (mRippleCount == mRipples.length) {
+            mRipples = Arrays.copyOf(mRipples, mRippleCount * 2);
+            mRippleStart = Arrays.copyOf(mRippleStart, mRippleCount * 2);
+            mRippleActive = Arrays.copyOf(mRippleActive, mRippleCount * 2);
+        }
+        mRipples[mRippleCount] = ripple;
+        mRippleStart[mRippleCount] = -1; // 新注册的动画在下一帧记录开始时间
+        mRippleActive[mRippleCount] = false; // 下一帧检查可见性后再播放
+        mRippleCount++;
+        requestVisibilityCheck();
+    }
+
+    public void removeRipple(RippleView ripple) {
+        final int index = indexOf(mRipples, mRippleCount, ripple);
+        if (index < 0) {
+            return;
+        }
+        if (mRippleActive[index]) {
+            mActiveRippleCount--;
+            mVisibilityDirty = true; // 可能有超出上限而暂停的水波纹可以播放了
+        }
+        // 后面的水波纹整体前移，保持注册顺序，超出上限时按这个顺序决定播放哪些
+        final int moved = --mRippleCount - index;
+        System.arraycopy(mRipples, index + 1, mRipples, index, moved);
+        System.arraycopy(mRippleStart, index + 1, mRippleStart, index, moved);
+        System.arraycopy(mRippleActive, index + 1, mRippleActive, index, moved);
+        mRipples[mRippleCount] = null;
+    }
+
+    /**
+     * 水波纹可见性可能变化时调用，例如 View 可见性变化、标签组隐藏或显示
+     */
+    public void requestVisibilityCheck() {
+        if (mRippleCount > 0) {
+            mVisibilityDirty = true;
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * 设置同时播放的水波纹数量上限，超出的水波纹暂停，按注册顺序优先播放
+     */
+    public void setMaxActiveRipples(int maxActiveRipples) {
+        mMaxActiveRipples = maxActiveRipples;
+        requestVisibilityCheck();
+    }
+
+    public int getMaxActiveRipples() {
+        return mMaxActiveRipples;
+    }
+
+    /**
+     * 设置水波纹的刷新帧率，小于等于 0 表示每帧刷新。显示隐藏动画不受影响
+     */
+    public void setRippleFrameRate(int framesPerSecond) {
+        mRippleFrameInterval = framesPerSecond > 0 ? 1000 / framesPerSecond : 0;
+    }
+
+    /**
+     * 正在播放的水波纹数量
+     */
+    public int getActiveRippleCount() {
+        return mActiveRippleCount;
+    }
+
+    /**
+     * 因不可见或超出上限而暂停的水波纹数量
+     */
+    public int getPausedRippleCount() {
+        return mRippleCount - mActiveRippleCount;
+    }
+
+    /**
+     * 播放显示动画，正在播放的动画会被替换
+     */
+    public void startShow(TagViewGroup group) {
+        startTransition(group, TRANSITION_SHOW);
+    }
+
+    /**
+     * 播放隐藏动画，正在播放的动画会被替换
+     */
+    public void startHide(TagViewGroup group) {
+        startTransition(group, TRANSITION_HIDE);
+    }
+
+    /**
+     * 停止标签组的动画，不回调结束，属性保持当前值
+     */
+    public void cancel(TagViewGroup group) {
+        final int index = indexOf(mGroups, mGroupCount, group);
+        if (index >= 0) {
+            removeGroupAt(index);
+        }
+    }
+
+    public boolean isAnimating(TagViewGroup group) {
+        return indexOf(mGroups, mGroupCount, group) >= 0;
+    }
+
+    /**
+     * 已注册的水波纹数量，包括暂停的
+     */
+    public int getRippleCount() {
+        return mRippleCount;
+    }
+
+    public int getTransitionCount() {
+        return mGroupCount;
+    }
+
+    private void startTransition(TagViewGroup group, byte kind) {
+        int index = indexOf(mGroups, mGroupCount, group);
+        if (index < 0) {
+            if (mGroupCount == mGroups.length) {
+                final int capacity = mGroupCount * 2;
+                mGroups = Arrays.copyOf(mGroups, capacity);
+                mGroupStart = Arrays.copyOf(mGroupStart, capacity);
+                mGroupKinds = Arrays.copyOf(mGroupKinds, capacity);
+                mGroupRadii = Arrays.copyOf(mGroupRadii, capacity * 2);
+            }
+            index = mGroupCount++;
+            mGroups[index] = group;
+            mGroupRadii[index * 2] = group.getRadius();
+            mGroupRadii[index * 2 + 1] = group.getInnerRadius();
+        }
+        mGroupKinds[index] = kind;
+        mGroupStart[index] = -1;
+        if (kind == TRANSITION_SHOW) { // 线条与文本在圆形动画之后才出现
+            group.setLinesRatio(0);
+            group.setTagAlpha(0);
+        }
+        scheduleFrame();
+    }
+
+    private void scheduleFrame() {
+        scheduleFrame(0);
+    }
+
+    private void scheduleFrame(long delayMillis) {
+        if (mFrameScheduled && (!mFrameDelayed || delayMillis > 0)) {
+            return; // 已经请求了下一帧，或者已经有延迟的帧
+        }
+        if (mChoreographer == null) {
+            mChoreographer = Choreographer.getInstance();
+        }
+        if (mFrameScheduled) { // 延迟的帧改为下一帧
+            mChoreographer.removeFrameCallback(this);
+        }
+        if (delayMillis > 0) {
+            mChoreographer.postFrameCallbackDelayed(this, delayMillis);
+        } else {
+            mChoreographer.postFrameCallback(this);
+        }
+        mFrameScheduled = true;
+        mFrameDelayed = delayMillis > 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        final long start = TagMetrics.begin(TagMetrics.SPAN_ANIMATION_FRAME);
+        mFrameScheduled = false;
+        final long frameTime = frameTimeNanos / 1000000;
+        if (mVisibilityDirty || frameTime - mLastVisibilityCheck >= VISIBILITY_CHECK_INTERVAL) {
+            updateRippleVisibility(frameTime);
+        }
+        if (mActiveRippleCount > 0 && frameTime - mLastRippleFrame >= mRippleFrameInterval - FRAME_SLACK) {
+            mLastRippleFrame = frameTime;
+            for (int i = 0; i < mRippleCount; i++) {
+                if (!mRippleActive[i]) {
+                    continue;
+                }
+                if (mRippleStart[i] < 0) {
+                    mRippleStart[i] = frameTime;
+                }
+                final float fraction = (float) ((frameTime - mRippleStart[i]) % RIPPLE_DURATION) / RIPPLE_DURATION;
+                mRipples[i].setRippleFraction(fraction); // 匀速播放
+            }
+        }
+        for (int i = mGroupCount - 1; i >= 0; i--) { // 倒序遍历，结束的动画可以直接移除
+            if (mGroupStart[i] < 0) {
+                mGroupStart[i] = frameTime;
+            }
+            final TagViewGroup group = mGroups[i];
+            final long elapsed = frameTime - mGroupStart[i];
+            final boolean finished = mGroupKinds[i] == TRANSITION_SHOW
+                    ? advanceShow(group, i, elapsed) : advanceHide(group, i, elapsed);
+            if (finished) {
+                final byte kind = mGroupKinds[i];
+                removeGroupAt(i);
+                if (kind == TRANSITION_SHOW) {
+                    group.onClockShowEnd();
+                } else {
+                    group.onClockHideEnd(); // 可能重新注册显示动画
+                }
+            }
+        }
+        if (mGroupCount > 0 || (mActiveRippleCount > 0 && mRippleFrameInterval <= FRAME_SLACK)) {
+            scheduleFrame();
+        } else if (mActiveRippleCount > 0) { // 降低帧率时等到下一次刷新
+            scheduleFrame(Math.max(mLastRippleFrame + mRippleFrameInterval - frameTime - FRAME_SLACK, 1));
+        } else if (mRippleCount > 0) { // 全部暂停，定时检查是否重新可见
+            scheduleFrame(VISIBILITY_CHECK_INTERVAL);
+        }
+        TagMetrics.end(TagMetrics.SPAN_ANIMATION_FRAME, start);
+    }
+
+    /**
+     * 按可见性与数量上限决定每个水波纹播放还是暂停
+     */
+    private void updateRippleVisibility(long frameTime) {
+        mVisibilityDirty = false;
+        mLastVisibilityCheck = frameTime;
+        int active = 0;
+        for (int i = 0; i < mRippleCount; i++) {
+            final boolean play = active < mMaxActiveRipples && mRipples[i].isVisibleOnScreen(mVisibleRect);
+            if (play) {
+                active++;
+            }
+            if (play == mRippleActive[i]) {
+                continue;
+            }
+            mRippleActive[i] = play;
+            if (play) {
+                mRippleStart[i] = -1; // 从头播放
+            } else {
+                mRipples[i].setRippleFraction(1); // 停在结束状态，不会留下半透明的圆
+            }
+        }
+        mActiveRippleCount = active;
+    }
+
+    private boolean advanceShow(TagViewGroup group, int index, long elapsed) {
+        if (elapsed < CIRCLE_DURATION) {
+            applyCircle(group, index, (float) elapsed / CIRCLE_DURATION);
+            return false;
+        }
+        applyCircle(group, index, 1);
+        final long linesElapsed = elapsed - CIRCLE_DURATION;
+        if (linesElapsed < SHOW_LINES_DURATION) {
+            group.setLinesRatio(decelerate((float) linesElapsed / SHOW_LINES_DURATION));
+            return false;
+        }
+        group.setLinesRatio(1);
+        final long textElapsed = linesElapsed - SHOW_LINES_DURATION;
+        if (textElapsed < SHOW_TEXT_DURATION) {
+            group.setTagAlpha(decelerate((float) textElapsed / SHOW_TEXT_DURATION));
+            return false;
+        }
+        group.setTagAlpha(1);
+        return true;
+    }
+
+    private boolean advanceHide(TagViewGroup group, int index, long elapsed) {
+        if (elapsed < CIRCLE_DURATION) {
+            applyCircle(group, index, (float) elapsed / CIRCLE_DURATION);
+            return false;
+        }
+        applyCircle(group, index, 1);
+        final long fadeElapsed = elapsed - CIRCLE_DURATION;
+        final float value = fadeElapsed < HIDE_FADE_DURATION
+                ? 1 - decelerate((float) fadeElapsed / HIDE_FADE_DURATION) : 0;
+        group.setLinesRatio(value);
+        group.setTagAlpha(value);
+        return fadeElapsed >= HIDE_FADE_DURATION;
+    }
+
+    /**
+     * 半径依次经过 r - 10、r + 10、r，插值器与 ObjectAnimator 默认的 AccelerateDecelerate 相同
+     */
+    private void applyCircle(TagViewGroup group, int index, float fraction) {
+        final float value = (float) (Math.cos((fraction + 1) * Math.PI) / 2 + 0.5f);
+        group.setCircleRadius(circleKeyframe(mGroupRadii[index * 2], value));
+        group.setCircleInnerRadius(circleKeyframe(mGroupRadii[index * 2 + 1], value));
+    }
+
+    static int circleKeyframe(int radius, float fraction) {
+        if (fraction < 0.5f) {
+            return (int) (radius - CIRCLE_DELTA + 2 * CIRCLE_DELTA * (fraction * 2));
+        }
+        return (int) (radius + CIRCLE_DELTA - CIRCLE_DELTA * ((fraction - 0.5f) * 2));
+    }
+
+    /**
+     * 与 DecelerateInterpolator 默认参数相同
+     */
+    static float decelerate(float fraction) {
+        return 1 - (1 - fraction) * (1 - fraction);
+    }
+
+    private void removeGroupAt(int index) {
+        final int last = --mGroupCount;
+        mGroups[index] = mGroups[last];
+        mGroupStart[index] = mGroupStart[last];
+        mGroupKinds[index] = mGroupKinds[last];
+        mGroupRadii[index * 2] = mGroupRadii[last * 2];
+        mGroupRadii[index * 2 + 1] = mGroupRadii[last * 2 + 1];
+        mGroups[last] = null;
+    }
+
+    private static int indexOf(Object[] array, int count, Object target) {
+        for (int i = 0; i < count; i++) {
+            if (array[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
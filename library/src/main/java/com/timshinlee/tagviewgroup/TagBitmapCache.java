@@ -0,0 +1,184 @@
+package com.timshinlee.tagviewgroup;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.support.annotation.MainThread;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 静止标签组的位图缓存，所有 TagViewGroup 共用
+ * <p>
+ * 按字节数限制总大小，超出时淘汰最久未使用的位图，系统内存不足时通过 {@link #onTrimMemory} 缩减或清空。
+ * 标签组每次绘制时重新查询，不持有位图。移除的位图不调用 recycle，硬件加速时已记录的绘制命令可能仍在引用它，
+ * 交给 GC 回收
+ */
+@MainThread
+public final class TagBitmapCache implements ComponentCallbacks2 {
+    /**
+     * 默认预算为最大堆内存的 1/16
+     */
+    private static final int DEFAULT_BUDGET_DIVISOR = 16;
+
+    private static TagBitmapCache mInstance;
+    private static int mNextKey;
+
+    private final LinkedHashMap<Integer, Bitmap> mBitmaps = new LinkedHashMap<>(16, 0.75f, true);
+    private long mMaxBytes;
+    private long mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+    private boolean mRegistered;
+
+    private TagBitmapCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    public static TagBitmapCache getInstance() {
+        if (mInstance == null) {
+            mInstance = new TagBitmapCache(Runtime.getRuntime().maxMemory() / DEFAULT_BUDGET_DIVISOR);
+        }
+        return mInstance;
+    }
+
+    /**
+     * 每个标签组一个键，创建时装箱一次，查询时不分配内存
+     */
+    static Integer nextKey() {
+        return mNextKey++;
+    }
+
+    /**
+     * 注册到 Application 上接收 onTrimMemory，重复调用只注册一次
+     */
+    void register(Context context) {
+        if (!mRegistered) {
+            context.getApplicationContext().registerComponentCallbacks(this);
+            mRegistered = true;
+        }
+    }
+
+    Bitmap get(Integer key) {
+        final Bitmap bitmap = mBitmaps.get(key);
+        if (bitmap == null) {
+            mMissCount++;
+        } else {
+            mHitCount++;
+        }
+        return bitmap;
+    }
+
+    /**
+     * 放入位图，超出预算的位图不缓存
+     *
+     * @return 是否已缓存
+     */
+    boolean put(Integer key, Bitmap bitmap) {
+        final int bytes = bitmap.getByteCount();
+        if (bytes > mMaxBytes) {
+            return false;
+        }
+        remove(key);
+        mBitmaps.put(key, bitmap);
+        mSize += bytes;
+        trimToSize(mMaxBytes);
+        return true;
+    }
+
+    /**
+     * 移除位图，不计入淘汰次数
+     */
+    void remove(Integer key) {
+        final Bitmap bitmap = mBitmaps.remove(key);
+        if (bitmap != null) {
+            mSize -= bitmap.getByteCount();
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的位图，直到总大小不超过 maxBytes
+     */
+    public void trimToSize(long maxBytes) {
+        final Iterator<Map.Entry<Integer, Bitmap>> iterator = mBitmaps.entrySet().iterator();
+        while (mSize > maxBytes && iterator.hasNext()) {
+            final Bitmap bitmap = iterator.next().getValue();
+            iterator.remove();
+            mSize -= bitmap.getByteCount();
+            mEvictionCount++;
+        }
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * 当前缓存的位图总字节数
+     */
+    public long size() {
+        return mSize;
+    }
+
+    public int getBitmapCount() {
+        return mBitmaps.size();
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    public void resetStats() {
+        mHitCount = 0;
+        mMissCount = 0;
+        mEvictionCount = 0;
+    }
+
+    /**
+     * 清空所有位图
+     */
+    public void evictAll() {
+        trimToSize(0);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll(); // 进程即将被回收或内存非常紧张
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN || level == TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(mSize / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public String toString() {
+        return "TagBitmapCache{size=" + mSize + "/" + mMaxBytes + ", count=" + mBitmaps.size()
+                + ", hit=" + mHitCount + ", miss=" + mMissCount + ", eviction=" + mEvictionCount + '}';
+    }
+}
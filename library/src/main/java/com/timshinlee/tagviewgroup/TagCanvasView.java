@@ -0,0 +1,524 @@
+package com.timshinlee.tagviewgroup;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.support.v4.view.GestureDetectorCompat;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在一个 View 中绘制多组标签
+ * <p>
+ * 与每个标签点使用一个 {@link TagViewGroup} 不同，这里所有标签组的文字、折线、中心圆与水波纹都在同一个 onDraw 中绘制，
+ * 标签尺寸与位置保存在共用的数组中，绘制时跳过不在可见区域内的标签组，
+ * 因此测量、布局和绘制的开销只与可见的标签数量有关，而不是 View 的数量
+ */
+public class TagCanvasView extends View {
+    private static final int TEXT_SIZE = 13; // 与 TagTextView 一致，单位 sp
+    private static final int TEXT_PADDING_H = 4; // 文字左右内边距，单位 dp
+    private static final int TEXT_PADDING_V = 2; // 文字上下内边距，单位 dp
+    private static final int TEXT_SHADOW_RADIUS = 7;
+    private static final int RIPPLE_DURATION = 1500;
+    private static final int DEFAULT_RIPPLE_MAX_RADIUS = 20;//水波纹默认最大半径
+    private static final int DEFAULT_RIPPLE_ALPHA = 100;//默认水波纹透明度
+
+    private final List<TagGroupModel> mGroups = new ArrayList<>();
+    private final TagLayoutSolver mLayoutSolver = new TagLayoutSolver();
+    private final List<TagLinesRenderer> mLinesRenderers = new ArrayList<>();
+    private final TagDirectionPlanner mDirectionPlanner = new TagDirectionPlanner(mLayoutSolver);
+    private Paint mPaint;
+    private Paint mTextPaint;
+    private Paint.FontMetricsInt mFontMetrics;
+    private GestureDetectorCompat mGestureDetector;
+    private OnTagGroupClickListener mClickListener;
+    private ValueAnimator mRippleAnimator;
+    private final Rect mClipBounds = new Rect();
+
+    private int mRadius;
+    private int mInnerRadius;
+    private int mTiltDistance;
+    private int mVerDistance;
+    private int mLinesWidth;
+    private int mRippleMaxRadius;
+    private int mRippleMinRadius;
+    private int mRippleAlpha;
+    private int mTextPaddingH;
+    private int mTextPaddingV;
+    private boolean mRippleEnabled = true;
+    private boolean mDisallowIntercept;
+    private boolean mAttached;
+    /**
+     * 是否自动规划方向
+     */
+    private boolean mAutoDirection;
+
+    /**
+     * 标签总数
+     */
+    private int mTagCount;
+    /**
+     * 每组第一个标签的下标，长度为组数加一
+     */
+    private int[] mGroupStart = new int[1];
+    /**
+     * 每组圆心坐标 {x, y, ...}
+     */
+    private int[] mGroupCenters = new int[0];
+    /**
+     * 每组包括标签、折线、水波纹在内的边界 {left, top, right, bottom, ...}
+     */
+    private int[] mGroupBounds = new int[0];
+    /**
+     * 所有标签的方向
+     */
+    private DIRECTION[] mDirections = new DIRECTION[0];
+    /**
+     * 所有标签的尺寸 {width, height, ...}
+     */
+    private int[] mTagSizes = new int[0];
+    /**
+     * 所有标签的位置 {left, top, right, bottom, ...}
+     */
+    private int[] mTagRects = new int[0];
+    private final int[] mUsed = new int[4];
+    /**
+     * 水波纹动画进度 [0,1)
+     */
+    private float mRipplePhase;
+    /**
+     * 当前触摸的标签组与标签，未触摸到时为 -1
+     */
+    private int mTouchGroup = -1;
+    private int mTouchTag = -1;
+
+    public TagCanvasView(Context context) {
+        this(context, null);
+    }
+
+    public TagCanvasView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TagCanvasView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        Resources.Theme theme = context.getTheme();
+        TypedArray array = theme.obtainStyledAttributes(attrs, R.styleable.TagViewGroup, defStyleAttr, 0);
+        mRadius = array.getDimensionPixelSize(R.styleable.TagViewGroup_radius, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_RADIUS));
+        mInnerRadius = array.getDimensionPixelSize(R.styleable.TagViewGroup_inner_radius, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_INNER_RADIUS));
+        mTiltDistance = array.getDimensionPixelSize(R.styleable.TagViewGroup_tilt_distance, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_TILT_DISTANCE));
+        mVerDistance = array.getDimensionPixelSize(R.styleable.TagViewGroup_v_distance, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_V_DISTANCE));
+        mLinesWidth = array.getDimensionPixelSize(R.styleable.TagViewGroup_line_width, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_LINES_WIDTH));
+        mRippleMaxRadius = array.getDimensionPixelSize(R.styleable.TagViewGroup_ripple_maxRadius, DipConvertUtils.dip2px(context, DEFAULT_RIPPLE_MAX_RADIUS));
+        mRippleAlpha = array.getInteger(R.styleable.TagViewGroup_ripple_alpha, DEFAULT_RIPPLE_ALPHA);
+        mRippleMinRadius = mInnerRadius + (mRadius - mInnerRadius) / 2;
+        array.recycle();
+
+        mLayoutSolver.setDistances(mInnerRadius, mTiltDistance, mVerDistance);
+        mTextPaddingH = DipConvertUtils.dip2px(context, TEXT_PADDING_H);
+        mTextPaddingV = DipConvertUtils.dip2px(context, TEXT_PADDING_V);
+        mPaint = new Paint();
+        mPaint.setAntiAlias(true);
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE,
+                context.getResources().getDisplayMetrics()));
+        mTextPaint.setShadowLayer(TEXT_SHADOW_RADIUS, 0, 0, Color.BLACK);
+        mFontMetrics = new Paint.FontMetricsInt();
+        mTextPaint.getFontMetricsInt(mFontMetrics);
+        mGestureDetector = new GestureDetectorCompat(context, new TagOnGestureListener());
+    }
+
+    /**
+     * 设置要显示的标签组，方向为 {@link DIRECTION#CENTER} 的标签使用 {@link DirectionUtil} 的默认方向
+     */
+    public void setTagGroups(@NonNull List<TagGroupModel> groups) {
+        mGroups.clear();
+        mGroups.addAll(groups);
+        notifyTagGroupsChanged();
+    }
+
+    public List<TagGroupModel> getTagGroups() {
+        return mGroups;
+    }
+
+    /**
+     * 所有标签组的标签总数
+     */
+    public int getTagCount() {
+        return mTagCount;
+    }
+
+    /**
+     * 标签组的标签、文字或方向变化后调用，重新测量文字并计算位置
+     */
+    public void notifyTagGroupsChanged() {
+        final int groupCount = mGroups.size();
+        int tagCount = 0;
+        for (int i = 0; i < groupCount; i++) {
+            tagCount += mGroups.get(i).getTags().size();
+        }
+        ensureCapacity(groupCount, tagCount);
+        mTagCount = tagCount;
+        int index = 0;
+        for (int g = 0; g < groupCount; g++) {
+            mGroupStart[g] = index;
+            final List<TagGroupModel.Tag> tags = mGroups.get(g).getTags();
+            for (int t = 0; t < tags.size(); t++) {
+                final TagGroupModel.Tag tag = tags.get(t);
+                mDirections[index] = resolveDirection(tag.getDirection(), tags.size(), t);
+                mTagSizes[index * TagLayoutSolver.SIZE_STRIDE] = measureTextWidth(tag.getName());
+                mTagSizes[index * TagLayoutSolver.SIZE_STRIDE + 1] = mFontMetrics.bottom - mFontMetrics.top + 2 * mTextPaddingV;
+                index++;
+            }
+        }
+        mGroupStart[groupCount] = index;
+        while (mLinesRenderers.size() < groupCount) {
+            mLinesRenderers.add(new TagLinesRenderer());
+        }
+        layoutGroups();
+        updateRippleAnimator();
+        invalidate();
+    }
+
+    private DIRECTION resolveDirection(int value, int tagCount, int index) {
+        final DIRECTION direction = DIRECTION.valueOf(value);
+        if (direction != DIRECTION.CENTER) {
+            return direction;
+        }
+        return DirectionUtil.getInstance().getDirection(tagCount, 0, index);
+    }
+
+    private int measureTextWidth(String text) {
+        final float width = text == null ? 0 : mTextPaint.measureText(text);
+        return (int) Math.ceil(width) + 2 * mTextPaddingH;
+    }
+
+    private void ensureCapacity(int groupCount, int tagCount) {
+        if (mGroupStart.length < groupCount + 1) {
+            mGroupStart = new int[groupCount + 1];
+            mGroupCenters = new int[groupCount * 2];
+            mGroupBounds = new int[groupCount * TagLayoutSolver.RECT_STRIDE];
+        }
+        if (mDirections.length < tagCount) {
+            mDirections = new DIRECTION[tagCount];
+            mTagSizes = new int[tagCount * TagLayoutSolver.SIZE_STRIDE];
+            mTagRects = new int[tagCount * TagLayoutSolver.RECT_STRIDE];
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutGroups();
+    }
+
+    private void layoutGroups() {
+        final int groupCount = mGroups.size();
+        for (int g = 0; g < groupCount; g++) {
+            updateCenter(g);
+        }
+        if (mAutoDirection && getWidth() > 0) {
+            mDirectionPlanner.plan(getWidth(), getHeight(), mGroupCenters, mGroupStart, groupCount, mTagSizes, mDirections);
+            for (int g = 0; g < groupCount; g++) {
+                writeBackDirections(g);
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            layoutGroup(g);
+        }
+    }
+
+    private void updateCenter(int group) {
+        final TagGroupModel model = mGroups.get(group);
+        mGroupCenters[group * 2] = TagLayoutSolver.center(getWidth(), model.getPercentX());
+        mGroupCenters[group * 2 + 1] = TagLayoutSolver.center(getHeight(), model.getPercentY());
+    }
+
+    /**
+     * 把规划得到的方向保存到标签组的模型中
+     */
+    private void writeBackDirections(int group) {
+        final List<TagGroupModel.Tag> tags = mGroups.get(group).getTags();
+        final int start = mGroupStart[group];
+        for (int i = 0; i < tags.size(); i++) {
+            tags.get(i).setDirection(mDirections[start + i].getValue());
+        }
+    }
+
+    /**
+     * 设置是否自动规划方向，开启后每组的方向会选择不超出 View 且不与其他组重叠的模式，拖动时只重新规划被拖动的组
+     */
+    public void setAutoDirection(boolean autoDirection) {
+        mAutoDirection = autoDirection;
+        layoutGroups();
+        invalidate();
+    }
+
+    public boolean isAutoDirection() {
+        return mAutoDirection;
+    }
+
+    /**
+     * 计算单个标签组的标签位置、折线和边界，需要先计算圆心
+     */
+    private void layoutGroup(int group) {
+        final int start = mGroupStart[group];
+        final int count = mGroupStart[group + 1] - start;
+        final int centerX = mGroupCenters[group * 2];
+        final int centerY = mGroupCenters[group * 2 + 1];
+        mLayoutSolver.layout(centerX, centerY, mDirections, mTagSizes, start, count, mTagRects);
+        mLinesRenderers.get(group).update(centerX, centerY, mDirections, mTagRects, start, count, mInnerRadius);
+        // 边界包括中心圆、水波纹、标签以及折线末端的小圆
+        final int reach = Math.max(mRadius, mRippleMaxRadius);
+        int left = centerX - reach, top = centerY - reach, right = centerX + reach, bottom = centerY + reach;
+        for (int i = start; i < start + count; i++) {
+            final int offset = i * TagLayoutSolver.RECT_STRIDE;
+            left = Math.min(left, mTagRects[offset] - 2 * mInnerRadius);
+            top = Math.min(top, mTagRects[offset + 1]);
+            right = Math.max(right, mTagRects[offset + 2] + 2 * mInnerRadius);
+            bottom = Math.max(bottom, mTagRects[offset + 3] + mInnerRadius);
+        }
+        final int offset = group * TagLayoutSolver.RECT_STRIDE;
+        mGroupBounds[offset] = left;
+        mGroupBounds[offset + 1] = top;
+        mGroupBounds[offset + 2] = right;
+        mGroupBounds[offset + 3] = bottom;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (!canvas.getClipBounds(mClipBounds)) {
+            return;
+        }
+        for (int g = 0; g < mGroups.size(); g++) {
+            final int offset = g * TagLayoutSolver.RECT_STRIDE;
+            if (mGroupBounds[offset + 2] < mClipBounds.left || mGroupBounds[offset] > mClipBounds.right
+                    || mGroupBounds[offset + 3] < mClipBounds.top || mGroupBounds[offset + 1] > mClipBounds.bottom) {
+                continue; // 不在可见区域内的标签组不绘制
+            }
+            drawGroup(canvas, g);
+        }
+    }
+
+    /**
+     * 按 TagViewGroup 的顺序绘制：标签、水波纹、折线、中心圆
+     */
+    private void drawGroup(Canvas canvas, int group) {
+        final List<TagGroupModel.Tag> tags = mGroups.get(group).getTags();
+        final int start = mGroupStart[group];
+        final int centerX = mGroupCenters[group * 2];
+        final int centerY = mGroupCenters[group * 2 + 1];
+        for (int i = start; i < mGroupStart[group + 1]; i++) {
+            final String name = tags.get(i - start).getName();
+            if (name != null) {
+                final int offset = i * TagLayoutSolver.RECT_STRIDE;
+                canvas.drawText(name, mTagRects[offset] + mTextPaddingH,
+                        mTagRects[offset + 1] + mTextPaddingV - mFontMetrics.top, mTextPaint);
+            }
+        }
+        if (mRippleEnabled) {
+            mPaint.setStyle(Paint.Style.FILL);
+            mPaint.setColor(Color.WHITE);
+            mPaint.setAlpha((int) (mRippleAlpha * (1 - mRipplePhase)));
+            canvas.drawCircle(centerX, centerY, mRippleMinRadius + (mRippleMaxRadius - mRippleMinRadius) * mRipplePhase, mPaint);
+        }
+        mPaint.setColor(Color.WHITE);
+        mPaint.setStrokeWidth(mLinesWidth);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mLinesRenderers.get(group).draw(canvas, mPaint, 1);
+        mPaint.setStyle(Paint.Style.FILL);
+        canvas.drawCircle(centerX, centerY, mRadius, mPaint);
+    }
+
+    /**
+     * 设置是否显示水波纹，所有标签组共用一个动画
+     */
+    public void setRippleEnabled(boolean enabled) {
+        mRippleEnabled = enabled;
+        updateRippleAnimator();
+        invalidate();
+    }
+
+    public boolean isRippleEnabled() {
+        return mRippleEnabled;
+    }
+
+    private void updateRippleAnimator() {
+        final boolean shouldRun = mRippleEnabled && !mGroups.isEmpty() && mAttached;
+        if (shouldRun && mRippleAnimator == null) {
+            mRippleAnimator = ValueAnimator.ofFloat(0, 1);
+            mRippleAnimator.setDuration(RIPPLE_DURATION);
+            mRippleAnimator.setRepeatMode(ValueAnimator.RESTART);
+            mRippleAnimator.setRepeatCount(ValueAnimator.INFINITE);
+            mRippleAnimator.setInterpolator(new LinearInterpolator());
+            mRippleAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mRipplePhase = (float) animation.getAnimatedValue();
+                    invalidate();
+                }
+            });
+            mRippleAnimator.start();
+        } else if (!shouldRun && mRippleAnimator != null) {
+            mRippleAnimator.cancel();
+            mRippleAnimator = null;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updateRippleAnimator();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        updateRippleAnimator(); // detached时停止动画
+    }
+
+    /**
+     * 查找触摸点所在的标签组，后绘制的标签组优先
+     *
+     * @return 标签组下标，未找到返回 -1，触摸到的标签下标保存在 mTouchTag 中，触摸到中心圆时为 -1
+     */
+    private int findTouchTarget(float x, float y) {
+        for (int g = mGroups.size() - 1; g >= 0; g--) {
+            final int offset = g * TagLayoutSolver.RECT_STRIDE;
+            if (x < mGroupBounds[offset] || x > mGroupBounds[offset + 2]
+                    || y < mGroupBounds[offset + 1] || y > mGroupBounds[offset + 3]) {
+                continue;
+            }
+            final int centerX = mGroupCenters[g * 2];
+            final int centerY = mGroupCenters[g * 2 + 1];
+            if (Math.abs(x - centerX) <= mRadius && Math.abs(y - centerY) <= mRadius) {
+                mTouchTag = -1;
+                return g;
+            }
+            final int start = mGroupStart[g];
+            for (int i = start; i < mGroupStart[g + 1]; i++) {
+                final int rect = i * TagLayoutSolver.RECT_STRIDE;
+                if (x >= mTagRects[rect] && x < mTagRects[rect + 2] && y >= mTagRects[rect + 1] && y < mTagRects[rect + 3]) {
+                    mTouchTag = i - start;
+                    return g;
+                }
+            }
+        }
+        mTouchTag = -1;
+        return -1;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mClickListener != null) {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                mTouchGroup = findTouchTarget(event.getX(), event.getY());
+                if (mTouchGroup >= 0 && getParent() != null) {
+                    // 如果触碰在中心点上或者tag上就拦截，否则不拦截使上下滑动可行
+                    getParent().requestDisallowInterceptTouchEvent(mDisallowIntercept);
+                }
+            }
+            return mGestureDetector.onTouchEvent(event);
+        }
+        return super.onTouchEvent(event);
+    }
+
+    public void setOnTagGroupClickListener(OnTagGroupClickListener listener) {
+        mClickListener = listener;
+    }
+
+    /**
+     * 设置是否允许父布局拦截onTouchEvent，在设置了OnTagGroupClickListener的情况下才生效
+     */
+    public void setDisallowIntercept(boolean disallowIntercept) {
+        mDisallowIntercept = disallowIntercept;
+    }
+
+    /**
+     * 与 {@link TagViewGroup.OnTagGroupClickListener} 相同的回调，以标签组下标代替 TagViewGroup
+     */
+    public interface OnTagGroupClickListener {
+        //TagGroup 中心圆点被点击
+        void onCircleClick(TagCanvasView view, int groupIndex);
+
+        //TagGroup Tag被点击
+        void onTagClick(TagCanvasView view, int groupIndex, int tagIndex);
+
+        //TagGroup 被长按
+        void onLongPress(TagCanvasView view, int groupIndex);
+
+        //TagGroup 移动
+        void onScroll(TagCanvasView view, int groupIndex, float percentX, float percentY);
+    }
+
+    //内部处理 touch 事件监听器
+    private class TagOnGestureListener extends GestureDetector.SimpleOnGestureListener {
+        @Override
+        public boolean onDown(MotionEvent e) {
+            return mTouchGroup >= 0; // 如果触碰在中心点上或者tag上就继续传递触摸事件
+        }
+
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            if (mTouchGroup < 0) {
+                return false;
+            }
+            if (mTouchTag < 0) { // 如果点击的是中心点
+                mClickListener.onCircleClick(TagCanvasView.this, mTouchGroup);
+            } else {
+                mClickListener.onTagClick(TagCanvasView.this, mTouchGroup, mTouchTag);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
+            if (mTouchGroup < 0) {
+                return false;
+            }
+            final int group = mTouchGroup;
+            final int start = mGroupStart[group];
+            mLayoutSolver.computeUsed(mDirections, mTagSizes, start, mGroupStart[group + 1] - start, mUsed);
+            float currentX = mGroupCenters[group * 2] - distanceX; // 新的中心坐标是原中心坐标减去每次移动的距离
+            float currentY = mGroupCenters[group * 2 + 1] - distanceY;
+            currentX = Math.min(Math.max(currentX, mUsed[TagLayoutSolver.USED_LEFT]), getWidth() - mUsed[TagLayoutSolver.USED_RIGHT]);
+            currentY = Math.min(Math.max(currentY, mUsed[TagLayoutSolver.USED_TOP]), getHeight() - mUsed[TagLayoutSolver.USED_BOTTOM]);
+            final TagGroupModel model = mGroups.get(group);
+            model.setPercentX(currentX / getWidth());
+            model.setPercentY(currentY / getHeight());
+            updateCenter(group);
+            if (mAutoDirection) { // 只重新规划被拖动的标签组
+                mDirectionPlanner.replan(group);
+                writeBackDirections(group);
+            }
+            layoutGroup(group); // 只重新计算被拖动的标签组
+            invalidate();
+            mClickListener.onScroll(TagCanvasView.this, group, model.getPercentX(), model.getPercentY());
+            return true;
+        }
+
+        @Override
+        public void onLongPress(MotionEvent e) {
+            if (mTouchGroup >= 0) {
+                mClickListener.onLongPress(TagCanvasView.this, mTouchGroup);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.timshinlee.tagviewgroup;
+
+/**
+ * 多个标签组的方向规划，不依赖 Android 的 View
+ * <p>
+ * 对每个标签组依次尝试 {@link DirectionUtil} 的各种模式，选出超出容器面积与和其他标签组重叠面积最小的一种，
+ * 一次遍历得到所有标签组的方向。某个标签组移动后只需重新规划这一组
+ * <p>
+ * 所有数据以紧凑数组传入：圆心 {x, y, ...}、每组第一个标签的下标、标签尺寸 {width, height, ...}，
+ * 方向为 {@link DIRECTION#CENTER} 的子控件(水波纹)不参与规划。
+ * 各组线条长度或所在范围不同时(例如多个 TagViewGroup)，通过 {@link #plan(TagLayoutSolver[], int[], int[], int[], int, int[], DIRECTION[])}
+ * 为每组分别传入 TagLayoutSolver 与范围
+ */
+public class TagDirectionPlanner {
+    /**
+     * 超出容器的面积比重叠面积更不能接受
+     */
+    private static final long OVERFLOW_WEIGHT = 4;
+
+    private final TagLayoutSolver mSolver;
+    private final int[] mUsed = new int[4];
+    private int mWidth;
+    private int mHeight;
+    /**
+     * 每组的 TagLayoutSolver，为 null 时所有组使用 mSolver
+     */
+    private TagLayoutSolver[] mSolvers;
+    /**
+     * 每组所在的范围 {left, top, right, bottom, ...}，为 null 时所有组都在 (0, 0, mWidth, mHeight) 中
+     */
+    private int[] mBounds;
+    private int mGroupCount;
+    private int[] mCenters;
+    private int[] mGroupStart;
+    private int[] mSizes;
+    private DIRECTION[] mDirections;
+    /**
+     * 每组当前模式
+     */
+    private int[] mModes = new int[0];
+    /**
+     * 每组当前边界 {left, top, right, bottom, ...}
+     */
+    private int[] mBoxes = new int[0];
+
+    public TagDirectionPlanner(TagLayoutSolver solver) {
+        mSolver = solver;
+    }
+
+    /**
+     * 每组使用各自的 TagLayoutSolver，只能调用 {@link #plan(TagLayoutSolver[], int[], int[], int[], int, int[], DIRECTION[])}
+     */
+    public TagDirectionPlanner() {
+        this(null);
+    }
+
+    /**
+     * 规划所有标签组的方向，结果写入 directions
+     *
+     * @param width      容器宽度
+     * @param height     容器高度
+     * @param centers    每组圆心 {x, y, ...}
+     * @param groupStart 每组第一个子控件的下标，长度至少为组数加一
+     * @param groupCount 组数
+     * @param sizes      子控件尺寸 {width, height, ...}
+     * @param directions 子控件方向，规划结果写回这里
+     */
+    public void plan(int width, int height, int[] centers, int[] groupStart, int groupCount, int[] sizes,
+                     DIRECTION[] directions) {
+        if (mSolver == null) {
+            throw new IllegalStateException("TagDirectionPlanner created without a TagLayoutSolver");
+        }
+        mWidth = width;
+        mHeight = height;
+        mSolvers = null;
+        mBounds = null;
+        plan(centers, groupStart, groupCount, sizes, directions);
+    }
+
+    /**
+     * 规划所有标签组的方向，每组使用各自的线条长度，标签不超出各自的范围，结果写入 directions。
+     * 圆心与范围使用同一个坐标系
+     *
+     * @param solvers 每组的 TagLayoutSolver，重新规划时读取当时的线条长度
+     * @param bounds  每组所在的范围 {left, top, right, bottom, ...}
+     * @see #plan(int, int, int[], int[], int, int[], DIRECTION[])
+     */
+    public void plan(TagLayoutSolver[] solvers, int[] bounds, int[] centers, int[] groupStart, int groupCount,
+                     int[] sizes, DIRECTION[] directions) {
+        mSolvers = solvers;
+        mBounds = bounds;
+        plan(centers, groupStart, groupCount, sizes, directions);
+    }
+
+    private void plan(int[] centers, int[] groupStart, int groupCount, int[] sizes, DIRECTION[] directions) {
+        mCenters = centers;
+        mGroupStart = groupStart;
+        mGroupCount = groupCount;
+        mSizes = sizes;
+        mDirections = directions;
+        if (mModes.length < groupCount) {
+            mModes = new int[groupCount];
+            mBoxes = new int[groupCount * TagLayoutSolver.RECT_STRIDE];
+        }
+        // 先以默认模式得到每组的边界，再依次为每组选择最合适的模式
+        for (int g = 0; g < groupCount; g++) {
+            mModes[g] = 0;
+            applyMode(g, 0);
+            computeBox(g, mBoxes, g * TagLayoutSolver.RECT_STRIDE);
+        }
+        for (int g = 0; g < groupCount; g++) {
+            choose(g);
+        }
+    }
+
+    /**
+     * 第 group 组的圆心变化后重新规划这一组，其他组保持不变，需要先调用过 {@link #plan}
+     *
+     * @return 这一组选中的模式
+     */
+    public int replan(int group) {
+        return choose(group);
+    }
+
+    /**
+     * 第 group 组当前的模式
+     */
+    public int getMode(int group) {
+        return mModes[group];
+    }
+
+    private int choose(int group) {
+        final int offset = group * TagLayoutSolver.RECT_STRIDE;
+        int bestMode = mModes[group];
+        long bestCost = Long.MAX_VALUE;
+        for (int mode = 0; mode < DirectionUtil.MODE_COUNT; mode++) {
+            applyMode(group, mode);
+            computeBox(group, mBoxes, offset);
+            final long cost = cost(group);
+            // 代价相同时保留当前模式，避免方向来回跳动
+            if (cost < bestCost || (cost == bestCost && mode == mModes[group])) {
+                bestCost = cost;
+                bestMode = mode;
+            }
+        }
+        mModes[group] = bestMode;
+        applyMode(group, bestMode);
+        computeBox(group, mBoxes, offset);
+        return bestMode;
+    }
+
+    /**
+     * 把模式对应的方向写入这一组的子控件
+     */
+    private void applyMode(int group, int mode) {
+        final int start = mGroupStart[group];
+        final int end = mGroupStart[group + 1];
+        int tagCount = 0;
+        for (int i = start; i < end; i++) {
+            if (mDirections[i] != DIRECTION.CENTER) {
+                tagCount++;
+            }
+        }
+        final DirectionUtil directionUtil = DirectionUtil.getInstance();
+        int tagIndex = 0;
+        for (int i = start; i < end; i++) {
+            if (mDirections[i] != DIRECTION.CENTER) {
+                mDirections[i] = directionUtil.getDirection(tagCount, mode, tagIndex++);
+            }
+        }
+    }
+
+    private void computeBox(int group, int[] outBox, int offset) {
+        final int start = mGroupStart[group];
+        final TagLayoutSolver solver = mSolvers != null ? mSolvers[group] : mSolver;
+        solver.computeUsed(mDirections, mSizes, start, mGroupStart[group + 1] - start, mUsed);
+        final int centerX = mCenters[group * 2];
+        final int centerY = mCenters[group * 2 + 1];
+        outBox[offset] = centerX - mUsed[TagLayoutSolver.USED_LEFT];
+        outBox[offset + 1] = centerY - mUsed[TagLayoutSolver.USED_TOP];
+        outBox[offset + 2] = centerX + mUsed[TagLayoutSolver.USED_RIGHT];
+        outBox[offset + 3] = centerY + mUsed[TagLayoutSolver.USED_BOTTOM];
+    }
+
+    private long cost(int group) {
+        final int offset = group * TagLayoutSolver.RECT_STRIDE;
+        final int left = mBoxes[offset];
+        final int top = mBoxes[offset + 1];
+        final int right = mBoxes[offset + 2];
+        final int bottom = mBoxes[offset + 3];
+        final long area = (long) (right - left) * (bottom - top);
+        final long overflow;
+        if (mBounds != null) {
+            overflow = area - intersection(left, top, right, bottom,
+                    mBounds[offset], mBounds[offset + 1], mBounds[offset + 2], mBounds[offset + 3]);
+        } else {
+            overflow = area - intersection(left, top, right, bottom, 0, 0, mWidth, mHeight);
+        }
+        long overlap = 0;
+        for (int g = 0; g < mGroupCount; g++) {
+            if (g != group) {
+                final int other = g * TagLayoutSolver.RECT_STRIDE;
+                overlap += intersection(left, top, right, bottom,
+                        mBoxes[other], mBoxes[other + 1], mBoxes[other + 2], mBoxes[other + 3]);
+            }
+        }
+        return overflow * OVERFLOW_WEIGHT + overlap;
+    }
+
+    private static long intersection(int left, int top, int right, int bottom,
+                                     int otherLeft, int otherTop, int otherRight, int otherBottom) {
+        final long width = Math.min(right, otherRight) - Math.max(left, otherLeft);
+        final long height = Math.min(bottom, otherBottom) - Math.max(top, otherTop);
+        return width > 0 && height > 0 ? width * height : 0;
+    }
+}
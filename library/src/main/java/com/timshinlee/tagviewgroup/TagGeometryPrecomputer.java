@@ -0,0 +1,270 @@
+package com.timshinlee.tagviewgroup;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程预先计算标签组的文字尺寸与标签位置
+ * <p>
+ * 列表中绑定 {@link TagGroupModel} 时，文字测量与位置计算原本都在主线程的第一次布局中完成。
+ * 预计算把这部分工作放到后台线程，得到的 {@link TagGeometrySnapshot} 交给 {@link TagViewGroup#applySnapshot}，
+ * 测量得到的文字尺寸与快照一致时直接使用快照中的标签位置。
+ * Adapter 可以对即将显示的数据调用 {@link #prefetch}，绑定时用 {@link #getPrefetched} 取出结果，
+ * 只保留最近 {@link #DEFAULT_MAX_PREFETCHED} 个标签组的预取结果
+ * <p>
+ * 计算时假设 TagViewGroup 的尺寸是确定的 (EXACTLY) 且没有内边距。文字由后台线程中新建的 TagTextView
+ * 按标签相同的测量规格测量，结果写入 {@link TagTextMeasureCache}，绑定时标签命中缓存，主线程不再测量文字。
+ * 标签的文字参数与预计算时不同(例如主题不同)时缓存不命中，测量得到的尺寸与快照不一致，
+ * 快照不会被使用，TagViewGroup 退回正常的测量与布局
+ */
+public class TagGeometryPrecomputer {
+    public static final int DEFAULT_MAX_PREFETCHED = 64;
+
+    private static ExecutorService mDefaultExecutor;
+
+    private final Executor mExecutor;
+    private final Handler mMainHandler;
+    /**
+     * 创建测量用的 TagTextView，与标签使用相同的主题
+     */
+    private final Context mContext;
+    private final int mInnerRadius;
+    private final int mTiltDistance;
+    private final int mVerDistance;
+    /**
+     * 预取的结果，按访问顺序排列，超过 DEFAULT_MAX_PREFETCHED 个时移除最久没有取出的，访问时需要同步
+     */
+    private final LinkedHashMap<TagGroupModel, TagGeometrySnapshot> mPrefetched =
+            new LinkedHashMap<TagGroupModel, TagGeometrySnapshot>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TagGroupModel, TagGeometrySnapshot> eldest) {
+                    return size() > DEFAULT_MAX_PREFETCHED;
+                }
+            };
+
+    public interface Callback {
+        /**
+         * 一批数据计算完成，在主线程回调，快照顺序与传入的数据一致
+         */
+        void onPrecomputed(List<TagGeometrySnapshot> snapshots);
+    }
+
+    /**
+     * 使用默认的后台线程，线条长度取自 TagViewGroup 的默认值
+     */
+    public TagGeometryPrecomputer(@NonNull Context context) {
+        this(context, DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_INNER_RADIUS),
+                DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_TILT_DISTANCE),
+                DipConvertUtils.dip2px(context, TagViewGroup.DEFAULT_V_DISTANCE), getDefaultExecutor());
+    }
+
+    /**
+     * 线条长度与 group 相同，需要在主线程创建
+     *
+     * @param group    参照的标签组，只读取它的参数与 Context，不会持有标签组
+     * @param executor 执行计算的线程池
+     */
+    public TagGeometryPrecomputer(@NonNull TagViewGroup group, @NonNull Executor executor) {
+        this(group.getContext(), group.getInnerRadius(), group.getTiltDistance(), group.getVDistance(), executor);
+    }
+
+    private TagGeometryPrecomputer(Context context, int innerRadius, int tiltDistance, int verDistance,
+                                   Executor executor) {
+        mContext = context;
+        mInnerRadius = innerRadius;
+        mTiltDistance = tiltDistance;
+        mVerDistance = verDistance;
+        mExecutor = executor;
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    private static synchronized ExecutorService getDefaultExecutor() {
+        if (mDefaultExecutor == null) {
+            mDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "TagGeometryPrecomputer");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return mDefaultExecutor;
+    }
+
+    /**
+     * 在后台线程计算一批数据，完成后在主线程回调
+     *
+     * @param models 标签组数据，计算期间不要修改
+     * @param width  TagViewGroup 的宽度
+     * @param height TagViewGroup 的高度
+     * @return 可以用来取消计算
+     */
+    public Future<List<TagGeometrySnapshot>> precompute(@NonNull List<TagGroupModel> models, int width,
+                                                         int height, @Nullable Callback callback) {
+        return execute(models, width, height, callback, false);
+    }
+
+    /**
+     * @param prefetch 是否把结果保存到 mPrefetched
+     */
+    private Future<List<TagGeometrySnapshot>> execute(List<TagGroupModel> models, final int width, final int height,
+                                                      @Nullable final Callback callback, final boolean prefetch) {
+        final List<TagGroupModel> batch = new ArrayList<>(models);
+        final FutureTask<List<TagGeometrySnapshot>> task = new FutureTask<List<TagGeometrySnapshot>>(new Callable<List<TagGeometrySnapshot>>() {
+            @Override
+            public List<TagGeometrySnapshot> call() {
+                final List<TagGeometrySnapshot> snapshots = new ArrayList<>(batch.size());
+                final TagTextView measurer = newMeasurer(); // 一批数据共用
+                for (int i = 0; i < batch.size() && !Thread.currentThread().isInterrupted(); i++) {
+                    final TagGeometrySnapshot snapshot = compute(batch.get(i), width, height, measurer);
+                    if (prefetch) {
+                        synchronized (mPrefetched) {
+                            mPrefetched.put(batch.get(i), snapshot);
+                        }
+                    }
+                    snapshots.add(snapshot);
+                }
+                return snapshots;
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (callback == null || isCancelled()) {
+                    return;
+                }
+                final List<TagGeometrySnapshot> snapshots;
+                try {
+                    snapshots = get();
+                } catch (Exception e) {
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onPrecomputed(snapshots);
+                    }
+                });
+            }
+        };
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * 为即将显示的数据预取，结果通过 {@link #getPrefetched} 取出
+     */
+    public Future<List<TagGeometrySnapshot>> prefetch(@NonNull List<TagGroupModel> models, int width, int height) {
+        return execute(models, width, height, null, true);
+    }
+
+    /**
+     * 取出预取的结果，数据在预取后被修改或尺寸不同时返回 null
+     */
+    @Nullable
+    public TagGeometrySnapshot getPrefetched(@NonNull TagGroupModel model, int width, int height) {
+        final TagGeometrySnapshot snapshot;
+        synchronized (mPrefetched) {
+            snapshot = mPrefetched.get(model);
+        }
+        if (snapshot == null || snapshot.getWidth() != width || snapshot.getHeight() != height
+                || !isUpToDate(snapshot, model)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private static boolean isUpToDate(TagGeometrySnapshot snapshot, TagGroupModel model) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        if (snapshot.getPercentX() != model.getPercentX() || snapshot.getPercentY() != model.getPercentY()
+                || snapshot.getTagCount() != tags.size()) {
+            return false;
+        }
+        for (int i = 0; i < tags.size(); i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            final String name = snapshot.getName(i);
+            if (!(name == null ? tag.getName() == null : name.equals(tag.getName()))
+                    || resolveDirection(tag.getDirection(), tags.size(), i) != snapshot.getDirection(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在当前线程计算一个标签组，可以在任意线程调用
+     */
+    public TagGeometrySnapshot compute(@NonNull TagGroupModel model, int width, int height) {
+        return compute(model, width, height, newMeasurer());
+    }
+
+    /**
+     * 与 TagViewGroup 中的标签相同，宽高为 WRAP_CONTENT。TextView 在文字变化时读取 LayoutParams，不能为空
+     */
+    private TagTextView newMeasurer() {
+        final TagTextView measurer = new TagTextView(mContext);
+        measurer.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        return measurer;
+    }
+
+    /**
+     * @param measurer 测量文字的 TagTextView，只在当前线程使用，不关联窗口
+     */
+    private TagGeometrySnapshot compute(TagGroupModel model, int width, int height, TagTextView measurer) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        final int count = tags.size();
+        final String[] names = new String[count];
+        final DIRECTION[] directions = new DIRECTION[count];
+        final int[] sizes = new int[count * TagLayoutSolver.SIZE_STRIDE];
+        // 与 TagViewGroup 测量 WRAP_CONTENT 的标签时相同的规格
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.AT_MOST);
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.AT_MOST);
+        for (int i = 0; i < count; i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            names[i] = tag.getName();
+            directions[i] = resolveDirection(tag.getDirection(), count, i);
+            measurer.setText(tag.getName());
+            measurer.measure(widthSpec, heightSpec); // 未命中时测量并写入 TagTextMeasureCache
+            sizes[i * TagLayoutSolver.SIZE_STRIDE] = measurer.getMeasuredWidth();
+            sizes[i * TagLayoutSolver.SIZE_STRIDE + 1] = measurer.getMeasuredHeight();
+        }
+        final TagLayoutSolver solver = new TagLayoutSolver(mInnerRadius, mTiltDistance, mVerDistance);
+        final int[] used = new int[4];
+        solver.computeUsed(directions, sizes, count, used);
+        final int centerX = TagLayoutSolver.center(width, model.getPercentX());
+        final int centerY = TagLayoutSolver.center(height, model.getPercentY());
+        final int[] rects = new int[count * TagLayoutSolver.RECT_STRIDE];
+        solver.layout(centerX, centerY, directions, sizes, count, rects);
+        return new TagGeometrySnapshot(width, height, model.getPercentX(), model.getPercentY(),
+                centerX, centerY, solver, names, directions, sizes, rects, used);
+    }
+
+    /**
+     * 与 TagCanvasView 相同：没有保存方向(CENTER)的标签使用默认方向
+     */
+    static DIRECTION resolveDirection(int value, int tagCount, int index) {
+        final DIRECTION direction = DIRECTION.valueOf(value);
+        if (direction != DIRECTION.CENTER) {
+            return direction;
+        }
+        return DirectionUtil.getInstance().getDirection(tagCount, 0, index);
+    }
+}
@@ -0,0 +1,152 @@
+package com.timshinlee.tagviewgroup;
+
+import java.util.Arrays;
+
+/**
+ * 一个标签组在指定尺寸下预先计算好的结果，不可变，可以在线程间传递
+ * <p>
+ * 包含每个标签的文字、方向、测量尺寸与布局位置，以及中心圆上下左右各个方向的宽度。
+ * 由 {@link TagGeometryPrecomputer} 在后台线程生成，{@link TagViewGroup#applySnapshot} 直接使用，
+ * 不需要在主线程上重新计算。标签按 {@link TagGroupModel#getTags()} 的顺序排列，不包含水波纹
+ */
+public final class TagGeometrySnapshot {
+    private final int mWidth;
+    private final int mHeight;
+    private final float mPercentX;
+    private final float mPercentY;
+    private final int mCenterX;
+    private final int mCenterY;
+    private final int mInnerRadius;
+    private final int mTiltDistance;
+    private final int mVerDistance;
+    private final String[] mNames;
+    private final DIRECTION[] mDirections;
+    /**
+     * 标签测量尺寸 {width, height, ...}
+     */
+    private final int[] mSizes;
+    /**
+     * 标签布局位置 {left, top, right, bottom, ...}
+     */
+    private final int[] mRects;
+    /**
+     * 中心圆上下左右各个方向的宽度 {left, top, right, bottom}
+     */
+    private final int[] mUsed;
+
+    TagGeometrySnapshot(int width, int height, float percentX, float percentY,
+                        int centerX, int centerY, TagLayoutSolver solver, String[] names,
+                        DIRECTION[] directions, int[] sizes, int[] rects, int[] used) {
+        mWidth = width;
+        mHeight = height;
+        mPercentX = percentX;
+        mPercentY = percentY;
+        mCenterX = centerX;
+        mCenterY = centerY;
+        mInnerRadius = solver.getInnerRadius();
+        mTiltDistance = solver.getTiltDistance();
+        mVerDistance = solver.getVerDistance();
+        mNames = names;
+        mDirections = directions;
+        mSizes = sizes;
+        mRects = rects;
+        mUsed = used;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public float getPercentX() {
+        return mPercentX;
+    }
+
+    public float getPercentY() {
+        return mPercentY;
+    }
+
+    public int getCenterX() {
+        return mCenterX;
+    }
+
+    public int getCenterY() {
+        return mCenterY;
+    }
+
+    public int getTagCount() {
+        return mNames.length;
+    }
+
+    public String getName(int index) {
+        return mNames[index];
+    }
+
+    public DIRECTION getDirection(int index) {
+        return mDirections[index];
+    }
+
+    public int getTagWidth(int index) {
+        return mSizes[index * TagLayoutSolver.SIZE_STRIDE];
+    }
+
+    public int getTagHeight(int index) {
+        return mSizes[index * TagLayoutSolver.SIZE_STRIDE + 1];
+    }
+
+    /**
+     * 把第 index 个标签的位置 {left, top, right, bottom} 复制到 outRects 的 offset 处
+     */
+    public void getTagRect(int index, int[] outRects, int offset) {
+        System.arraycopy(mRects, index * TagLayoutSolver.RECT_STRIDE, outRects, offset, TagLayoutSolver.RECT_STRIDE);
+    }
+
+    /**
+     * 把中心圆上下左右各个方向的宽度复制到 outUsed
+     */
+    public void getUsed(int[] outUsed) {
+        System.arraycopy(mUsed, 0, outUsed, 0, mUsed.length);
+    }
+
+    /**
+     * 快照是否与标签组当前的状态一致，一致时可以直接使用快照中的位置
+     *
+     * @param directions 子控件方向，方向为 CENTER 的子控件(水波纹)不参与比较
+     * @param sizes      子控件测量尺寸
+     * @param count      子控件数量
+     */
+    boolean matches(int width, int height, float percentX, float percentY, TagLayoutSolver solver,
+                    DIRECTION[] directions, int[] sizes, int count) {
+        if (width != mWidth || height != mHeight || percentX != mPercentX || percentY != mPercentY
+                || solver.getInnerRadius() != mInnerRadius || solver.getTiltDistance() != mTiltDistance
+                || solver.getVerDistance() != mVerDistance) {
+            return false;
+        }
+        int tag = 0;
+        for (int i = 0; i < count; i++) {
+            if (directions[i] == DIRECTION.CENTER) {
+                continue;
+            }
+            if (tag >= mDirections.length || directions[i] != mDirections[tag]
+                    || sizes[i * TagLayoutSolver.SIZE_STRIDE] != getTagWidth(tag)
+                    || sizes[i * TagLayoutSolver.SIZE_STRIDE + 1] != getTagHeight(tag)) {
+                return false;
+            }
+            tag++;
+        }
+        return tag == mDirections.length;
+    }
+
+    @Override
+    public String toString() {
+        return "TagGeometrySnapshot{" +
+                "size=" + mWidth + "x" + mHeight +
+                ", center=(" + mCenterX + ", " + mCenterY + ")" +
+                ", names=" + Arrays.toString(mNames) +
+                ", directions=" + Arrays.toString(mDirections) +
+                '}';
+    }
+}
@@ -10,10 +10,21 @@ import java.util.List;
  **/
 public class TagGroupModel implements Serializable {
     public static final long serialVersionUID = 1L;
-    private List<Tag> tags = new ArrayList<>();
+    private List<Tag> tags;
     private float percentX;
     private float percentY;
 
+    public TagGroupModel() {
+        this(new ArrayList<Tag>());
+    }
+
+    /**
+     * 使用传入的标签列表，TagGroupStore 的视图传入自己的列表，不创建用不到的 ArrayList
+     */
+    TagGroupModel(List<Tag> tags) {
+        this.tags = tags;
+    }
+
     public List<Tag> getTags() {
         return tags;
     }
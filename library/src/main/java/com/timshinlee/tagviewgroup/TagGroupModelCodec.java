@@ -0,0 +1,305 @@
+package com.timshinlee.tagviewgroup;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TagGroupModel 的二进制编码，代替 Serializable 用于缓存与 Intent/Bundle 传递
+ * <p>
+ * 单个标签组的格式：
+ * <pre>
+ * version:byte percentX:float percentY:float tagCount:varint
+ * tagCount × { direction:byte nameLength:varint name:UTF-8 }
+ * </pre>
+ * 批量格式为 version:byte groupCount:varint 之后依次是不带 version 的标签组。
+ * nameLength 为 UTF-8 字节数加一，0 表示 name 为 null。数值按 ByteBuffer 的字节序读写，默认大端。
+ * 编码直接写入 ByteBuffer，不创建中间对象；解码时只创建模型、标签与名称字符串。
+ * 先用 {@link #sizeOf} 计算长度再分配 ByteBuffer，可以一次分配正好的大小
+ * <p>
+ * 用法：
+ * <pre>
+ * final ByteBuffer buffer = ByteBuffer.allocate(TagGroupModelCodec.sizeOf(models));
+ * TagGroupModelCodec.encode(models, buffer);
+ * intent.putExtra(KEY_TAGS, buffer.array());
+ * ...
+ * final List&lt;TagGroupModel&gt; models = TagGroupModelCodec.decodeList(ByteBuffer.wrap(bytes));
+ * </pre>
+ */
+public final class TagGroupModelCodec {
+    /**
+     * 当前的格式版本，解码时拒绝更高的版本
+     */
+    public static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private TagGroupModelCodec() {
+    }
+
+    /**
+     * 编码单个标签组需要的字节数
+     */
+    public static int sizeOf(TagGroupModel model) {
+        return 1 + sizeOfGroup(model);
+    }
+
+    /**
+     * 批量编码标签组列表需要的字节数
+     */
+    public static int sizeOf(List<TagGroupModel> models) {
+        int size = 1 + sizeOfVarInt(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            size += sizeOfGroup(models.get(i));
+        }
+        return size;
+    }
+
+    /**
+     * 编码单个标签组，从 buffer 当前位置开始写入
+     *
+     * @throws java.nio.BufferOverflowException buffer 剩余空间不足 {@link #sizeOf(TagGroupModel)}
+     */
+    public static void encode(TagGroupModel model, ByteBuffer buffer) {
+        buffer.put((byte) VERSION);
+        encodeGroup(model, buffer);
+    }
+
+    /**
+     * 批量编码标签组列表，只写入一次版本号
+     *
+     * @throws java.nio.BufferOverflowException buffer 剩余空间不足 {@link #sizeOf(List)}
+     */
+    public static void encode(List<TagGroupModel> models, ByteBuffer buffer) {
+        buffer.put((byte) VERSION);
+        putVarInt(buffer, models.size());
+        for (int i = 0; i < models.size(); i++) {
+            encodeGroup(models.get(i), buffer);
+        }
+    }
+
+    /**
+     * 编码单个标签组为字节数组
+     */
+    public static byte[] encode(TagGroupModel model) {
+        final ByteBuffer buffer = ByteBuffer.allocate(sizeOf(model));
+        encode(model, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * 批量编码标签组列表为字节数组
+     */
+    public static byte[] encode(List<TagGroupModel> models) {
+        final ByteBuffer buffer = ByteBuffer.allocate(sizeOf(models));
+        encode(models, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * 从 buffer 当前位置解码单个标签组
+     *
+     * @throws IllegalArgumentException 版本不支持或数据不完整
+     */
+    public static TagGroupModel decode(ByteBuffer buffer) {
+        try {
+            checkVersion(buffer.get());
+            return decodeGroup(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated TagGroupModel data", e);
+        }
+    }
+
+    /**
+     * 从 buffer 当前位置解码批量编码的标签组列表
+     *
+     * @throws IllegalArgumentException 版本不支持或数据不完整
+     */
+    public static List<TagGroupModel> decodeList(ByteBuffer buffer) {
+        try {
+            checkVersion(buffer.get());
+            final int count = getLength(buffer);
+            final List<TagGroupModel> models = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                models.add(decodeGroup(buffer));
+            }
+            return models;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated TagGroupModel data", e);
+        }
+    }
+
+    private static void checkVersion(int version) {
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported TagGroupModel version " + version);
+        }
+    }
+
+    private static int sizeOfGroup(TagGroupModel model) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        int size = 4 + 4 + sizeOfVarInt(tags.size()); // percentX percentY tagCount
+        for (int i = 0; i < tags.size(); i++) {
+            final String name = tags.get(i).getName();
+            final int length = name == null ? 0 : utf8Length(name);
+            size += 1 + sizeOfVarInt(name == null ? 0 : length + 1) + length;
+        }
+        return size;
+    }
+
+    private static void encodeGroup(TagGroupModel model, ByteBuffer buffer) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        buffer.putFloat(model.getPercentX());
+        buffer.putFloat(model.getPercentY());
+        putVarInt(buffer, tags.size());
+        for (int i = 0; i < tags.size(); i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            buffer.put((byte) tag.getDirection());
+            final String name = tag.getName();
+            if (name == null) {
+                putVarInt(buffer, 0);
+            } else {
+                putVarInt(buffer, utf8Length(name) + 1);
+                putUtf8(buffer, name);
+            }
+        }
+    }
+
+    private static TagGroupModel decodeGroup(ByteBuffer buffer) {
+        final TagGroupModel model = new TagGroupModel();
+        model.setPercentX(buffer.getFloat());
+        model.setPercentY(buffer.getFloat());
+        final int count = getLength(buffer);
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setDirection(buffer.get());
+            final int length = getLength(buffer);
+            if (length > 0) {
+                tag.setName(getUtf8(buffer, length - 1));
+            }
+            tags.add(tag);
+        }
+        model.setTags(tags);
+        return model;
+    }
+
+    /**
+     * 读取长度或数量，超出剩余字节数的值一定是错误的数据，避免按它分配过大的列表
+     */
+    private static int getLength(ByteBuffer buffer) {
+        final int length = getVarInt(buffer);
+        if (length < 0 || length > buffer.remaining() + 1) {
+            throw new IllegalArgumentException("Corrupt TagGroupModel data, length " + length);
+        }
+        return length;
+    }
+
+    private static int sizeOfVarInt(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * 每个字节低 7 位存数据，最高位表示后面还有字节
+     */
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt TagGroupModel data, varint too long");
+    }
+
+    /**
+     * 字符串按 UTF-8 编码的字节数，不成对的代理字符按 '?' 计算，与 String.getBytes 相同
+     */
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putUtf8(ByteBuffer buffer, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Character.isSurrogate 在 API 19 才加入
+     */
+    private static boolean isSurrogate(char c) {
+        return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+    }
+
+    /**
+     * 堆内的 ByteBuffer 直接从底层数组创建字符串，不复制
+     */
+    private static String getUtf8(ByteBuffer buffer, int length) {
+        final byte[] bytes;
+        final int offset;
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            offset = buffer.arrayOffset() + buffer.position();
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            buffer.position(buffer.position() + length);
+        } else {
+            bytes = new byte[length];
+            offset = 0;
+            buffer.get(bytes);
+        }
+        return new String(bytes, offset, length, UTF_8);
+    }
+}
@@ -0,0 +1,170 @@
+package com.timshinlee.tagviewgroup;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 从 JSON 流直接读取 TagGroupModel，不经过中间的 JSON 对象树
+ * <p>
+ * 标签组的格式与 TagGroupModel 的字段相同：
+ * <pre>
+ * {"percentX": 0.5, "percentY": 0.3, "tags": [{"name": "Brand", "direction": 3}, ...]}
+ * </pre>
+ * 未知字段与值为 null 的字段被跳过。direction 经过 {@link DIRECTION#valueOf(int)} 转换，未知的值视为未设置。
+ * 相同的标签名称在同一个 reader 中只保留一个 String。
+ * {@link #readGroups(OnGroupReadListener)} 每读完一个标签组就回调一次，可以在整页数据读完之前开始显示。
+ * 标签组数组包在其他对象中时，通过 {@link #getJsonReader()} 移动到数组之前再读取
+ * <p>
+ * 用法：
+ * <pre>
+ * final TagGroupModelReader reader = new TagGroupModelReader(response.body().byteStream());
+ * try {
+ *     reader.readGroups(listener);
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ */
+public class TagGroupModelReader implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final JsonReader mReader;
+    /**
+     * 已读到的标签名称，重复的名称使用同一个 String
+     */
+    private final HashMap<String, String> mNames = new HashMap<>();
+
+    /**
+     * 每读完一个标签组回调一次，回调在读取所在的线程
+     */
+    public interface OnGroupReadListener {
+        /**
+         * @param model 读到的标签组
+         * @param index 标签组在数组中的下标
+         */
+        void onGroupRead(TagGroupModel model, int index);
+    }
+
+    public TagGroupModelReader(Reader reader) {
+        mReader = new JsonReader(reader);
+    }
+
+    /**
+     * 按 UTF-8 读取
+     */
+    public TagGroupModelReader(InputStream in) {
+        this(new InputStreamReader(in, UTF_8));
+    }
+
+    /**
+     * 底层的 JsonReader，用于跳过包在标签组外层的对象
+     */
+    public JsonReader getJsonReader() {
+        return mReader;
+    }
+
+    /**
+     * 读取一个标签组对象
+     */
+    public TagGroupModel readGroup() throws IOException {
+        final TagGroupModel model = new TagGroupModel();
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            final String field = mReader.nextName();
+            if (mReader.peek() == JsonToken.NULL) {
+                mReader.nextNull();
+            } else if ("percentX".equals(field)) {
+                model.setPercentX((float) mReader.nextDouble());
+            } else if ("percentY".equals(field)) {
+                model.setPercentY((float) mReader.nextDouble());
+            } else if ("tags".equals(field) && mReader.peek() == JsonToken.BEGIN_ARRAY) {
+                model.setTags(readTags());
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endObject();
+        return model;
+    }
+
+    /**
+     * 读取标签组数组
+     */
+    public List<TagGroupModel> readGroups() throws IOException {
+        final List<TagGroupModel> models = new ArrayList<>();
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            models.add(readGroup());
+        }
+        mReader.endArray();
+        return models;
+    }
+
+    /**
+     * 读取标签组数组，每读完一个标签组回调一次，不保存读到的标签组
+     *
+     * @return 标签组数量
+     */
+    public int readGroups(OnGroupReadListener listener) throws IOException {
+        int index = 0;
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            listener.onGroupRead(readGroup(), index++);
+        }
+        mReader.endArray();
+        return index;
+    }
+
+    private List<TagGroupModel.Tag> readTags() throws IOException {
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(TagViewGroup.DEFAULT_MAX_TAG);
+        mReader.beginArray();
+        while (mReader.hasNext()) {
+            tags.add(readTag());
+        }
+        mReader.endArray();
+        return tags;
+    }
+
+    private TagGroupModel.Tag readTag() throws IOException {
+        final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            final String field = mReader.nextName();
+            if (mReader.peek() == JsonToken.NULL) {
+                mReader.nextNull();
+            } else if ("name".equals(field)) {
+                tag.setName(intern(mReader.nextString()));
+            } else if ("direction".equals(field)) {
+                tag.setDirection(DIRECTION.valueOf(mReader.nextInt()).getValue());
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endObject();
+        return tag;
+    }
+
+    private String intern(String name) {
+        final String existing = mNames.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        mNames.put(name, name);
+        return name;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+}
@@ -0,0 +1,441 @@
+package com.timshinlee.tagviewgroup;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 按列保存大量标签组，代替 List&lt;TagGroupModel&gt;
+ * <p>
+ * 标签组的圆心比例保存在两个 float 数组中，第 i 个标签组的标签是 [tagStart[i], tagStart[i + 1]) 范围内的标签；
+ * 标签的方向保存在 byte 数组中，名称保存为共用名称字典中的下标，相同的名称只保存一次。
+ * 每个标签只占 5 个字节，没有 Tag、ArrayList 与重复 String 的对象开销，按标签顺序遍历方向时是连续的内存。
+ * <p>
+ * {@link #getGroup} 返回标签组的视图，读写直接作用在列上，可以直接交给 {@link TagViewGroup#bind} 等接收
+ * TagGroupModel 的方法。视图的 getTags 返回的 Tag 在同一视图中复用，只在下一次 get 之前有效，
+ * 修改 Tag 需要通过 setName、setDirection，直接修改 name、direction 字段不会写回列中。
+ * 视图按下标引用标签组，{@link #remove}、{@link #removeRange} 或 {@link #clear} 之后之前获取的视图全部失效，
+ * 再访问时抛出 IllegalStateException，绑定了视图的 TagViewGroup 需要重新绑定。视图序列化时转换为普通的 TagGroupModel
+ */
+public class TagGroupStore {
+    private static final int DEFAULT_GROUP_CAPACITY = 16;
+    private static final int DEFAULT_TAGS_PER_GROUP = 3;
+    /**
+     * 名称为 null 的标签在 mNameIds 中的值
+     */
+    private static final int NULL_NAME = -1;
+
+    private float[] mPercentX;
+    private float[] mPercentY;
+    /**
+     * 第 i 个标签组第一个标签的下标，mTagStart[mGroupCount] 为标签总数
+     */
+    private int[] mTagStart;
+    private int mGroupCount;
+    /**
+     * 移除标签组时加一，用于检查视图是否失效
+     */
+    private int mModCount;
+    private byte[] mDirections;
+    private int[] mNameIds;
+    /**
+     * 共用的名称字典
+     */
+    private final ArrayList<String> mNames = new ArrayList<>();
+    private final HashMap<String, Integer> mNameIndex = new HashMap<>();
+
+    public TagGroupStore() {
+        this(DEFAULT_GROUP_CAPACITY, DEFAULT_GROUP_CAPACITY * DEFAULT_TAGS_PER_GROUP);
+    }
+
+    /**
+     * @param groupCapacity 预先分配的标签组数量
+     * @param tagCapacity   预先分配的标签数量
+     */
+    public TagGroupStore(int groupCapacity, int tagCapacity) {
+        mPercentX = new float[groupCapacity];
+        mPercentY = new float[groupCapacity];
+        mTagStart = new int[groupCapacity + 1];
+        mDirections = new byte[tagCapacity];
+        mNameIds = new int[tagCapacity];
+    }
+
+    /**
+     * 添加标签组
+     *
+     * @return 标签组下标
+     */
+    public int add(TagGroupModel model) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        ensureCapacity(mGroupCount + 1, getTagCount() + tags.size());
+        appendGroup(model);
+        return mGroupCount - 1;
+    }
+
+    /**
+     * 批量添加标签组，按最终数量一次扩容
+     */
+    public void addAll(List<? extends TagGroupModel> models) {
+        int tagCount = getTagCount();
+        for (int i = 0; i < models.size(); i++) {
+            tagCount += models.get(i).getTags().size();
+        }
+        ensureCapacity(mGroupCount + models.size(), tagCount);
+        for (int i = 0; i < models.size(); i++) {
+            appendGroup(models.get(i));
+        }
+    }
+
+    private void appendGroup(TagGroupModel model) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        final int start = mTagStart[mGroupCount];
+        for (int i = 0; i < tags.size(); i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            mDirections[start + i] = (byte) tag.getDirection();
+            mNameIds[start + i] = nameId(tag.getName());
+        }
+        mPercentX[mGroupCount] = model.getPercentX();
+        mPercentY[mGroupCount] = model.getPercentY();
+        mTagStart[mGroupCount + 1] = start + tags.size();
+        mGroupCount++;
+    }
+
+    /**
+     * 移除第 index 个标签组，后面的标签组下标减一
+     */
+    public void remove(int index) {
+        removeRange(index, index + 1);
+    }
+
+    /**
+     * 移除 [from, to) 范围内的标签组，后面的标签组与标签整体前移一次。名称字典不缩减，调用 {@link #compact} 回收
+     */
+    public void removeRange(int from, int to) {
+        if (from < 0 || to > mGroupCount || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", size " + mGroupCount);
+        }
+        if (from == to) {
+            return;
+        }
+        mModCount++;
+        final int tagFrom = mTagStart[from];
+        final int tagTo = mTagStart[to];
+        final int tagCount = getTagCount();
+        System.arraycopy(mDirections, tagTo, mDirections, tagFrom, tagCount - tagTo);
+        System.arraycopy(mNameIds, tagTo, mNameIds, tagFrom, tagCount - tagTo);
+        System.arraycopy(mPercentX, to, mPercentX, from, mGroupCount - to);
+        System.arraycopy(mPercentY, to, mPercentY, from, mGroupCount - to);
+        final int removedTags = tagTo - tagFrom;
+        for (int i = to; i <= mGroupCount; i++) {
+            mTagStart[i - (to - from)] = mTagStart[i] - removedTags;
+        }
+        mGroupCount -= to - from;
+    }
+
+    /**
+     * 移除所有标签组与名称
+     */
+    public void clear() {
+        mModCount++;
+        mGroupCount = 0;
+        mNames.clear();
+        mNameIndex.clear();
+    }
+
+    /**
+     * 重建名称字典，去掉已经没有标签使用的名称
+     */
+    public void compact() {
+        final ArrayList<String> names = new ArrayList<>(mNames);
+        mNames.clear();
+        mNameIndex.clear();
+        for (int i = 0; i < getTagCount(); i++) {
+            if (mNameIds[i] != NULL_NAME) {
+                mNameIds[i] = nameId(names.get(mNameIds[i]));
+            }
+        }
+    }
+
+    private void ensureCapacity(int groupCount, int tagCount) {
+        if (mPercentX.length < groupCount) {
+            final int capacity = Math.max(groupCount, mPercentX.length * 2);
+            mPercentX = Arrays.copyOf(mPercentX, capacity);
+            mPercentY = Arrays.copyOf(mPercentY, capacity);
+            mTagStart = Arrays.copyOf(mTagStart, capacity + 1);
+        }
+        if (mDirections.length < tagCount) {
+            final int capacity = Math.max(tagCount, mDirections.length * 2);
+            mDirections = Arrays.copyOf(mDirections, capacity);
+            mNameIds = Arrays.copyOf(mNameIds, capacity);
+        }
+    }
+
+    private int nameId(String name) {
+        if (name == null) {
+            return NULL_NAME;
+        }
+        final Integer id = mNameIndex.get(name);
+        if (id != null) {
+            return id;
+        }
+        mNames.add(name);
+        mNameIndex.put(name, mNames.size() - 1);
+        return mNames.size() - 1;
+    }
+
+    public int getGroupCount() {
+        return mGroupCount;
+    }
+
+    /**
+     * 所有标签组的标签总数
+     */
+    public int getTagCount() {
+        return mTagStart[mGroupCount];
+    }
+
+    /**
+     * 名称字典中不同名称的数量
+     */
+    public int getNameCount() {
+        return mNames.size();
+    }
+
+    public float getPercentX(int group) {
+        return mPercentX[group];
+    }
+
+    public float getPercentY(int group) {
+        return mPercentY[group];
+    }
+
+    /**
+     * 第 group 个标签组第一个标签的下标
+     */
+    public int getTagStart(int group) {
+        return mTagStart[group];
+    }
+
+    /**
+     * 第 group 个标签组最后一个标签之后的下标
+     */
+    public int getTagEnd(int group) {
+        return mTagStart[group + 1];
+    }
+
+    /**
+     * 第 tag 个标签的名称，tag 为所有标签中的下标
+     */
+    public String getName(int tag) {
+        final int id = mNameIds[tag];
+        return id == NULL_NAME ? null : mNames.get(id);
+    }
+
+    /**
+     * 第 tag 个标签的方向值，tag 为所有标签中的下标
+     */
+    public int getDirectionValue(int tag) {
+        return mDirections[tag];
+    }
+
+    public DIRECTION getDirection(int tag) {
+        return DIRECTION.valueOf(mDirections[tag]);
+    }
+
+    /**
+     * 把第 group 个标签组的标签方向写入 out，用于布局与点击检测
+     *
+     * @return 写入的数量
+     */
+    public int getDirections(int group, DIRECTION[] out, int offset) {
+        final int start = mTagStart[group];
+        final int end = mTagStart[group + 1];
+        for (int i = start; i < end; i++) {
+            out[offset + i - start] = DIRECTION.valueOf(mDirections[i]);
+        }
+        return end - start;
+    }
+
+    /**
+     * 第 group 个标签组的视图
+     */
+    public TagGroupModel getGroup(int group) {
+        if (group < 0 || group >= mGroupCount) {
+            throw new IndexOutOfBoundsException("index " + group + ", size " + mGroupCount);
+        }
+        return new GroupView(this, group);
+    }
+
+    /**
+     * 创建视图之后移除过标签组时抛出异常，视图引用的下标已经不是原来的标签组
+     */
+    private void checkModCount(int modCount) {
+        if (modCount != mModCount) {
+            throw new IllegalStateException("TagGroupStore view is stale, the store was modified by remove or clear");
+        }
+    }
+
+    /**
+     * 复制第 group 个标签组为独立的 TagGroupModel
+     */
+    public TagGroupModel copyGroup(int group) {
+        final TagGroupModel model = new TagGroupModel();
+        model.setPercentX(mPercentX[group]);
+        model.setPercentY(mPercentY[group]);
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(getTagEnd(group) - getTagStart(group));
+        for (int i = getTagStart(group); i < getTagEnd(group); i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName(getName(i));
+            tag.setDirection(mDirections[i]);
+            tags.add(tag);
+        }
+        model.setTags(tags);
+        return model;
+    }
+
+    /**
+     * 标签组视图，读写直接作用在 TagGroupStore 的列上，标签列表由父类持有
+     */
+    private static class GroupView extends TagGroupModel {
+        private static final long serialVersionUID = 1L;
+        private final transient TagGroupStore mStore;
+        private final transient int mGroup;
+        private final transient int mModCount;
+
+        GroupView(TagGroupStore store, int group) {
+            super(new TagList(store, group, store.mModCount));
+            mStore = store;
+            mGroup = group;
+            mModCount = store.mModCount;
+        }
+
+        @Override
+        public void setTags(List<Tag> tags) {
+            throw new UnsupportedOperationException("TagGroupStore view cannot replace its tags");
+        }
+
+        @Override
+        public float getPercentX() {
+            mStore.checkModCount(mModCount);
+            return mStore.mPercentX[mGroup];
+        }
+
+        @Override
+        public void setPercentX(float percentX) {
+            mStore.checkModCount(mModCount);
+            mStore.mPercentX[mGroup] = percentX;
+        }
+
+        @Override
+        public float getPercentY() {
+            mStore.checkModCount(mModCount);
+            return mStore.mPercentY[mGroup];
+        }
+
+        @Override
+        public void setPercentY(float percentY) {
+            mStore.checkModCount(mModCount);
+            mStore.mPercentY[mGroup] = percentY;
+        }
+
+        /**
+         * 序列化为普通的 TagGroupModel
+         */
+        private Object writeReplace() {
+            mStore.checkModCount(mModCount);
+            return mStore.copyGroup(mGroup);
+        }
+    }
+
+    /**
+     * 标签列表视图，get 返回复用的 Tag
+     */
+    private static class TagList extends AbstractList<TagGroupModel.Tag> {
+        private final TagGroupStore mStore;
+        private final int mGroup;
+        private final int mModCount;
+        private final TagView mTag;
+
+        TagList(TagGroupStore store, int group, int modCount) {
+            mStore = store;
+            mGroup = group;
+            mModCount = modCount;
+            mTag = new TagView(store, modCount);
+        }
+
+        @Override
+        public TagGroupModel.Tag get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+            }
+            mTag.moveTo(mStore.mTagStart[mGroup] + index);
+            return mTag;
+        }
+
+        @Override
+        public int size() {
+            mStore.checkModCount(mModCount);
+            return mStore.mTagStart[mGroup + 1] - mStore.mTagStart[mGroup];
+        }
+    }
+
+    /**
+     * 指向某个标签的 Tag，getter 从列中读取，setter 写回列中。
+     * 字段在 moveTo 时从列中复制，只供直接读取字段的代码使用，直接修改字段不会写回
+     */
+    private static class TagView extends TagGroupModel.Tag {
+        private static final long serialVersionUID = 1L;
+        private final transient TagGroupStore mStore;
+        private final transient int mModCount;
+        private transient int mIndex;
+
+        TagView(TagGroupStore store, int modCount) {
+            mStore = store;
+            mModCount = modCount;
+        }
+
+        void moveTo(int index) {
+            mIndex = index;
+            name = mStore.getName(index);
+            direction = mStore.mDirections[index];
+        }
+
+        @Override
+        public String getName() {
+            mStore.checkModCount(mModCount);
+            return mStore.getName(mIndex);
+        }
+
+        @Override
+        public void setName(String name) {
+            mStore.checkModCount(mModCount);
+            super.setName(name);
+            mStore.mNameIds[mIndex] = mStore.nameId(name);
+        }
+
+        @Override
+        public int getDirection() {
+            mStore.checkModCount(mModCount);
+            return mStore.mDirections[mIndex];
+        }
+
+        @Override
+        public void setDirection(int direction) {
+            mStore.checkModCount(mModCount);
+            super.setDirection(direction);
+            mStore.mDirections[mIndex] = (byte) direction;
+        }
+
+        /**
+         * 序列化为普通的 Tag
+         */
+        private Object writeReplace() {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName(getName());
+            tag.setDirection(getDirection());
+            return tag;
+        }
+    }
+}
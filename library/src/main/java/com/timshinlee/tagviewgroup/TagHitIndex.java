@@ -0,0 +1,228 @@
+package com.timshinlee.tagviewgroup;
+
+import java.util.Arrays;
+
+/**
+ * Tag 点击检测的网格索引
+ * <p>
+ * 把容器划分为固定大小的格子，每个 Tag 登记在它的边界覆盖到的格子中，查询时只检查触摸点所在格子里的 Tag，
+ * 与 Tag 总数无关。边界以 {left, top, right, bottom} 紧凑存放在 float[] 中，边界未变化时更新不会重新登记
+ */
+public class TagHitIndex {
+    /**
+     * 每个 Tag 边界占用的 float 个数
+     */
+    public static final int STRIDE = 4;
+    public static final int DEFAULT_CELL_SIZE = 64;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    private final int mCellSize;
+    private float[] mBounds;
+    /**
+     * 每个 Tag 是否已登记到网格中
+     */
+    private boolean[] mIndexed;
+    private int mSize;
+    private int mColumns;
+    private int mRows;
+    /**
+     * 每个格子中登记的 Tag 下标
+     */
+    private int[][] mCells = new int[0][];
+    private int[] mCellCounts = new int[0];
+
+    public TagHitIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public TagHitIndex(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        mCellSize = cellSize;
+        mBounds = new float[0];
+        mIndexed = new boolean[0];
+    }
+
+    /**
+     * 设置容器尺寸，尺寸变化时重建网格
+     */
+    public void resize(int width, int height) {
+        final int columns = Math.max(1, (width + mCellSize - 1) / mCellSize);
+        final int rows = Math.max(1, (height + mCellSize - 1) / mCellSize);
+        if (columns == mColumns && rows == mRows) {
+            return;
+        }
+        mColumns = columns;
+        mRows = rows;
+        mCells = new int[columns * rows][];
+        mCellCounts = new int[columns * rows];
+        for (int i = 0; i < mSize; i++) {
+            if (mIndexed[i]) {
+                insert(i);
+            }
+        }
+    }
+
+    /**
+     * 确保能容纳 count 个 Tag
+     */
+    public void ensureCapacity(int count) {
+        if (mIndexed.length >= count) {
+            return;
+        }
+        final int capacity = Math.max(count, mIndexed.length * 2);
+        mBounds = Arrays.copyOf(mBounds, capacity * STRIDE);
+        mIndexed = Arrays.copyOf(mIndexed, capacity);
+    }
+
+    /**
+     * 设置第 index 个 Tag 的边界，边界未变化时不做任何事
+     */
+    public void set(int index, float left, float top, float right, float bottom) {
+        ensureCapacity(index + 1);
+        mSize = Math.max(mSize, index + 1);
+        final int offset = index * STRIDE;
+        if (mIndexed[index]) {
+            if (mBounds[offset] == left && mBounds[offset + 1] == top
+                    && mBounds[offset + 2] == right && mBounds[offset + 3] == bottom) {
+                return;
+            }
+            erase(index);
+        }
+        mBounds[offset] = left;
+        mBounds[offset + 1] = top;
+        mBounds[offset + 2] = right;
+        mBounds[offset + 3] = bottom;
+        insert(index);
+    }
+
+    /**
+     * 移除第 index 个 Tag
+     */
+    public void remove(int index) {
+        if (index < mSize && mIndexed[index]) {
+            erase(index);
+        }
+    }
+
+    /**
+     * 清空所有 Tag
+     */
+    public void clear() {
+        Arrays.fill(mCellCounts, 0);
+        Arrays.fill(mIndexed, 0, mSize, false);
+        mSize = 0;
+    }
+
+    /**
+     * 查找包含触摸点的 Tag，多个 Tag 重叠时返回下标最小的
+     *
+     * @return Tag 下标，没有时返回 -1
+     */
+    public int query(float x, float y) {
+        if (mColumns == 0) {
+            return -1;
+        }
+        final int cell = row(y) * mColumns + column(x);
+        final int[] entries = mCells[cell];
+        int result = -1;
+        for (int i = 0; i < mCellCounts[cell]; i++) {
+            final int index = entries[i];
+            if ((result < 0 || index < result) && contains(index, x, y)) {
+                result = index;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 与 RectF.contains 相同的判断
+     */
+    public boolean contains(int index, float x, float y) {
+        final int offset = index * STRIDE;
+        final float left = mBounds[offset];
+        final float top = mBounds[offset + 1];
+        final float right = mBounds[offset + 2];
+        final float bottom = mBounds[offset + 3];
+        return left < right && top < bottom && x >= left && x < right && y >= top && y < bottom;
+    }
+
+    /**
+     * Tag 边界 {left, top, right, bottom, ...}，只读
+     */
+    public float[] getBounds() {
+        return mBounds;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    private void insert(int index) {
+        mIndexed[index] = true;
+        if (mColumns == 0) {
+            return; // 还没有尺寸，resize 时再登记
+        }
+        final int offset = index * STRIDE;
+        final int startColumn = column(mBounds[offset]);
+        final int endColumn = column(mBounds[offset + 2]);
+        final int startRow = row(mBounds[offset + 1]);
+        final int endRow = row(mBounds[offset + 3]);
+        for (int r = startRow; r <= endRow; r++) {
+            for (int c = startColumn; c <= endColumn; c++) {
+                addToCell(r * mColumns + c, index);
+            }
+        }
+    }
+
+    private void erase(int index) {
+        mIndexed[index] = false;
+        if (mColumns == 0) {
+            return;
+        }
+        final int offset = index * STRIDE;
+        final int startColumn = column(mBounds[offset]);
+        final int endColumn = column(mBounds[offset + 2]);
+        final int startRow = row(mBounds[offset + 1]);
+        final int endRow = row(mBounds[offset + 3]);
+        for (int r = startRow; r <= endRow; r++) {
+            for (int c = startColumn; c <= endColumn; c++) {
+                removeFromCell(r * mColumns + c, index);
+            }
+        }
+    }
+
+    private void addToCell(int cell, int index) {
+        int[] entries = mCells[cell];
+        if (entries == null) {
+            entries = mCells[cell] = new int[INITIAL_CELL_CAPACITY];
+        } else if (mCellCounts[cell] == entries.length) {
+            entries = mCells[cell] = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[mCellCounts[cell]++] = index;
+    }
+
+    private void removeFromCell(int cell, int index) {
+        final int[] entries = mCells[cell];
+        final int count = mCellCounts[cell];
+        for (int i = 0; i < count; i++) {
+            if (entries[i] == index) {
+                entries[i] = entries[count - 1]; // 顺序无关，用最后一个覆盖
+                mCellCounts[cell] = count - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 坐标所在列，超出容器的坐标归到边缘的格子
+     */
+    private int column(float x) {
+        return Math.min(Math.max((int) Math.floor(x / mCellSize), 0), mColumns - 1);
+    }
+
+    private int row(float y) {
+        return Math.min(Math.max((int) Math.floor(y / mCellSize), 0), mRows - 1);
+    }
+}
@@ -0,0 +1,130 @@
+package com.timshinlee.tagviewgroup;
+
+import android.support.annotation.MainThread;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * 局部重绘与重绘面积统计
+ * <p>
+ * 动画属性变化时只重绘实际变化的区域：中心圆、折线范围或水波纹最大半径。
+ * 开启统计后按帧累计重绘的像素面积，用于确认重绘面积的减少，未开启时只有一次布尔判断
+ */
+@MainThread
+public final class TagInvalidator {
+    private static boolean mCountingEnabled;
+    private static long mCurrentFrameArea;
+    private static long mLastFrameArea;
+    private static long mMaxFrameArea;
+    private static long mTotalArea;
+    private static long mFrameCount;
+
+    /**
+     * 每帧开始时结算上一帧的重绘面积
+     */
+    private static final Choreographer.FrameCallback FRAME_CALLBACK = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mCountingEnabled) {
+                return;
+            }
+            mLastFrameArea = mCurrentFrameArea;
+            mMaxFrameArea = Math.max(mMaxFrameArea, mCurrentFrameArea);
+            if (mCurrentFrameArea > 0) {
+                mFrameCount++;
+            }
+            mCurrentFrameArea = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    private TagInvalidator() {
+    }
+
+    /**
+     * 重绘 view 中的区域，坐标为 view 自身的坐标，超出 view 的部分会被裁掉
+     */
+    public static void invalidate(View view, int left, int top, int right, int bottom) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, view.getWidth());
+        bottom = Math.min(bottom, view.getHeight());
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        if (mCountingEnabled) {
+            final long area = (long) (right - left) * (bottom - top);
+            mCurrentFrameArea += area;
+            mTotalArea += area;
+        }
+        view.invalidate(left, top, right, bottom);
+    }
+
+    /**
+     * 重绘以 (centerX, centerY) 为圆心、radius 为半径的圆，向外多取一个像素给抗锯齿
+     */
+    public static void invalidateCircle(View view, int centerX, int centerY, int radius) {
+        final int extent = Math.abs(radius) + 1;
+        invalidate(view, centerX - extent, centerY - extent, centerX + extent, centerY + extent);
+    }
+
+    /**
+     * 开启或关闭重绘面积统计，开启时清空之前的数据
+     */
+    public static void setCountingEnabled(boolean enabled) {
+        if (enabled == mCountingEnabled) {
+            return;
+        }
+        mCountingEnabled = enabled;
+        if (enabled) {
+            reset();
+            Choreographer.getInstance().postFrameCallback(FRAME_CALLBACK);
+        } else {
+            Choreographer.getInstance().removeFrameCallback(FRAME_CALLBACK);
+        }
+    }
+
+    public static boolean isCountingEnabled() {
+        return mCountingEnabled;
+    }
+
+    /**
+     * 上一帧重绘的像素面积
+     */
+    public static long getLastFrameArea() {
+        return mLastFrameArea;
+    }
+
+    /**
+     * 单帧重绘面积的最大值
+     */
+    public static long getMaxFrameArea() {
+        return mMaxFrameArea;
+    }
+
+    public static long getTotalArea() {
+        return mTotalArea;
+    }
+
+    /**
+     * 有重绘的帧数
+     */
+    public static long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 有重绘的帧平均重绘面积
+     */
+    public static long getAverageFrameArea() {
+        return mFrameCount == 0 ? 0 : mTotalArea / mFrameCount;
+    }
+
+    public static void reset() {
+        mCurrentFrameArea = 0;
+        mLastFrameArea = 0;
+        mMaxFrameArea = 0;
+        mTotalArea = 0;
+        mFrameCount = 0;
+    }
+}
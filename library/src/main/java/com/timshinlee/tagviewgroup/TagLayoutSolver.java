@@ -0,0 +1,399 @@
+package com.timshinlee.tagviewgroup;
+
+import java.util.Arrays;
+
+/**
+ * 标签布局计算，不依赖 Android 的 View，可以在普通 JVM 上运行
+ * <p>
+ * 子控件尺寸按 {width, height} 紧凑存放在 int[] 中，计算结果写入调用方持有的数组，计算过程不分配内存
+ * <p>
+ * 每侧每个方向区域(上、中、下)只有一个 Tag 时按 {@link DIRECTION} 固定位置布局；
+ * 同一区域有多个 Tag 时改为堆叠布局，左右两侧的 Tag 按方向的上下顺序排序后竖直排列，数量不受限制
+ */
+public class TagLayoutSolver {
+    /**
+     * 中心圆各方向宽度数组的下标
+     */
+    public static final int USED_LEFT = 0;
+    public static final int USED_TOP = 1;
+    public static final int USED_RIGHT = 2;
+    public static final int USED_BOTTOM = 3;
+    /**
+     * 每个子控件尺寸占用的 int 个数 {width, height}
+     */
+    public static final int SIZE_STRIDE = 2;
+    /**
+     * 每个子控件矩形占用的 int 个数 {left, top, right, bottom}
+     */
+    public static final int RECT_STRIDE = 4;
+
+    /**
+     * 内圆半径
+     */
+    private int mInnerRadius;
+    /**
+     * 斜线水平长度
+     */
+    private int mTiltDistance;
+    /**
+     * 竖直(上/下)方向线条长度
+     */
+    private int mVerDistance;
+    /**
+     * 堆叠布局时左右两侧 Tag 的排序键 {上下顺序, 下标}
+     */
+    private long[] mLeftKeys = new long[0];
+    private long[] mRightKeys = new long[0];
+    /**
+     * 堆叠布局计算各方向宽度时使用的临时位置
+     */
+    private int[] mScratchRects = new int[0];
+
+    public TagLayoutSolver() {
+    }
+
+    public TagLayoutSolver(int innerRadius, int tiltDistance, int verDistance) {
+        setDistances(innerRadius, tiltDistance, verDistance);
+    }
+
+    /**
+     * 设置计算所用的半径与线条长度
+     */
+    public void setDistances(int innerRadius, int tiltDistance, int verDistance) {
+        mInnerRadius = innerRadius;
+        mTiltDistance = tiltDistance;
+        mVerDistance = verDistance;
+    }
+
+    public int getInnerRadius() {
+        return mInnerRadius;
+    }
+
+    public int getTiltDistance() {
+        return mTiltDistance;
+    }
+
+    public int getVerDistance() {
+        return mVerDistance;
+    }
+
+    /**
+     * 根据百分比计算圆心坐标
+     *
+     * @param size    ViewGroup 的宽或高
+     * @param percent 圆心在 ViewGroup 中的百分点
+     */
+    public static int center(int size, float percent) {
+        return (int) (size * percent);
+    }
+
+    /**
+     * 计算中心圆上下左右各个方向的宽度
+     *
+     * @param directions 子控件方向
+     * @param sizes      子控件尺寸 {width, height, width, height, ...}
+     * @param count      子控件数量
+     * @param outUsed    输出 {left, top, right, bottom}
+     */
+    public void computeUsed(DIRECTION[] directions, int[] sizes, int count, int[] outUsed) {
+        computeUsed(directions, sizes, 0, count, outUsed);
+    }
+
+    /**
+     * 计算数组中从 start 开始的 count 个子控件所在中心圆上下左右各个方向的宽度，用于多组标签共用数组的情况
+     *
+     * @param start 第一个子控件的下标
+     */
+    public void computeUsed(DIRECTION[] directions, int[] sizes, int start, int count, int[] outUsed) {
+        if (needsStacking(directions, start, count)) {
+            computeStackedUsed(directions, sizes, start, count, outUsed);
+            return;
+        }
+        // 设置各方向宽度初始值为垂直线条长度
+        int leftMax = mVerDistance, topMax = mVerDistance, rightMax = mVerDistance, bottomMax = mVerDistance;
+        for (int i = start; i < start + count; i++) { // 遍历每个child，对比到比当前max值大的value则更新max值
+            final int width = sizes[i * SIZE_STRIDE];
+            final int height = sizes[i * SIZE_STRIDE + 1];
+            switch (directions[i]) {
+                case RIGHT_TOP_TILT://右上斜线
+                    rightMax = Math.max(rightMax, mTiltDistance + width + 2 * mInnerRadius);
+                    topMax = Math.max(topMax, height + mTiltDistance);
+                    break;
+                case TOP_RIGHT://右上
+                    rightMax = Math.max(rightMax, width);
+                    topMax = Math.max(topMax, height + mVerDistance);
+                    break;
+                case RIGHT_CENTER://右中
+                    rightMax = Math.max(rightMax, width + 2 * mInnerRadius);
+                    topMax = Math.max(topMax, Math.max(mVerDistance, height));
+                    break;
+                case RIGHT_BOTTOM://右下
+                    rightMax = Math.max(rightMax, width + 2 * mInnerRadius);
+                    bottomMax = mVerDistance;
+                    break;
+                case RIGHT_BOTTOM_TILT:
+                    rightMax = Math.max(rightMax, mTiltDistance + width + 2 * mInnerRadius);
+                    bottomMax = mTiltDistance;
+                    break;
+                case LEFT_TOP://左上
+                    leftMax = Math.max(leftMax, width + 2 * mInnerRadius);
+                    topMax = Math.max(topMax, height + mVerDistance);
+                    break;
+                case LEFT_TOP_TILT://左上斜线
+                    leftMax = Math.max(leftMax, width + mTiltDistance + 2 * mInnerRadius);
+                    topMax = Math.max(topMax, height + mTiltDistance);
+                    break;
+                case LEFT_CENTER://左中
+                    leftMax = Math.max(leftMax, width + 2 * mInnerRadius);
+                    topMax = Math.max(topMax, Math.max(mVerDistance, height));
+                    break;
+                case LEFT_BOTTOM://左下
+                    leftMax = Math.max(leftMax, width + 2 * mInnerRadius);
+                    bottomMax = mVerDistance;
+                    break;
+                case LEFT_BOTTOM_TILT://左下斜线
+                    leftMax = Math.max(leftMax, width + mTiltDistance + 2 * mInnerRadius);
+                    bottomMax = mTiltDistance;
+                    break;
+            }
+        }
+        outUsed[USED_LEFT] = leftMax;
+        outUsed[USED_TOP] = topMax;
+        outUsed[USED_RIGHT] = rightMax;
+        outUsed[USED_BOTTOM] = bottomMax;
+    }
+
+    /**
+     * 计算每个子控件的位置
+     *
+     * @param centerX    圆心 X 坐标
+     * @param centerY    圆心 Y 坐标
+     * @param directions 子控件方向
+     * @param sizes      子控件尺寸 {width, height, width, height, ...}
+     * @param count      子控件数量
+     * @param outRects   输出 {left, top, right, bottom, ...}
+     */
+    public void layout(int centerX, int centerY, DIRECTION[] directions, int[] sizes, int count, int[] outRects) {
+        layout(centerX, centerY, directions, sizes, 0, count, outRects);
+    }
+
+    /**
+     * 计算数组中从 start 开始的 count 个子控件的位置，结果写入 outRects 中相同下标的位置
+     *
+     * @param start 第一个子控件的下标
+     */
+    public void layout(int centerX, int centerY, DIRECTION[] directions, int[] sizes, int start, int count, int[] outRects) {
+        if (needsStacking(directions, start, count)) {
+            layoutStacked(centerX, centerY, directions, sizes, start, count, outRects, start);
+            return;
+        }
+        for (int i = start; i < start + count; i++) {
+            layoutChild(centerX, centerY, directions[i], sizes[i * SIZE_STRIDE], sizes[i * SIZE_STRIDE + 1],
+                    outRects, i * RECT_STRIDE);
+        }
+    }
+
+    /**
+     * 计算单个子控件的位置
+     *
+     * @param offset 结果写入 outRects 的起始下标
+     */
+    public void layoutChild(int centerX, int centerY, DIRECTION direction, int width, int height,
+                            int[] outRects, int offset) {
+        int left = 0, top = 0;
+        switch (direction) {
+            case RIGHT_TOP_TILT://右上斜线
+                top = centerY - mTiltDistance - height;
+                left = centerX + mTiltDistance;
+                break;
+            case TOP_RIGHT://右上
+                left = centerX;
+                top = centerY - mVerDistance - height;
+                break;
+            case RIGHT_CENTER://右中
+                left = centerX + mTiltDistance; // 设置中间tag对齐上下斜tag
+                top = centerY - height;
+                break;
+            case RIGHT_BOTTOM://右下
+                left = centerX;
+                top = mVerDistance + centerY - height;
+                break;
+            case RIGHT_BOTTOM_TILT://右下斜线
+                left = centerX + mTiltDistance;
+                top = mTiltDistance + centerY - height;
+                break;
+            case LEFT_TOP://左上
+                left = centerX - width - mTiltDistance;
+                top = centerY - mVerDistance - height;
+                break;
+            case LEFT_TOP_TILT://左上斜线
+                left = centerX - width - mTiltDistance;
+                top = centerY - mTiltDistance - height;
+                break;
+            case LEFT_CENTER://左中
+                left = centerX - width - mTiltDistance;
+                top = centerY - height;
+                break;
+            case LEFT_BOTTOM://左下
+                left = centerX - width - mTiltDistance;
+                top = mVerDistance + centerY - height;
+                break;
+            case LEFT_BOTTOM_TILT://左下斜线
+                left = centerX - width - mTiltDistance;
+                top = mTiltDistance + centerY - height;
+                break;
+            case CENTER:
+                left = 0;
+                top = 0;
+                break;
+        }
+        outRects[offset] = left;
+        outRects[offset + 1] = top;
+        outRects[offset + 2] = left + width;
+        outRects[offset + 3] = top + height;
+    }
+
+    /**
+     * 是否有多个 Tag 落在同一侧的同一区域，这时固定位置会互相重叠，需要堆叠布局
+     */
+    public static boolean needsStacking(DIRECTION[] directions, int start, int count) {
+        int occupied = 0;
+        for (int i = start; i < start + count; i++) {
+            final DIRECTION direction = directions[i];
+            if (direction == DIRECTION.CENTER) {
+                continue;
+            }
+            final int rank = verticalRank(direction);
+            final int band = rank < 2 ? 0 : rank == 2 ? 1 : 2; // 上、中、下三个区域
+            final int bit = 1 << ((isLeft(direction) ? 3 : 0) + band);
+            if ((occupied & bit) != 0) {
+                return true;
+            }
+            occupied |= bit;
+        }
+        return false;
+    }
+
+    /**
+     * 方向是否在圆心左侧
+     */
+    public static boolean isLeft(DIRECTION direction) {
+        switch (direction) {
+            case LEFT_CENTER:
+            case LEFT_TOP:
+            case LEFT_TOP_TILT:
+            case LEFT_BOTTOM:
+            case LEFT_BOTTOM_TILT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 方向从上到下的顺序，斜线在最外侧：上斜线 0、上 1、中 2、下 3、下斜线 4
+     */
+    public static int verticalRank(DIRECTION direction) {
+        switch (direction) {
+            case LEFT_TOP_TILT:
+            case RIGHT_TOP_TILT:
+                return 0;
+            case LEFT_TOP:
+            case TOP_RIGHT:
+                return 1;
+            case LEFT_BOTTOM:
+            case RIGHT_BOTTOM:
+                return 3;
+            case LEFT_BOTTOM_TILT:
+            case RIGHT_BOTTOM_TILT:
+                return 4;
+            default:
+                return 2;
+        }
+    }
+
+    /**
+     * 堆叠布局：左右两侧的 Tag 分别按上下顺序排序，以圆心为中线竖直排列，
+     * 相邻 Tag 底边的距离不小于下面 Tag 的高度与斜线长度，排序为 O(n log n)
+     *
+     * @param outIndex 第一个子控件的结果写入 outRects 的下标
+     */
+    private void layoutStacked(int centerX, int centerY, DIRECTION[] directions, int[] sizes, int start, int count,
+                               int[] outRects, int outIndex) {
+        if (mLeftKeys.length < count) {
+            mLeftKeys = new long[count];
+            mRightKeys = new long[count];
+        }
+        int leftCount = 0, rightCount = 0;
+        for (int i = start; i < start + count; i++) {
+            final DIRECTION direction = directions[i];
+            if (direction == DIRECTION.CENTER) { // ripple 与固定布局相同
+                layoutChild(centerX, centerY, direction, sizes[i * SIZE_STRIDE], sizes[i * SIZE_STRIDE + 1],
+                        outRects, (i - start + outIndex) * RECT_STRIDE);
+                continue;
+            }
+            final long key = ((long) verticalRank(direction) << 32) | i;
+            if (isLeft(direction)) {
+                mLeftKeys[leftCount++] = key;
+            } else {
+                mRightKeys[rightCount++] = key;
+            }
+        }
+        Arrays.sort(mLeftKeys, 0, leftCount);
+        Arrays.sort(mRightKeys, 0, rightCount);
+        layoutColumn(centerX, centerY, true, mLeftKeys, leftCount, sizes, start, outRects, outIndex);
+        layoutColumn(centerX, centerY, false, mRightKeys, rightCount, sizes, start, outRects, outIndex);
+    }
+
+    private void layoutColumn(int centerX, int centerY, boolean left, long[] keys, int count, int[] sizes,
+                              int start, int[] outRects, int outIndex) {
+        if (count == 0) {
+            return;
+        }
+        // 第一遍计算第一个与最后一个 Tag 底边的距离，使整列以圆心为中线
+        int span = 0;
+        for (int k = 1; k < count; k++) {
+            span += Math.max(sizes[(int) keys[k] * SIZE_STRIDE + 1], mTiltDistance);
+        }
+        int bottom = centerY - span / 2;
+        for (int k = 0; k < count; k++) {
+            final int i = (int) keys[k];
+            final int width = sizes[i * SIZE_STRIDE];
+            final int height = sizes[i * SIZE_STRIDE + 1];
+            if (k > 0) {
+                bottom += Math.max(height, mTiltDistance);
+            }
+            final int tagLeft = left ? centerX - width - mTiltDistance : centerX + mTiltDistance;
+            final int offset = (i - start + outIndex) * RECT_STRIDE;
+            outRects[offset] = tagLeft;
+            outRects[offset + 1] = bottom - height;
+            outRects[offset + 2] = tagLeft + width;
+            outRects[offset + 3] = bottom;
+        }
+    }
+
+    /**
+     * 以 (0,0) 为圆心进行堆叠布局，由结果得到各方向宽度
+     */
+    private void computeStackedUsed(DIRECTION[] directions, int[] sizes, int start, int count, int[] outUsed) {
+        if (mScratchRects.length < count * RECT_STRIDE) {
+            mScratchRects = new int[count * RECT_STRIDE];
+        }
+        layoutStacked(0, 0, directions, sizes, start, count, mScratchRects, 0);
+        int leftMax = mVerDistance, topMax = mVerDistance, rightMax = mVerDistance, bottomMax = mVerDistance;
+        for (int i = 0; i < count; i++) {
+            if (directions[start + i] == DIRECTION.CENTER) {
+                continue;
+            }
+            final int offset = i * RECT_STRIDE;
+            leftMax = Math.max(leftMax, 2 * mInnerRadius - mScratchRects[offset]);
+            topMax = Math.max(topMax, -mScratchRects[offset + 1]);
+            rightMax = Math.max(rightMax, mScratchRects[offset + 2] + 2 * mInnerRadius);
+            bottomMax = Math.max(bottomMax, mScratchRects[offset + 3] + mInnerRadius);
+        }
+        outUsed[USED_LEFT] = leftMax;
+        outUsed[USED_TOP] = topMax;
+        outUsed[USED_RIGHT] = rightMax;
+        outUsed[USED_BOTTOM] = bottomMax;
+    }
+}
@@ -0,0 +1,232 @@
+package com.timshinlee.tagviewgroup;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * Tag 折线绘制
+ * <p>
+ * 每条折线由圆心出发的一到两段直线加末端小圆组成，布局变化时缓存各段端点与长度，
+ * 绘制时按比例直接画出直线与圆弧，不需要每帧生成 Path 和 PathMeasure.getSegment
+ */
+public class TagLinesRenderer {
+    /**
+     * 末端小圆扫过的角度，与原来 Path.arcTo 的 359 度一致
+     */
+    public static final float ARC_SWEEP = 359;
+    /**
+     * 每条折线占用的 float 个数
+     */
+    static final int STRIDE = 14;
+    private static final int X0 = 0, Y0 = 1; // 圆心
+    private static final int X1 = 2, Y1 = 3; // 折点
+    private static final int X2 = 4, Y2 = 5; // 直线终点，即小圆起点
+    private static final int ARC_LEFT = 6, ARC_TOP = 7, ARC_RIGHT = 8, ARC_BOTTOM = 9;
+    private static final int ARC_START = 10; // 小圆起始角度
+    private static final int LENGTH_1 = 11, LENGTH_2 = 12, LENGTH_ARC = 13;
+
+    private float[] mGeometry = new float[0];
+    private int mCount;
+    private final RectF mArcRect = new RectF();
+    /**
+     * 所有折线的范围，不包含线宽
+     */
+    private final RectF mBounds = new RectF();
+    private boolean mHasBounds;
+
+    /**
+     * 根据圆心与子控件位置计算每条折线的几何信息
+     *
+     * @param directions  子控件方向
+     * @param rects       子控件位置 {left, top, right, bottom, ...}
+     * @param count       子控件数量
+     * @param innerRadius 末端小圆半径
+     */
+    public void update(int centerX, int centerY, DIRECTION[] directions, int[] rects, int count, int innerRadius) {
+        update(centerX, centerY, directions, rects, 0, count, innerRadius);
+    }
+
+    /**
+     * 使用数组中从 start 开始的 count 个子控件计算折线，用于多组标签共用数组的情况
+     *
+     * @param start 第一个子控件的下标
+     */
+    public void update(int centerX, int centerY, DIRECTION[] directions, int[] rects, int start, int count, int innerRadius) {
+        if (mGeometry.length < count * STRIDE) {
+            mGeometry = new float[count * STRIDE];
+        }
+        mCount = count;
+        mBounds.setEmpty();
+        mHasBounds = false;
+        for (int i = 0; i < count; i++) {
+            final int rectOffset = (start + i) * TagLayoutSolver.RECT_STRIDE;
+            updateLine(i * STRIDE, centerX, centerY, directions[start + i], rects[rectOffset], rects[rectOffset + 2],
+                    rects[rectOffset + 3], innerRadius);
+            unionBounds(i * STRIDE);
+        }
+    }
+
+    private void unionBounds(int offset) {
+        final float[] g = mGeometry;
+        if (g[offset + LENGTH_ARC] <= 0 && g[offset + LENGTH_1] <= 0 && g[offset + LENGTH_2] <= 0) {
+            return; // ripple 没有折线
+        }
+        float left = Math.min(g[offset + X0], Math.min(g[offset + X1], g[offset + X2]));
+        float top = Math.min(g[offset + Y0], Math.min(g[offset + Y1], g[offset + Y2]));
+        float right = Math.max(g[offset + X0], Math.max(g[offset + X1], g[offset + X2]));
+        float bottom = Math.max(g[offset + Y0], Math.max(g[offset + Y1], g[offset + Y2]));
+        if (g[offset + LENGTH_ARC] > 0) {
+            left = Math.min(left, Math.min(g[offset + ARC_LEFT], g[offset + ARC_RIGHT]));
+            top = Math.min(top, Math.min(g[offset + ARC_TOP], g[offset + ARC_BOTTOM]));
+            right = Math.max(right, Math.max(g[offset + ARC_LEFT], g[offset + ARC_RIGHT]));
+            bottom = Math.max(bottom, Math.max(g[offset + ARC_TOP], g[offset + ARC_BOTTOM]));
+        }
+        if (mHasBounds) { // RectF.union 会忽略宽或高为 0 的范围，这里直接取最值
+            mBounds.set(Math.min(mBounds.left, left), Math.min(mBounds.top, top),
+                    Math.max(mBounds.right, right), Math.max(mBounds.bottom, bottom));
+        } else {
+            mBounds.set(left, top, right, bottom);
+            mHasBounds = true;
+        }
+    }
+
+    private void updateLine(int offset, int centerX, int centerY, DIRECTION direction,
+                            int left, int right, int bottom, int innerRadius) {
+        final float[] g = mGeometry;
+        g[offset + X0] = centerX;
+        g[offset + Y0] = centerY;
+        g[offset + X1] = centerX;
+        g[offset + Y1] = centerY;
+        g[offset + X2] = centerX;
+        g[offset + Y2] = centerY;
+        g[offset + ARC_START] = 0;
+        float arcLeft = 0;
+        boolean hasArc = true;
+        switch (direction) {
+            case TOP_RIGHT://右上
+            case RIGHT_BOTTOM://右下
+            case RIGHT_TOP_TILT://右上斜线
+            case RIGHT_BOTTOM_TILT://右下斜线
+            case RIGHT_CENTER://右中，固定布局时折点与圆心在同一水平线上，堆叠布局时可能不在
+                g[offset + X1] = left; // 分成两段画，先画到tag左下角
+                g[offset + Y1] = bottom;
+                g[offset + X2] = right; // 再画到tag右下角
+                g[offset + Y2] = bottom;
+                g[offset + ARC_START] = 180;
+                arcLeft = right;
+                break;
+            case LEFT_TOP://左上
+            case LEFT_TOP_TILT://左上斜线
+            case LEFT_BOTTOM://左下
+            case LEFT_BOTTOM_TILT://左下斜线
+            case LEFT_CENTER://左中
+                g[offset + X1] = right; // 分成两段画，先画到tag右下角
+                g[offset + Y1] = bottom;
+                g[offset + X2] = left; // 再画到tag左下角
+                g[offset + Y2] = bottom;
+                arcLeft = left - 2 * innerRadius;
+                break;
+            default: // ripple 没有折线
+                hasArc = false;
+                break;
+        }
+        g[offset + ARC_LEFT] = arcLeft;
+        g[offset + ARC_TOP] = g[offset + Y2] - innerRadius;
+        g[offset + ARC_RIGHT] = arcLeft + 2 * innerRadius;
+        g[offset + ARC_BOTTOM] = g[offset + Y2] + innerRadius;
+        g[offset + LENGTH_1] = distance(g[offset + X0], g[offset + Y0], g[offset + X1], g[offset + Y1]);
+        g[offset + LENGTH_2] = distance(g[offset + X1], g[offset + Y1], g[offset + X2], g[offset + Y2]);
+        g[offset + LENGTH_ARC] = hasArc ? arcLength(innerRadius) : 0;
+    }
+
+    /**
+     * 按比例绘制所有折线
+     *
+     * @param ratio 线条显示比例 [0,1]
+     */
+    public void draw(Canvas canvas, Paint paint, float ratio) {
+        if (ratio <= 0) {
+            return;
+        }
+        for (int i = 0; i < mCount; i++) {
+            drawLine(canvas, paint, i * STRIDE, ratio);
+        }
+    }
+
+    private void drawLine(Canvas canvas, Paint paint, int offset, float ratio) {
+        final float[] g = mGeometry;
+        final float length1 = g[offset + LENGTH_1];
+        final float length2 = g[offset + LENGTH_2];
+        final float lengthArc = g[offset + LENGTH_ARC];
+        float remain = (length1 + length2 + lengthArc) * Math.min(ratio, 1);
+        if (remain <= 0) {
+            return;
+        }
+        remain = drawSegment(canvas, paint, g[offset + X0], g[offset + Y0], g[offset + X1], g[offset + Y1], length1, remain);
+        remain = drawSegment(canvas, paint, g[offset + X1], g[offset + Y1], g[offset + X2], g[offset + Y2], length2, remain);
+        if (remain <= 0 || lengthArc <= 0) {
+            return;
+        }
+        mArcRect.set(g[offset + ARC_LEFT], g[offset + ARC_TOP], g[offset + ARC_RIGHT], g[offset + ARC_BOTTOM]);
+        canvas.drawArc(mArcRect, g[offset + ARC_START], ARC_SWEEP * Math.min(remain / lengthArc, 1), false, paint);
+    }
+
+    /**
+     * 绘制一段直线中不超过 remain 长度的部分
+     *
+     * @return 剩余可绘制长度
+     */
+    private static float drawSegment(Canvas canvas, Paint paint, float startX, float startY, float stopX, float stopY,
+                                     float length, float remain) {
+        if (length <= 0 || remain <= 0) {
+            return remain;
+        }
+        if (remain >= length) {
+            canvas.drawLine(startX, startY, stopX, stopY, paint);
+            return remain - length;
+        }
+        final float fraction = remain / length;
+        canvas.drawLine(startX, startY, startX + (stopX - startX) * fraction, startY + (stopY - startY) * fraction, paint);
+        return 0;
+    }
+
+    /**
+     * 折线数量
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * 所有折线的范围，不包含线宽，只读
+     */
+    public RectF getBounds() {
+        return mBounds;
+    }
+
+    /**
+     * 是否有需要绘制的折线
+     */
+    public boolean hasBounds() {
+        return mHasBounds;
+    }
+
+    /**
+     * 第 index 条折线的总长度
+     */
+    public float getLength(int index) {
+        final int offset = index * STRIDE;
+        return mGeometry[offset + LENGTH_1] + mGeometry[offset + LENGTH_2] + mGeometry[offset + LENGTH_ARC];
+    }
+
+    private static float distance(float x0, float y0, float x1, float y1) {
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static float arcLength(int radius) {
+        return (float) (Math.abs(radius) * Math.toRadians(ARC_SWEEP));
+    }
+}
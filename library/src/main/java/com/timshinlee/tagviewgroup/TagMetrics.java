@@ -0,0 +1,236 @@
+package com.timshinlee.tagviewgroup;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.Arrays;
+
+/**
+ * 测量、布局、绘制、点击检测与动画帧的耗时统计
+ * <p>
+ * 通过 {@link #setSink} 设置接收数据的 {@link Sink} 后开启，为 null 时关闭，关闭时每个统计点只有一次字段读取。
+ * 开启时同时输出同名的 Trace 片段，在 systrace/Perfetto 中可以看到相同的区间。
+ * {@link HistogramSink} 按 2 的幂分桶记录耗时直方图，也可以接入自己的上报
+ * <p>
+ * 用法：
+ * <pre>
+ * final long start = TagMetrics.begin(TagMetrics.SPAN_MEASURE);
+ * ...
+ * TagMetrics.end(TagMetrics.SPAN_MEASURE, start);
+ * </pre>
+ */
+public final class TagMetrics {
+    public static final int SPAN_MEASURE = 0;
+    public static final int SPAN_LAYOUT = 1;
+    public static final int SPAN_DRAW = 2;
+    public static final int SPAN_DRAW_LINES = 3;
+    public static final int SPAN_HIT_TEST = 4;
+    public static final int SPAN_ANIMATION_FRAME = 5;
+    public static final int SPAN_COUNT = 6;
+
+    public static final int COUNTER_GROUPS = 0;
+    public static final int COUNTER_TAGS = 1;
+    public static final int COUNTER_RIPPLES = 2;
+    public static final int COUNTER_MEASURE_SKIPPED = 3;
+    public static final int COUNTER_TEXT_CACHE_HIT = 4;
+    public static final int COUNTER_TEXT_CACHE_MISS = 5;
+    public static final int COUNTER_BITMAP_CACHE_HIT = 6;
+    public static final int COUNTER_BITMAP_CACHE_MISS = 7;
+    public static final int COUNTER_SNAPSHOT_HIT = 8;
+    public static final int COUNTER_SNAPSHOT_MISS = 9;
+    public static final int COUNTER_COUNT = 10;
+
+    private static final String[] SPAN_NAMES = {
+            "TagViewGroup#onMeasure",
+            "TagViewGroup#onLayout",
+            "TagViewGroup#dispatchDraw",
+            "TagViewGroup#drawLines",
+            "TagViewGroup#hitTest",
+            "TagAnimationClock#doFrame",
+    };
+    private static final String[] COUNTER_NAMES = {
+            "groups", "tags", "ripples", "measureSkipped",
+            "textCacheHit", "textCacheMiss", "bitmapCacheHit", "bitmapCacheMiss",
+            "snapshotHit", "snapshotMiss",
+    };
+    private static final boolean TRACE_AVAILABLE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static volatile Sink mSink;
+
+    /**
+     * 接收统计数据，回调在统计点所在的线程，不要在回调中做耗时操作
+     */
+    public interface Sink {
+        /**
+         * @param span           统计区间，SPAN_* 之一
+         * @param durationNanos 耗时，纳秒
+         */
+        void onSpan(int span, long durationNanos);
+
+        /**
+         * @param counter 计数项，COUNTER_* 之一
+         * @param delta   增加的数量
+         */
+        void onCount(int counter, long delta);
+    }
+
+    private TagMetrics() {
+    }
+
+    /**
+     * 设置接收数据的 Sink，null 表示关闭统计
+     */
+    public static void setSink(Sink sink) {
+        mSink = sink;
+    }
+
+    public static Sink getSink() {
+        return mSink;
+    }
+
+    public static boolean isEnabled() {
+        return mSink != null;
+    }
+
+    /**
+     * 开始一个统计区间
+     *
+     * @return 开始时间，传给 {@link #end}，未开启时为 0
+     */
+    public static long begin(int span) {
+        if (mSink == null) {
+            return 0;
+        }
+        if (TRACE_AVAILABLE) {
+            Trace.beginSection(SPAN_NAMES[span]);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束统计区间
+     *
+     * @param start {@link #begin} 的返回值
+     */
+    public static void end(int span, long start) {
+        if (start == 0) {
+            return;
+        }
+        final long duration = System.nanoTime() - start;
+        if (TRACE_AVAILABLE) {
+            Trace.endSection();
+        }
+        final Sink sink = mSink;
+        if (sink != null) {
+            sink.onSpan(span, duration);
+        }
+    }
+
+    /**
+     * 计数项增加 delta
+     */
+    public static void count(int counter, long delta) {
+        final Sink sink = mSink;
+        if (sink != null) {
+            sink.onCount(counter, delta);
+        }
+    }
+
+    public static String getSpanName(int span) {
+        return SPAN_NAMES[span];
+    }
+
+    public static String getCounterName(int counter) {
+        return COUNTER_NAMES[counter];
+    }
+
+    /**
+     * 按 2 的幂分桶的耗时直方图：第 i 个桶记录 [2^i, 2^(i+1)) 纳秒的次数，记录时不分配内存
+     */
+    public static class HistogramSink implements Sink {
+        public static final int BUCKET_COUNT = 40;
+
+        private final long[][] mBuckets = new long[SPAN_COUNT][BUCKET_COUNT];
+        private final long[] mSpanCounts = new long[SPAN_COUNT];
+        private final long[] mSpanTotals = new long[SPAN_COUNT];
+        private final long[] mSpanMax = new long[SPAN_COUNT];
+        private final long[] mCounters = new long[COUNTER_COUNT];
+
+        @Override
+        public synchronized void onSpan(int span, long durationNanos) {
+            final int bucket = Math.min(63 - Long.numberOfLeadingZeros(Math.max(durationNanos, 1)), BUCKET_COUNT - 1);
+            mBuckets[span][bucket]++;
+            mSpanCounts[span]++;
+            mSpanTotals[span] += durationNanos;
+            mSpanMax[span] = Math.max(mSpanMax[span], durationNanos);
+        }
+
+        @Override
+        public synchronized void onCount(int counter, long delta) {
+            mCounters[counter] += delta;
+        }
+
+        public synchronized long getSpanCount(int span) {
+            return mSpanCounts[span];
+        }
+
+        public synchronized long getTotalNanos(int span) {
+            return mSpanTotals[span];
+        }
+
+        public synchronized long getMaxNanos(int span) {
+            return mSpanMax[span];
+        }
+
+        public synchronized long getBucket(int span, int bucket) {
+            return mBuckets[span][bucket];
+        }
+
+        /**
+         * 估算百分位耗时，返回所在桶的上限
+         *
+         * @param percentile [0, 1]
+         */
+        public synchronized long getPercentileNanos(int span, float percentile) {
+            final long target = (long) Math.ceil(mSpanCounts[span] * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mBuckets[span][i];
+                if (seen >= target && seen > 0) {
+                    return 1L << (i + 1);
+                }
+            }
+            return 0;
+        }
+
+        public synchronized long getCounter(int counter) {
+            return mCounters[counter];
+        }
+
+        public synchronized void reset() {
+            for (int i = 0; i < SPAN_COUNT; i++) {
+                Arrays.fill(mBuckets[i], 0);
+            }
+            Arrays.fill(mSpanCounts, 0);
+            Arrays.fill(mSpanTotals, 0);
+            Arrays.fill(mSpanMax, 0);
+            Arrays.fill(mCounters, 0);
+        }
+
+        @Override
+        public synchronized String toString() {
+            final StringBuilder builder = new StringBuilder("TagMetrics{");
+            for (int i = 0; i < SPAN_COUNT; i++) {
+                builder.append(SPAN_NAMES[i]).append("{count=").append(mSpanCounts[i])
+                        .append(", avg=").append(mSpanCounts[i] == 0 ? 0 : mSpanTotals[i] / mSpanCounts[i])
+                        .append("ns, p90=").append(getPercentileNanos(i, 0.9f))
+                        .append("ns, max=").append(mSpanMax[i]).append("ns}, ");
+            }
+            for (int i = 0; i < COUNTER_COUNT; i++) {
+                builder.append(COUNTER_NAMES[i]).append('=').append(mCounters[i]);
+                builder.append(i == COUNTER_COUNT - 1 ? "}" : ", ");
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.timshinlee.tagviewgroup;
+
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link TagTextView} 测量结果的 LRU 缓存
+ * <p>
+ * 以文字、字号、横向缩放、字间距、字体、内边距、最大行数和测量规格为键保存测量得到的宽高，同样的品牌、商品名称再次绑定时不需要重新测量文字。
+ * 查询使用复用的键对象，命中时不分配内存
+ */
+public class TagTextMeasureCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+    /**
+     * 未命中时 {@link #get} 的返回值
+     */
+    public static final long MISS = -1;
+
+    private static TagTextMeasureCache mInstance;
+
+    private final LinkedHashMap<Entry, Entry> mEntries;
+    private final Entry mLookupKey = new Entry();
+    private int mMaxSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    public TagTextMeasureCache(int maxSize) {
+        mMaxSize = maxSize;
+        mEntries = new LinkedHashMap<Entry, Entry>(16, 0.75f, true) { // 按访问顺序排列
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Entry, Entry> eldest) {
+                if (size() > mMaxSize) {
+                    mEvictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 所有 TagTextView 共用的缓存
+     */
+    public static synchronized TagTextMeasureCache getInstance() {
+        if (mInstance == null) {
+            mInstance = new TagTextMeasureCache(DEFAULT_MAX_SIZE);
+        }
+        return mInstance;
+    }
+
+    /**
+     * 查询测量结果
+     *
+     * @return 宽度在高 32 位、高度在低 32 位，未命中返回 {@link #MISS}
+     */
+    public synchronized long get(String text, float textSize, float textScaleX, float letterSpacing, Typeface typeface,
+                                 int paddingLeft, int paddingTop, int paddingRight, int paddingBottom, int maxLines,
+                                 int widthSpec, int heightSpec) {
+        mLookupKey.set(text, textSize, textScaleX, letterSpacing, typeface, paddingLeft, paddingTop, paddingRight,
+                paddingBottom, maxLines, widthSpec, heightSpec);
+        final Entry entry = mEntries.get(mLookupKey);
+        mLookupKey.text = null; // 不持有调用方的文字
+        if (entry == null) {
+            mMissCount++;
+            TagMetrics.count(TagMetrics.COUNTER_TEXT_CACHE_MISS, 1);
+            return MISS;
+        }
+        mHitCount++;
+        TagMetrics.count(TagMetrics.COUNTER_TEXT_CACHE_HIT, 1);
+        return pack(entry.width, entry.height);
+    }
+
+    /**
+     * 保存测量结果
+     */
+    public synchronized void put(String text, float textSize, float textScaleX, float letterSpacing, Typeface typeface,
+                                 int paddingLeft, int paddingTop, int paddingRight, int paddingBottom, int maxLines,
+                                 int widthSpec, int heightSpec, int width, int height) {
+        final Entry entry = new Entry();
+        entry.set(text, textSize, textScaleX, letterSpacing, typeface, paddingLeft, paddingTop, paddingRight,
+                paddingBottom, maxLines, widthSpec, heightSpec);
+        entry.width = width;
+        entry.height = height;
+        mEntries.put(entry, entry);
+    }
+
+    public static long pack(int width, int height) {
+        return ((long) width << 32) | (height & 0xffffffffL);
+    }
+
+    public static int unpackWidth(long size) {
+        return (int) (size >>> 32);
+    }
+
+    public static int unpackHeight(long size) {
+        return (int) size;
+    }
+
+    /**
+     * 设置最大条目数，变小时立即淘汰最久未使用的条目
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        mMaxSize = maxSize;
+        while (mEntries.size() > mMaxSize) {
+            final Entry eldest = mEntries.keySet().iterator().next();
+            mEntries.remove(eldest);
+            mEvictionCount++;
+        }
+    }
+
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * 清空缓存与计数
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mHitCount = 0;
+        mMissCount = 0;
+        mEvictionCount = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TagTextMeasureCache{size=" + mEntries.size() + "/" + mMaxSize + ", hit=" + mHitCount
+                + ", miss=" + mMissCount + ", eviction=" + mEvictionCount + '}';
+    }
+
+    /**
+     * 缓存的键与测量结果
+     */
+    private static class Entry {
+        String text;
+        float textSize;
+        float textScaleX;
+        float letterSpacing;
+        Typeface typeface;
+        int paddingLeft;
+        int paddingTop;
+        int paddingRight;
+        int paddingBottom;
+        int maxLines;
+        int widthSpec;
+        int heightSpec;
+        int hash;
+        int width;
+        int height;
+
+        void set(String text, float textSize, float textScaleX, float letterSpacing, Typeface typeface,
+                 int paddingLeft, int paddingTop, int paddingRight, int paddingBottom, int maxLines, int widthSpec,
+                 int heightSpec) {
+            this.text = text;
+            this.textSize = textSize;
+            this.textScaleX = textScaleX;
+            this.letterSpacing = letterSpacing;
+            this.typeface = typeface;
+            this.paddingLeft = paddingLeft;
+            this.paddingTop = paddingTop;
+            this.paddingRight = paddingRight;
+            this.paddingBottom = paddingBottom;
+            this.maxLines = maxLines;
+            this.widthSpec = widthSpec;
+            this.heightSpec = heightSpec;
+            int result = text.hashCode();
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + Float.floatToIntBits(textScaleX);
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + paddingLeft;
+            result = 31 * result + paddingTop;
+            result = 31 * result + paddingRight;
+            result = 31 * result + paddingBottom;
+            result = 31 * result + maxLines;
+            result = 31 * result + widthSpec;
+            result = 31 * result + heightSpec;
+            hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry other = (Entry) o;
+            return hash == other.hash
+                    && textSize == other.textSize
+                    && textScaleX == other.textScaleX
+                    && letterSpacing == other.letterSpacing
+                    && typeface == other.typeface
+                    && paddingLeft == other.paddingLeft
+                    && paddingTop == other.paddingTop
+                    && paddingRight == other.paddingRight
+                    && paddingBottom == other.paddingBottom
+                    && maxLines == other.maxLines
+                    && widthSpec == other.widthSpec
+                    && heightSpec == other.heightSpec
+                    && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.timshinlee.tagviewgroup;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.widget.TextView;
 
@@ -12,6 +13,10 @@ import android.widget.TextView;
 public class TagTextView extends android.support.v7.widget.AppCompatTextView implements ITagView {
 
     private DIRECTION mDirection;
+    /**
+     * 是否使用 {@link TagTextMeasureCache} 的测量结果
+     */
+    private boolean mMeasureCacheEnabled = true;
 
     public TagTextView(Context context) {
         this(context, null);
@@ -30,6 +35,74 @@ public class TagTextView extends android.support.v7.widget.AppCompatTextView imp
                 , DipConvertUtils.dip2px(getContext(), 4), DipConvertUtils.dip2px(getContext(), 2));
     }
 
+    /**
+     * 纯文本标签命中缓存时直接使用缓存的宽高，不再测量文字，文字布局在绘制时按实际宽度创建
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (!isMeasureCacheable()) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        final String label = (String) getText();
+        final TagTextMeasureCache cache = TagTextMeasureCache.getInstance();
+        final float letterSpacing = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? getLetterSpacing() : 0;
+        final long size = cache.get(label, getTextSize(), getTextScaleX(), letterSpacing, getTypeface(),
+                getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom(), getMaxLines(),
+                widthMeasureSpec, heightMeasureSpec);
+        if (size != TagTextMeasureCache.MISS) {
+            setMeasuredDimension(TagTextMeasureCache.unpackWidth(size), TagTextMeasureCache.unpackHeight(size));
+            return;
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        cache.put(label, getTextSize(), getTextScaleX(), letterSpacing, getTypeface(), getPaddingLeft(),
+                getPaddingTop(), getPaddingRight(), getPaddingBottom(), getMaxLines(), widthMeasureSpec,
+                heightMeasureSpec, getMeasuredWidth(), getMeasuredHeight());
+    }
+
+    /**
+     * 命中缓存时没有创建文字布局，TextView 在没有布局时不会因为文字变化请求重新测量，这里补上
+     */
+    @Override
+    protected void onTextChanged(CharSequence text, int start, int lengthBefore, int lengthAfter) {
+        super.onTextChanged(text, start, lengthBefore, lengthAfter);
+        if (getLayout() == null) {
+            requestLayout();
+        }
+    }
+
+    /**
+     * 缓存的键只包含文字、字号、横向缩放、字间距、字体、内边距与最大行数，其他影响测量的设置不是默认值时不使用缓存
+     */
+    private boolean isMeasureCacheable() {
+        if (!mMeasureCacheEnabled || !(getText() instanceof String)) { // 带样式的文字不缓存
+            return false;
+        }
+        // 左右上下的图片与图片间距计入 compound padding
+        if (getCompoundPaddingLeft() != getPaddingLeft() || getCompoundPaddingTop() != getPaddingTop()
+                || getCompoundPaddingRight() != getPaddingRight() || getCompoundPaddingBottom() != getPaddingBottom()) {
+            return false;
+        }
+        if (getEllipsize() != null || getTransformationMethod() != null
+                || getLineSpacingExtra() != 0 || getLineSpacingMultiplier() != 1f || !getIncludeFontPadding()) {
+            return false;
+        }
+        return getMinWidth() <= 0 && getMaxWidth() == Integer.MAX_VALUE && getMinEms() == -1 && getMaxEms() == -1
+                && getMinHeight() <= 0 && getMaxHeight() == -1 && getMinLines() <= 1
+                && getMinimumWidth() == 0 && getMinimumHeight() == 0;
+    }
+
+    public void setMeasureCacheEnabled(boolean enabled) {
+        if (mMeasureCacheEnabled != enabled) {
+            mMeasureCacheEnabled = enabled;
+            requestLayout();
+        }
+    }
+
+    public boolean isMeasureCacheEnabled() {
+        return mMeasureCacheEnabled;
+    }
+
     @Override
     public void setDirection(DIRECTION direction) {
         mDirection = direction;
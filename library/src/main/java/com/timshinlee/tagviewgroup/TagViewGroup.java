@@ -5,21 +5,24 @@ import android.animation.AnimatorListenerAdapter;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.support.annotation.NonNull;
 import android.support.v4.view.GestureDetectorCompat;
+import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.Property;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -33,18 +36,76 @@ public class TagViewGroup extends ViewGroup {
     public static final int DEFAULT_V_DISTANCE = 28;//默认竖直(上/下)方向线条长度
     public static final int DEFAULT_TILT_DISTANCE = 30;//默认斜线长度
     public static final int DEFAULT_LINES_WIDTH = 1;//默认线宽
-    public static final int DEFAULT_MAX_TAG = 3;//默认标签最大数量
+    public static final int DEFAULT_MAX_TAG = 3;//默认标签数量，用于预分配空间，标签数量不受限制
     private static final int DEFAULT_RIPPLE_MAX_RADIUS = 20;//水波纹默认最大半径
     private static final int DEFAULT_RIPPLE_ALPHA = 100;//默认水波纹透明度
+    /**
+     * 线条显示比例，供属性动画使用，不通过反射
+     */
+    public static final Property<TagViewGroup, Float> LINES_RATIO = new Property<TagViewGroup, Float>(Float.class, "LinesRatio") {
+        @Override
+        public Float get(TagViewGroup object) {
+            return object.mLinesRatio;
+        }
+
+        @Override
+        public void set(TagViewGroup object, Float value) {
+            object.setLinesRatio(value);
+        }
+    };
+    /**
+     * Tag 透明度，供属性动画使用，不通过反射
+     */
+    public static final Property<TagViewGroup, Float> TAG_ALPHA = new Property<TagViewGroup, Float>(Float.class, "TagAlpha") {
+        @Override
+        public Float get(TagViewGroup object) {
+            return object.mTagAlpha;
+        }
+
+        @Override
+        public void set(TagViewGroup object, Float value) {
+            object.setTagAlpha(value);
+        }
+    };
+    /**
+     * 中心圆半径，供属性动画使用，不通过反射
+     */
+    public static final Property<TagViewGroup, Integer> CIRCLE_RADIUS = new Property<TagViewGroup, Integer>(Integer.class, "CircleRadius") {
+        @Override
+        public Integer get(TagViewGroup object) {
+            return object.mRadius;
+        }
+
+        @Override
+        public void set(TagViewGroup object, Integer value) {
+            object.setCircleRadius(value);
+        }
+    };
+    /**
+     * 中心内圆半径，供属性动画使用，不通过反射
+     */
+    public static final Property<TagViewGroup, Integer> CIRCLE_INNER_RADIUS = new Property<TagViewGroup, Integer>(Integer.class, "CircleInnerRadius") {
+        @Override
+        public Integer get(TagViewGroup object) {
+            return object.mInnerRadius;
+        }
+
+        @Override
+        public void set(TagViewGroup object, Integer value) {
+            object.setCircleInnerRadius(value);
+        }
+    };
     private Paint mPaint;
-    private Path mPath;
-    private Path mDstPath;
-    private PathMeasure mPathMeasure;
+    private TagLinesRenderer mLinesRenderer;
     private Animator mShowAnimator;
     private Animator mHideAnimator;
     private GestureDetectorCompat mGestureDetector;
     private OnTagGroupClickListener mClickListener;
     private RippleView mRippleView;
+    /**
+     * 分层模式下绘制折线与中心圆的静态层，未开启时为 null
+     */
+    private StaticLayerView mStaticLayer;
     /**
      * 水波纹最大半径
      */
@@ -74,8 +135,64 @@ public class TagViewGroup extends ViewGroup {
      */
     private int mVerDistance;
     private RectF mCenterRect;
-    private RectF[] mRectArray;
+    /**
+     * Tag 边界的网格索引，用于点击检测
+     */
+    private TagHitIndex mHitIndex;
+    /**
+     * 按 Tag 下标保存的 Tag
+     */
+    private ITagView[] mTagViews;
+    private TagLayoutSolver mLayoutSolver;
+    /**
+     * 中心圆上下左右各个方向的宽度 {left, top, right, bottom}
+     */
     private int[] mChildUsed;
+    /**
+     * 子控件方向，与 mChildSizes、mChildRects 一一对应
+     */
+    private DIRECTION[] mChildDirections;
+    /**
+     * 子控件测量尺寸 {width, height, ...}
+     */
+    private int[] mChildSizes;
+    /**
+     * 子控件布局位置 {left, top, right, bottom, ...}
+     */
+    private int[] mChildRects;
+    /**
+     * 已收集到数组中的子控件数量
+     */
+    private int mPackedCount;
+    /**
+     * 预先计算的结果，与当前状态不一致时丢弃
+     */
+    private TagGeometrySnapshot mSnapshot;
+    /**
+     * 本次测量是否使用了 mSnapshot
+     */
+    private boolean mUsingSnapshot;
+    /**
+     * 影响子控件测量与各个方向宽度的属性每次变化加一
+     */
+    private int mGeneration;
+    /**
+     * 上一次完整测量时的 mGeneration、测量规格与子控件
+     */
+    private int mMeasuredGeneration = -1;
+    private int mMeasuredWidthSpec;
+    private int mMeasuredHeightSpec;
+    private View[] mMeasuredChildren = new View[0];
+    /**
+     * mChildUsed 是否来自快照，来自快照时跳过测量也要重新计算
+     */
+    private boolean mUsedFromSnapshot;
+    private int mMeasureCount;
+    private int mSkippedMeasureCount;
+    /**
+     * 折线是否需要重新计算
+     */
+    private boolean mLinesDirty = true;
     private int mTagCount;
     /**
      * 圆心 X 坐标
@@ -105,15 +222,87 @@ public class TagViewGroup extends ViewGroup {
      * 线条比例
      */
     private float mLinesRatio = 1;
+    /**
+     * Tag 透明度
+     */
+    private float mTagAlpha = 1;
+    /**
+     * 显示隐藏动画是否由 {@link TagAnimationClock} 推进
+     */
+    private boolean mClockAnimation;
+    /**
+     * 静止时是否绘制缓存的位图
+     */
+    private boolean mBitmapCacheEnabled;
+    /**
+     * 是否从 {@link TagViewPool} 取出与放回 TagTextView、RippleView
+     */
+    private boolean mViewPoolEnabled;
+    /**
+     * 按 Tag 下标记录是否从复用池取出，只有这些 Tag 会被放回
+     */
+    private boolean[] mPooledTags;
+    /**
+     * 离开窗口时水波纹已放回复用池，重新关联窗口时再添加
+     */
+    private boolean mRippleReleased;
+    /**
+     * 缓存的位图是否需要重新生成
+     */
+    private boolean mBitmapDirty = true;
+    /**
+     * 位图超出 {@link TagBitmapCache} 的预算，尺寸或内容变化之前不再生成，直接绘制
+     */
+    private boolean mBitmapRejected;
+    /**
+     * 在 {@link TagBitmapCache} 中的键
+     */
+    private final Integer mBitmapCacheKey = TagBitmapCache.nextKey();
+    /**
+     * 缓存位图在 TagViewGroup 中的范围
+     */
+    private final Rect mBitmapBounds = new Rect();
+    /**
+     * 分层模式下静态层的位置，覆盖折线与中心圆
+     */
+    private final Rect mStaticBounds = new Rect();
     /**
      * 方向模式，默认为第一种
      */
     private int mDirectionMode;
+    /**
+     * {@link #bind} 绑定的模型，运行时改变的方向写回其中
+     */
+    private TagGroupModel mBoundModel;
+    /**
+     * {@link #planDirections} 的规划结果，拖动结束时只重新规划这一组，没有规划过时为 null
+     */
+    private DirectionPlan mDirectionPlan;
 
     /**
      * 不允许父布局拦截onTouchEvent
      */
     private boolean mDisallowIntercept;
+    /**
+     * 是否正在拖动，拖动时只平移子控件，松手后才重新布局
+     */
+    private boolean mDragging;
+    /**
+     * 拖动的目标圆心，同一帧内的多次移动合并为一次更新
+     */
+    private float mDragX;
+    private float mDragY;
+    private boolean mDragFramePending;
+    private final Runnable mDragFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (!mDragFramePending) { // 已经在松手或离开窗口时处理
+                return;
+            }
+            mDragFramePending = false;
+            applyDrag();
+        }
+    };
 
     public TagViewGroup(Context context) {
         this(context, null);
@@ -138,87 +327,145 @@ public class TagViewGroup extends ViewGroup {
         array.recycle();
 
         mPaint = new Paint();
-        mPath = new Path();
-        mDstPath = new Path();
-        mPathMeasure = new PathMeasure();
+        mLinesRenderer = new TagLinesRenderer();
         mPaint.setAntiAlias(true);
         mGestureDetector = new GestureDetectorCompat(context, new TagOnGestureListener());
+        mLayoutSolver = new TagLayoutSolver();
         mChildUsed = new int[4];
+        mChildDirections = new DIRECTION[DEFAULT_MAX_TAG + 1]; // 标签加上水波纹
+        mChildSizes = new int[mChildDirections.length * TagLayoutSolver.SIZE_STRIDE];
+        mChildRects = new int[mChildDirections.length * TagLayoutSolver.RECT_STRIDE];
         mCenterRect = new RectF();
-        mRectArray = new RectF[6];
+        mHitIndex = new TagHitIndex();
+        mHitIndex.ensureCapacity(DEFAULT_MAX_TAG);
+        mTagViews = new ITagView[DEFAULT_MAX_TAG];
+        mPooledTags = new boolean[DEFAULT_MAX_TAG];
+        TagMetrics.count(TagMetrics.COUNTER_GROUPS, 1);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final long start = TagMetrics.begin(TagMetrics.SPAN_MEASURE);
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        measureChildren(widthMeasureSpec, heightMeasureSpec); // 测量子控件
-        mChildUsed = getChildUsed(); // 获取中心圆上下左右各个方向的宽度
-        // 圆心刚开始默认在左上角 (0,0)
-        mCenterX = (int) (getMeasuredWidth() * mPercentX);
-        mCenterY = (int) (getMeasuredHeight() * mPercentY);
+        final boolean skipped = canSkipMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (skipped) { // 子控件与影响尺寸的属性都没有变化，沿用上次的测量结果
+            mSkippedMeasureCount++;
+            TagMetrics.count(TagMetrics.COUNTER_MEASURE_SKIPPED, 1);
+        } else {
+            mMeasureCount++;
+            measureChildren(widthMeasureSpec, heightMeasureSpec); // 测量子控件
+            packChildren(); // 收集子控件的方向与尺寸
+            rememberMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+        mLayoutSolver.setDistances(mInnerRadius, mTiltDistance, mVerDistance);
+        mUsingSnapshot = mSnapshot != null && mSnapshot.matches(getMeasuredWidth(), getMeasuredHeight(),
+                mPercentX, mPercentY, mLayoutSolver, mChildDirections, mChildSizes, mPackedCount);
+        if (mSnapshot != null) {
+            TagMetrics.count(mUsingSnapshot ? TagMetrics.COUNTER_SNAPSHOT_HIT : TagMetrics.COUNTER_SNAPSHOT_MISS, 1);
+        }
+        if (mUsingSnapshot) { // 直接使用预先计算的结果
+            mSnapshot.getUsed(mChildUsed);
+            mUsedFromSnapshot = true;
+            mCenterX = mSnapshot.getCenterX();
+            mCenterY = mSnapshot.getCenterY();
+        } else {
+            mSnapshot = null;
+            if (!skipped || mUsedFromSnapshot) {
+                mLayoutSolver.computeUsed(mChildDirections, mChildSizes, mPackedCount, mChildUsed); // 获取中心圆上下左右各个方向的宽度
+                mUsedFromSnapshot = false;
+            }
+            // 圆心刚开始默认在左上角 (0,0)
+            mCenterX = TagLayoutSolver.center(getMeasuredWidth(), mPercentX);
+            mCenterY = TagLayoutSolver.center(getMeasuredHeight(), mPercentY);
+        }
         // 设置中心矩形的坐标
         mCenterRect.set(mCenterX - mRadius, mCenterY - mRadius, mCenterX + mRadius, mCenterY + mRadius);
         // 如果有波纹就设置波纹中心在圆心
         if (mRippleView != null) {
             mRippleView.setCenterPoint(mCenterX, mCenterY);
         }
+        TagMetrics.end(TagMetrics.SPAN_MEASURE, start);
     }
 
     /**
-     * 获取中心圆上下左右各个方向的宽度
-     *
-     * @return int[]{left,top,right,bottom}
+     * 测量规格、子控件、子控件方向与影响尺寸的属性都与上次完整测量相同，且没有子控件请求重新布局(例如文字变化)
+     */
+    private boolean canSkipMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mMeasuredGeneration != mGeneration || widthMeasureSpec != mMeasuredWidthSpec
+                || heightMeasureSpec != mMeasuredHeightSpec || getChildCount() != mPackedCount) {
+            return false;
+        }
+        for (int i = 0; i < mPackedCount; i++) {
+            final View child = getChildAt(i);
+            if (child != mMeasuredChildren[i] || child.isLayoutRequested()
+                    || ((ITagView) child).getDirection() != mChildDirections[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rememberMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mMeasuredGeneration = mGeneration;
+        mMeasuredWidthSpec = widthMeasureSpec;
+        mMeasuredHeightSpec = heightMeasureSpec;
+        if (mMeasuredChildren.length < mPackedCount) {
+            mMeasuredChildren = new View[mChildDirections.length];
+        }
+        for (int i = 0; i < mPackedCount; i++) {
+            mMeasuredChildren[i] = getChildAt(i);
+        }
+        Arrays.fill(mMeasuredChildren, mPackedCount, mMeasuredChildren.length, null); // 不持有已移除的子控件
+    }
+
+    /**
+     * 影响测量结果的属性变化，下次测量时重新测量子控件
+     */
+    private void bumpGeneration() {
+        mGeneration++;
+    }
+
+    /**
+     * 完整测量的次数
+     */
+    public int getMeasureCount() {
+        return mMeasureCount;
+    }
+
+    /**
+     * 因为没有变化而跳过子控件测量的次数
+     */
+    public int getSkippedMeasureCount() {
+        return mSkippedMeasureCount;
+    }
+
+    /**
+     * 把子控件的方向与测量尺寸收集到数组中，供 {@link TagLayoutSolver} 使用
      */
-    private int[] getChildUsed() {
-        int childCount = getChildCount();
-        // 设置各方向宽度初始值为垂直线条长度
-        int leftMax = mVerDistance, topMax = mVerDistance, rightMax = mVerDistance, bottomMax = mVerDistance;
-        for (int i = 0; i < childCount; i++) { // 遍历每个child，对比到比当前max值大的value则更新max值
+    private void packChildren() {
+        final int childCount = getChildCount();
+        ensureChildCapacity(childCount);
+        for (int i = 0; i < childCount; i++) {
             ITagView child = (ITagView) getChildAt(i);
-            switch (child.getDirection()) {
-                case RIGHT_TOP_TILT://右上斜线
-                    rightMax = Math.max(rightMax, mTiltDistance + child.getMeasuredWidth() + 2 * mInnerRadius);
-                    topMax = Math.max(topMax, child.getMeasuredHeight() + mTiltDistance);
-                    break;
-                case TOP_RIGHT://右上
-                    rightMax = Math.max(rightMax, child.getMeasuredWidth());
-                    topMax = Math.max(topMax, child.getMeasuredHeight() + mVerDistance);
-                    break;
-                case RIGHT_CENTER://右中
-                    rightMax = Math.max(rightMax, child.getMeasuredWidth() + 2 * mInnerRadius);
-                    topMax = Math.max(topMax, Math.max(mVerDistance, child.getMeasuredHeight()));
-                    break;
-                case RIGHT_BOTTOM://右下
-                    rightMax = Math.max(rightMax, child.getMeasuredWidth() + 2 * mInnerRadius);
-                    bottomMax = mVerDistance;
-                    break;
-                case RIGHT_BOTTOM_TILT:
-                    rightMax = Math.max(rightMax, mTiltDistance + child.getMeasuredWidth() + 2 * mInnerRadius);
-                    bottomMax = mTiltDistance;
-                    break;
-                case LEFT_TOP://左上
-                    leftMax = Math.max(leftMax, child.getMeasuredWidth() + 2 * mInnerRadius);
-                    topMax = Math.max(topMax, child.getMeasuredHeight() + mVerDistance);
-                    break;
-                case LEFT_TOP_TILT://左上斜线
-                    leftMax = Math.max(leftMax, child.getMeasuredWidth() + mTiltDistance + 2 * mInnerRadius);
-                    topMax = Math.max(topMax, child.getMeasuredHeight() + mTiltDistance);
-                    break;
-                case LEFT_CENTER://左中
-                    leftMax = Math.max(leftMax, child.getMeasuredWidth() + 2 * mInnerRadius);
-                    topMax = Math.max(topMax, Math.max(mVerDistance, child.getMeasuredHeight()));
-                    break;
-                case LEFT_BOTTOM://左下
-                    leftMax = Math.max(leftMax, child.getMeasuredWidth() + 2 * mInnerRadius);
-                    bottomMax = mVerDistance;
-                    break;
-                case LEFT_BOTTOM_TILT://左下斜线
-                    leftMax = Math.max(leftMax, child.getMeasuredWidth() + mTiltDistance + 2 * mInnerRadius);
-                    bottomMax = mTiltDistance;
-                    break;
-            }
-        }
-        return new int[]{leftMax, topMax, rightMax, bottomMax};
+            mChildDirections[i] = child.getDirection();
+            mChildSizes[i * TagLayoutSolver.SIZE_STRIDE] = child.getMeasuredWidth();
+            mChildSizes[i * TagLayoutSolver.SIZE_STRIDE + 1] = child.getMeasuredHeight();
+        }
+        mPackedCount = childCount;
+    }
+
+    /**
+     * 确保数组能容纳 count 个子控件，只在子控件数量增加时扩容。
+     * 扩容后保留原来的内容，下次测量之前的动画帧与拖动仍然读取上次的结果
+     */
+    private void ensureChildCapacity(int count) {
+        if (mChildDirections.length >= count) {
+            return;
+        }
+        final int capacity = Math.max(count, mChildDirections.length * 2);
+        mChildDirections = Arrays.copyOf(mChildDirections, capacity);
+        mChildSizes = Arrays.copyOf(mChildSizes, capacity * TagLayoutSolver.SIZE_STRIDE);
+        mChildRects = Arrays.copyOf(mChildRects, capacity * TagLayoutSolver.RECT_STRIDE);
     }
 
     /**
@@ -226,64 +473,229 @@ public class TagViewGroup extends ViewGroup {
      */
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        int left = 0, top = 0;
-        for (int i = 0; i < getChildCount(); i++) { // 遍历TagView
-            ITagView child = (ITagView) getChildAt(i);
-            switch (child.getDirection()) {
-                case RIGHT_TOP_TILT://右上斜线
-                    top = mCenterY - mTiltDistance - child.getMeasuredHeight();
-                    left = mCenterX + mTiltDistance;
-                    break;
-                case TOP_RIGHT://右上
-                    left = mCenterX;
-                    top = mCenterY - mVerDistance - child.getMeasuredHeight();
-                    break;
-                case RIGHT_CENTER://右中
-//                    left = mCenterX;
-                    left = mCenterX + mTiltDistance; // 设置中间tag对齐上下斜tag
-                    top = mCenterY - child.getMeasuredHeight();
-                    break;
-                case RIGHT_BOTTOM://右下
-                    left = mCenterX;
-                    top = mVerDistance + mCenterY - child.getMeasuredHeight();
-                    break;
-                case RIGHT_BOTTOM_TILT://右下斜线
-                    left = mCenterX + mTiltDistance;
-                    top = mTiltDistance + mCenterY - child.getMeasuredHeight();
-                    break;
-                case LEFT_TOP://左上
-                    left = mCenterX - child.getMeasuredWidth() - mTiltDistance;
-                    top = mCenterY - mVerDistance - child.getMeasuredHeight();
-                    break;
-                case LEFT_TOP_TILT://左上斜线
-                    left = mCenterX - child.getMeasuredWidth() - mTiltDistance;
-                    top = mCenterY - mTiltDistance - child.getMeasuredHeight();
-                    break;
-                case LEFT_CENTER://左中
-                    left = mCenterX - child.getMeasuredWidth() - mTiltDistance;
-                    top = mCenterY - child.getMeasuredHeight();
-                    break;
-                case LEFT_BOTTOM://左下
-                    left = mCenterX - child.getMeasuredWidth() - mTiltDistance;
-                    top = mVerDistance + mCenterY - child.getMeasuredHeight();
-                    break;
-                case LEFT_BOTTOM_TILT://左下斜线
-                    left = mCenterX - child.getMeasuredWidth() - mTiltDistance;
-                    top = mTiltDistance + mCenterY - child.getMeasuredHeight();
-                    break;
-                case CENTER:
-                    left = 0;
-                    top = 0;
-                    break;
-            }
-            child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+        final long start = TagMetrics.begin(TagMetrics.SPAN_LAYOUT);
+        if (mUsingSnapshot) {
+            layoutFromSnapshot();
+        } else {
+            mLayoutSolver.layout(mCenterX, mCenterY, mChildDirections, mChildSizes, mPackedCount, mChildRects);
+        }
+        for (int i = 0; i < mPackedCount; i++) { // 遍历TagView
+            final View child = getChildAt(i);
+            if (child == mStaticLayer) { // 静态层在 Tag 布局之后按折线范围布局
+                continue;
+            }
+            final int offset = i * TagLayoutSolver.RECT_STRIDE;
+            child.layout(mChildRects[offset], mChildRects[offset + 1], mChildRects[offset + 2], mChildRects[offset + 3]);
         }
         refreshTagsRect();
+        mLinesDirty = true;
+        mBitmapDirty = true;
+        if (mStaticLayer != null) { // 圆心移动时静态层尺寸可能不变，需要主动重绘
+            layoutStaticLayer();
+            mStaticLayer.invalidate();
+        }
+        TagMetrics.end(TagMetrics.SPAN_LAYOUT, start);
+    }
+
+    /**
+     * 标签位置取自快照，只有水波纹需要计算
+     */
+    private void layoutFromSnapshot() {
+        int tag = 0;
+        for (int i = 0; i < mPackedCount; i++) {
+            final int offset = i * TagLayoutSolver.RECT_STRIDE;
+            if (mChildDirections[i] == DIRECTION.CENTER) {
+                mLayoutSolver.layoutChild(mCenterX, mCenterY, DIRECTION.CENTER, mChildSizes[i * TagLayoutSolver.SIZE_STRIDE],
+                        mChildSizes[i * TagLayoutSolver.SIZE_STRIDE + 1], mChildRects, offset);
+            } else {
+                mSnapshot.getTagRect(tag++, mChildRects, offset);
+            }
+        }
     }
 
     @Override
     protected void dispatchDraw(Canvas canvas) {
-        super.dispatchDraw(canvas);
+        final long start = TagMetrics.begin(TagMetrics.SPAN_DRAW);
+        if (!drawBitmapCache(canvas)) {
+            super.dispatchDraw(canvas);
+            if (mStaticLayer == null) { // 分层模式下折线与圆由 mStaticLayer 绘制
+                drawStatic(canvas);
+            }
+        }
+        TagMetrics.end(TagMetrics.SPAN_DRAW, start);
+    }
+
+    /**
+     * 静止时绘制缓存的位图，水波纹仍然实时绘制在位图下面
+     *
+     * @return 是否已用位图绘制
+     */
+    private boolean drawBitmapCache(Canvas canvas) {
+        if (!mBitmapCacheEnabled || !isIdle()) {
+            return false;
+        }
+        final TagBitmapCache cache = TagBitmapCache.getInstance();
+        if (mBitmapDirty) {
+            cache.remove(mBitmapCacheKey);
+            mBitmapDirty = false;
+            mBitmapRejected = false;
+        }
+        if (mBitmapRejected) {
+            return false;
+        }
+        Bitmap bitmap = cache.get(mBitmapCacheKey);
+        TagMetrics.count(bitmap != null ? TagMetrics.COUNTER_BITMAP_CACHE_HIT : TagMetrics.COUNTER_BITMAP_CACHE_MISS, 1);
+        if (bitmap == null) {
+            bitmap = rasterize();
+            if (bitmap == null) {
+                return false;
+            }
+            if (!cache.put(mBitmapCacheKey, bitmap)) { // 超出预算，这一帧也直接绘制
+                mBitmapRejected = true;
+                return false;
+            }
+        }
+        if (mRippleView != null && mRippleView.getVisibility() == VISIBLE) {
+            drawChild(canvas, mRippleView, getDrawingTime());
+        }
+        canvas.drawBitmap(bitmap, mBitmapBounds.left, mBitmapBounds.top, null);
+        return true;
+    }
+
+    /**
+     * 没有动画在播放，所有内容都完全显示
+     */
+    private boolean isIdle() {
+        if (mDragging || mStaticLayer != null || mLinesRatio != 1 || mTagAlpha != 1 || getWidth() <= 0 || getHeight() <= 0) {
+            return false;
+        }
+        if (mClockAnimation) {
+            return !TagAnimationClock.getInstance().isAnimating(this);
+        }
+        return (mShowAnimator == null || !mShowAnimator.isRunning())
+                && (mHideAnimator == null || !mHideAnimator.isRunning());
+    }
+
+    /**
+     * 把折线、中心圆与 Tag (包括文字阴影) 绘制到位图中，位图只覆盖内容所在的范围
+     */
+    private Bitmap rasterize() {
+        computeBitmapBounds(mBitmapBounds);
+        if (mBitmapBounds.isEmpty()) {
+            return null;
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(mBitmapBounds.width(), mBitmapBounds.height(), Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        canvas.translate(-mBitmapBounds.left, -mBitmapBounds.top);
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            if (child == mRippleView || child.getVisibility() != VISIBLE) {
+                continue;
+            }
+            final int saveCount = canvas.save();
+            canvas.translate(child.getLeft(), child.getTop());
+            child.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+        drawStatic(canvas);
+        return bitmap;
+    }
+
+    private void computeBitmapBounds(Rect outBounds) {
+        computeStaticBounds(outBounds);
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            if (child == mRippleView || child == mStaticLayer) {
+                continue;
+            }
+            final int shadow = child instanceof TagTextView
+                    ? (int) Math.ceil(((TagTextView) child).getShadowRadius()) + 1 : 0; // 文字阴影可能超出 Tag
+            outBounds.union(child.getLeft() - shadow, child.getTop() - shadow,
+                    child.getRight() + shadow, child.getBottom() + shadow);
+        }
+        if (!outBounds.intersect(0, 0, getWidth(), getHeight())) {
+            outBounds.setEmpty();
+        }
+    }
+
+    /**
+     * 折线与中心圆的范围，不包含 Tag，没有与 TagViewGroup 求交集
+     */
+    private void computeStaticBounds(Rect outBounds) {
+        outBounds.set(mCenterX - mRadius - 1, mCenterY - mRadius - 1, mCenterX + mRadius + 1, mCenterY + mRadius + 1);
+        updateLines();
+        if (mLinesRenderer.hasBounds()) {
+            final RectF lines = mLinesRenderer.getBounds();
+            final int extent = (mLinesWidth + 1) / 2 + 1;
+            outBounds.union((int) Math.floor(lines.left) - extent, (int) Math.floor(lines.top) - extent,
+                    (int) Math.ceil(lines.right) + extent, (int) Math.ceil(lines.bottom) + extent);
+        }
+    }
+
+    /**
+     * 按折线与中心圆的范围布局静态层，硬件层只覆盖这个范围。范围不变时 View#layout 不做任何事
+     */
+    private void layoutStaticLayer() {
+        computeStaticBounds(mStaticBounds);
+        if (!mStaticBounds.intersect(0, 0, getWidth(), getHeight())) {
+            mStaticBounds.setEmpty();
+        }
+        mStaticLayer.layout(mStaticBounds.left, mStaticBounds.top, mStaticBounds.right, mStaticBounds.bottom);
+    }
+
+    /**
+     * 设置静止时是否使用位图缓存
+     * <p>
+     * 开启后，显示动画结束、没有变化的标签组把折线、中心圆与 Tag 绘制到位图中，之后每次重绘只绘制这张位图与水波纹。
+     * 布局、动画属性变化后自动重新生成；只改变 Tag 外观而不触发布局时需要调用 {@link #invalidateBitmapCache}。
+     * 位图保存在共用的 {@link TagBitmapCache} 中，分层模式下不使用
+     */
+    public void setBitmapCacheEnabled(boolean enabled) {
+        if (mBitmapCacheEnabled == enabled) {
+            return;
+        }
+        mBitmapCacheEnabled = enabled;
+        if (enabled) {
+            TagBitmapCache.getInstance().register(getContext());
+        } else {
+            TagBitmapCache.getInstance().remove(mBitmapCacheKey);
+        }
+        mBitmapDirty = true;
+        invalidate();
+    }
+
+    public boolean isBitmapCacheEnabled() {
+        return mBitmapCacheEnabled;
+    }
+
+    /**
+     * 设置是否使用共用的 {@link TagViewPool}
+     * <p>
+     * 开启后按模型创建的 TagTextView 与水波纹从复用池取出，{@link #bind} 移除多余标签时放回；离开窗口时水波纹
+     * 与 {@link #bind} 绑定模型创建的标签放回池中，重新关联窗口时按模型重新取出。通过 {@link #addTag} 添加的标签不会放回，
+     * 有这样的标签时离开窗口也不放回其他标签。
+     * 适合在列表中快速滑动时频繁绑定的标签组
+     */
+    public void setViewPoolEnabled(boolean enabled) {
+        mViewPoolEnabled = enabled;
+    }
+
+    public boolean isViewPoolEnabled() {
+        return mViewPoolEnabled;
+    }
+
+    /**
+     * 丢弃缓存的位图，下次绘制时重新生成
+     */
+    public void invalidateBitmapCache() {
+        mBitmapDirty = true;
+        invalidate();
+    }
+
+    /**
+     * 绘制不随水波纹变化的部分：折线与中心圆
+     */
+    private void drawStatic(Canvas canvas) {
         //绘制折线
         drawLines(canvas);
         //绘制外圆
@@ -298,68 +710,189 @@ public class TagViewGroup extends ViewGroup {
 
     private void drawTagAlpha(float alpha) {
         for (int i = 0; i < getChildCount(); i++) {
-            getChildAt(i).setAlpha(alpha);
+            final View child = getChildAt(i);
+            if (child != mStaticLayer) { // 静态层的折线不参与 Tag 透明度动画
+                child.setAlpha(alpha);
+            }
+        }
+    }
+
+    /**
+     * 折线或中心圆变化时只重绘变化的区域，分层模式下只重绘静态层，坐标换算到静态层
+     */
+    private void invalidateStatic(int left, int top, int right, int bottom) {
+        if (mStaticLayer != null) {
+            final int dx = mStaticLayer.getLeft();
+            final int dy = mStaticLayer.getTop();
+            TagInvalidator.invalidate(mStaticLayer, left - dx, top - dy, right - dx, bottom - dy);
+        } else {
+            TagInvalidator.invalidate(this, left, top, right, bottom);
+        }
+    }
+
+    /**
+     * 重绘中心圆
+     */
+    private void invalidateCircle(int radius) {
+        if (mStaticLayer != null) {
+            TagInvalidator.invalidateCircle(mStaticLayer, mCenterX - mStaticLayer.getLeft(),
+                    mCenterY - mStaticLayer.getTop(), radius);
+        } else {
+            TagInvalidator.invalidateCircle(this, mCenterX, mCenterY, radius);
+        }
+    }
+
+    /**
+     * 重绘折线范围，向外扩展线宽的一半与抗锯齿的一个像素
+     */
+    private void invalidateLines() {
+        updateLines();
+        if (!mLinesRenderer.hasBounds()) {
+            return;
+        }
+        final RectF bounds = mLinesRenderer.getBounds();
+        final int extent = (mLinesWidth + 1) / 2 + 1;
+        invalidateStatic((int) Math.floor(bounds.left) - extent, (int) Math.floor(bounds.top) - extent,
+                (int) Math.ceil(bounds.right) + extent, (int) Math.ceil(bounds.bottom) + extent);
+    }
+
+    /**
+     * 布局或内圆半径变化后才重新计算折线
+     */
+    private void updateLines() {
+        if (mLinesDirty) {
+            mLinesRenderer.update(mCenterX, mCenterY, mChildDirections, mChildRects, mPackedCount, mInnerRadius);
+            mLinesDirty = false;
         }
     }
 
     private void drawLines(Canvas canvas) {
+        final long start = TagMetrics.begin(TagMetrics.SPAN_DRAW_LINES);
         // 设置画笔
         mPaint.setColor(Color.WHITE);
         mPaint.setStrokeWidth(mLinesWidth);
         mPaint.setStyle(Paint.Style.STROKE);
-        // 遍历子控件
-        for (int i = 0; i < getChildCount(); i++) {
-            ITagView child = (ITagView) getChildAt(i);
-            mPath.reset(); // 重置path
-            mPath.moveTo(mCenterX, mCenterY); // 移动到圆心坐标
-            mDstPath.reset();
-            switch (child.getDirection()) {
-                case TOP_RIGHT://右上
-                case RIGHT_BOTTOM://右下
-                case RIGHT_TOP_TILT://右上斜线
-                case RIGHT_BOTTOM_TILT://右下斜线
-                    mPath.lineTo(child.getLeft(), child.getBottom()); // 分成两段画，先画到tag左下角
-                case RIGHT_CENTER://右中
-                    mPath.lineTo(child.getRight(), child.getBottom()); // 直接或继续画到tag右下角
-                    // 绘制小圆
-                    final RectF rectF = new RectF(child.getRight(), child.getBottom() - mInnerRadius, child.getRight() + 2 * mInnerRadius, child.getBottom() + mInnerRadius);
-                    mPath.arcTo(rectF, 180, 359, false); //  sweepAngle还会 mod 360,如果是360就等于0
-                    break;
-                case LEFT_TOP://左上
-                case LEFT_TOP_TILT://左上斜线
-                case LEFT_BOTTOM://左下
-                case LEFT_BOTTOM_TILT://左下斜线
-                    mPath.lineTo(child.getRight(), child.getBottom()); // 分成两段画，先画到tag右下角
-                case LEFT_CENTER://左中
-                    mPath.lineTo(child.getLeft(), child.getBottom()); // 直接或继续画到tag左下角
-                    // 绘制小圆
-                    final RectF rectF2 = new RectF(child.getLeft() - 2 * mInnerRadius, child.getBottom() - mInnerRadius, child.getLeft(), child.getBottom() + mInnerRadius);
-                    mPath.arcTo(rectF2, 0, 359, false); // sweepAngle还会自动 mod 360,如果是360就会等于0
-                    break;
-            }
-            mPathMeasure.setPath(mPath, false); // 设置path不强制闭合
-            mPathMeasure.getSegment(0, mPathMeasure.getLength() * mLinesRatio, mDstPath, true);
-            canvas.drawPath(mDstPath, mPaint);
-        }
+        updateLines();
+        mLinesRenderer.draw(canvas, mPaint, mLinesRatio);
+        TagMetrics.end(TagMetrics.SPAN_DRAW_LINES, start);
     }
 
     /**
      * 检查当前是否有动画或者动画是否正在播放
      */
     private boolean checkAnimating() {
+        if (mClockAnimation) {
+            return TagAnimationClock.getInstance().isAnimating(this);
+        }
         return mShowAnimator == null || mHideAnimator == null
                 || mShowAnimator.isRunning() || mHideAnimator.isRunning();
     }
 
     /**
      * 添加 Tag 列表
+     * <p>
+     * 所有 Tag 一次添加，按最终数量预先分配空间，添加过程中不触发布局，全部添加后只请求一次测量与布局
      *
      * @param tagList 要添加的 Tag 列表
      * @return 返回 标签组
      */
     public TagViewGroup addTagList(@NonNull List<ITagView> tagList) {
-        for (ITagView tag : tagList) {
-            addTag(tag);
+        final int count = tagList.size();
+        ensureTagCapacity(mTagCount + count);
+        for (int i = 0; i < count; i++) {
+            attachTag(tagList.get(i), false);
+        }
+        onTagsAttached(count);
+        return this;
+    }
+
+    /**
+     * 按模型添加 Tag，每个标签新建一个 TagTextView，并设置圆心位置
+     * <p>
+     * 与 {@link #addTagList} 相同，全部添加后只请求一次测量与布局，未设置的方向取默认方向并写回模型
+     *
+     * @param model 标签组模型
+     * @return 返回 标签组
+     */
+    public TagViewGroup addTags(@NonNull TagGroupModel model) {
+        setPercent(model.getPercentX(), model.getPercentY());
+        addTags(model.getTags(), 0);
+        return this;
+    }
+
+    /**
+     * 为 tags 中从 start 开始的标签新建 TagTextView 添加
+     */
+    private void addTags(List<TagGroupModel.Tag> tags, int start) {
+        final int count = tags.size() - start;
+        ensureTagCapacity(mTagCount + count);
+        for (int i = start; i < tags.size(); i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            final TagTextView view = newTagView();
+            view.setText(tag.getName());
+            view.setDirection(modelDirection(tags, i));
+            attachTag(view, mViewPoolEnabled);
+        }
+        onTagsAttached(count);
+    }
+
+    /**
+     * 模型中第 index 个标签的方向，未设置方向时按当前方向模式取默认方向并写回模型
+     */
+    private DIRECTION modelDirection(List<TagGroupModel.Tag> tags, int index) {
+        final TagGroupModel.Tag tag = tags.get(index);
+        DIRECTION direction = DIRECTION.valueOf(tag.getDirection());
+        if (direction == DIRECTION.CENTER) { // CENTER 只用于水波纹，表示未设置
+            direction = DirectionUtil.getInstance().getDirection(tags.size(), mDirectionMode, index);
+            tag.setDirection(direction.getValue());
+        }
+        return direction;
+    }
+
+    /**
+     * 绑定到模型，复用已有的 Tag
+     * <p>
+     * 按位置与模型中的标签比较，只更新文字或方向不同的 Tag，标签不足时新建 TagTextView，多出的 Tag 被移除。
+     * 模型中未设置的方向按当前方向模式取默认值，与绑定后切换或规划的方向一样写回模型的
+     * {@link TagGroupModel.Tag#direction}，再次绑定同一模型时不再重新计算。
+     * 只有变化时才请求布局
+     *
+     * @param model 标签组模型
+     * @return 返回 标签组
+     */
+    public TagViewGroup bind(@NonNull TagGroupModel model) {
+        final List<TagGroupModel.Tag> tags = model.getTags();
+        final int count = tags.size();
+        final int reused = Math.min(count, mTagCount);
+        boolean changed = false;
+        for (int i = 0; i < reused; i++) {
+            final TagGroupModel.Tag tag = tags.get(i);
+            final ITagView view = mTagViews[i];
+            if (view instanceof TagTextView && !TextUtils.equals(((TagTextView) view).getText(), tag.getName())) {
+                ((TagTextView) view).setText(tag.getName());
+                changed = true;
+            }
+            final DIRECTION direction = modelDirection(tags, i);
+            if (view.getDirection() != direction) {
+                view.setDirection(direction);
+                changed = true;
+            }
+        }
+        if (mTagCount > count) {
+            detachTags(count);
+            changed = true;
+        }
+        mBoundModel = model;
+        if (mPercentX != model.getPercentX() || mPercentY != model.getPercentY()) {
+            setPercent(model.getPercentX(), model.getPercentY());
+            changed = true;
+        }
+        if (count > reused) {
+            addTags(tags, reused);
+        } else if (changed) {
+            bumpGeneration();
+            requestLayout();
+            invalidate();
         }
         return this;
     }
@@ -371,13 +904,118 @@ public class TagViewGroup extends ViewGroup {
      * @return 返回 标签组
      */
     public TagViewGroup addTag(@NonNull ITagView tag) {
-        if (mTagCount >= DEFAULT_MAX_TAG) {
-            throw new RuntimeException("The number of tags exceeds the maximum value(6)");
+        ensureTagCapacity(mTagCount + 1);
+        tag.setTag(mTagCount); // 绑定标志
+        addView((View) tag, getInsertIndex());
+        mTagViews[mTagCount] = tag;
+        mPooledTags[mTagCount] = false;
+        mTagCount++;
+        bumpGeneration();
+        TagMetrics.count(TagMetrics.COUNTER_TAGS, 1);
+        return this;
+    }
+
+    /**
+     * 确保 Tag 数组、点击检测索引与布局数组能容纳 count 个 Tag
+     */
+    private void ensureTagCapacity(int count) {
+        if (mTagViews.length < count) {
+            mTagViews = Arrays.copyOf(mTagViews, Math.max(count, mTagViews.length * 2));
+            mPooledTags = Arrays.copyOf(mPooledTags, mTagViews.length);
         }
+        mHitIndex.ensureCapacity(count);
+        ensureChildCapacity(getChildCount() - mTagCount + count); // 加上水波纹与静态层
+    }
+
+    /**
+     * 新建标签使用的 TagTextView，开启复用池时从池中取出
+     */
+    private TagTextView newTagView() {
+        return mViewPoolEnabled ? TagViewPool.getInstance().acquireTagView(getContext()) : new TagTextView(getContext());
+    }
+
+    /**
+     * 添加 Tag 但不请求布局，添加完成后需要调用 {@link #onTagsAttached}
+     *
+     * @param pooled 是否从复用池取出，移除时放回
+     */
+    private void attachTag(ITagView tag, boolean pooled) {
+        final View view = (View) tag;
         tag.setTag(mTagCount); // 绑定标志
-        addView((View) tag);
-        mRectArray[mTagCount] = new RectF();
+        LayoutParams params = view.getLayoutParams();
+        if (params == null) {
+            params = generateDefaultLayoutParams();
+        }
+        addViewInLayout(view, getInsertIndex(), params, true);
+        mTagViews[mTagCount] = tag;
+        mPooledTags[mTagCount] = pooled;
         mTagCount++;
+    }
+
+    /**
+     * 一次添加 count 个 Tag 之后请求一次测量、布局与重绘
+     */
+    private void onTagsAttached(int count) {
+        if (count == 0) {
+            return;
+        }
+        bumpGeneration();
+        requestLayout();
+        invalidate();
+        TagMetrics.count(TagMetrics.COUNTER_TAGS, count);
+    }
+
+    /**
+     * 移除下标不小于 count 的 Tag，不请求布局，从复用池取出的 Tag 放回池中
+     */
+    private void detachTags(int count) {
+        for (int i = count; i < mTagCount; i++) {
+            removeViewInLayout((View) mTagViews[i]);
+            if (mPooledTags[i]) {
+                TagViewPool.getInstance().release((TagTextView) mTagViews[i]);
+                mPooledTags[i] = false;
+            }
+            mTagViews[i] = null;
+            mHitIndex.remove(i);
+        }
+        mTagCount = count;
+    }
+
+    /**
+     * 使用 {@link TagGeometryPrecomputer} 预先计算的结果
+     * <p>
+     * 按快照设置圆心位置，已有的 TagTextView 依次更新文字与方向，不足的标签新建 TagTextView 添加。
+     * 测量得到的文字尺寸与快照一致时，接下来的布局直接使用快照中的标签位置。
+     * 与 {@link #bind} 相同，多出的标签被移除。快照与测量时的尺寸或标签不一致时自动退回正常的布局
+     */
+    public TagViewGroup applySnapshot(@NonNull TagGeometrySnapshot snapshot) {
+        if (mTagCount > snapshot.getTagCount()) {
+            detachTags(snapshot.getTagCount());
+        }
+        final int added = snapshot.getTagCount() - mTagCount;
+        ensureTagCapacity(snapshot.getTagCount());
+        for (int i = 0; i < snapshot.getTagCount(); i++) {
+            final ITagView tag;
+            if (i < mTagCount) {
+                tag = mTagViews[i];
+            } else {
+                tag = newTagView();
+                attachTag(tag, mViewPoolEnabled);
+            }
+            if (tag instanceof TagTextView) {
+                ((TagTextView) tag).setText(snapshot.getName(i));
+            }
+            tag.setDirection(snapshot.getDirection(i));
+        }
+        setPercent(snapshot.getPercentX(), snapshot.getPercentY());
+        mSnapshot = snapshot;
+        if (added > 0) {
+            onTagsAttached(added);
+        } else {
+            bumpGeneration();
+            requestLayout();
+            invalidate();
+        }
         return this;
     }
 
@@ -406,25 +1044,65 @@ public class TagViewGroup extends ViewGroup {
      * 添加水波纹，ripple也是TagViewGroup的child，只是方向是CENTER
      */
     public void addRipple() {
-        mRippleView = new RippleView(getContext());
+        attachRipple();
+        TagMetrics.count(TagMetrics.COUNTER_RIPPLES, 1);
+    }
+
+    /**
+     * 创建或从复用池取出水波纹并添加
+     */
+    private void attachRipple() {
+        mRippleView = mViewPoolEnabled ? TagViewPool.getInstance().acquireRippleView(getContext())
+                : new RippleView(getContext());
         mRippleView.setLayoutParams(new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
         mRippleView.setDirection(DIRECTION.CENTER);
         mRippleView.initAnimator(mRippleMinRadius, mRippleMaxRadius, mRippleAlpha);
-        addView(mRippleView);
+        addView(mRippleView, getInsertIndex());
+    }
+
+    /**
+     * 新的子控件插入位置，分层模式下静态层始终在最上面
+     */
+    private int getInsertIndex() {
+        return mStaticLayer != null ? indexOfChild(mStaticLayer) : getChildCount();
+    }
+
+    /**
+     * 设置是否分层绘制
+     * <p>
+     * 开启后折线与中心圆绘制在单独的静态层上，静态层使用硬件层缓存，只在布局或动画属性变化时重新绘制，
+     * 水波纹每帧刷新时只重绘水波纹本身。静态层只覆盖折线与中心圆的范围，Tag 不单独使用硬件层。
+     * 硬件加速不可用时硬件层会退化为软件层缓存
+     */
+    public void setLayeredRendering(boolean layered) {
+        if (layered == (mStaticLayer != null)) {
+            return;
+        }
+        if (layered) {
+            mStaticLayer = new StaticLayerView(getContext());
+            mStaticLayer.setLayoutParams(new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+            mStaticLayer.setLayerType(LAYER_TYPE_HARDWARE, null);
+            addView(mStaticLayer);
+        } else {
+            removeView(mStaticLayer);
+            mStaticLayer = null;
+        }
+        invalidate();
+    }
+
+    public boolean isLayeredRendering() {
+        return mStaticLayer != null;
     }
 
     /**
      * 刷新Tag的边界
      */
     private void refreshTagsRect() {
+        mHitIndex.resize(getWidth(), getHeight()); // 尺寸不变时不会重建
         for (int i = 0; i < getChildCount(); i++) {
             ITagView child = (ITagView) getChildAt(i);
-            if (child.getDirection() != DIRECTION.CENTER) {
-                int index = (int) child.getTag();
-                if (mRectArray[index] == null) {
-                    mRectArray[index] = new RectF();
-                }
-                mRectArray[index].set(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+            if (child.getDirection() != DIRECTION.CENTER) { // 边界未变化的 Tag 不会重新登记
+                mHitIndex.set((int) child.getTag(), child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
             }
         }
     }
@@ -436,13 +1114,10 @@ public class TagViewGroup extends ViewGroup {
      * @param y 触摸y坐标
      */
     private ITagView isTouchingTags(float x, float y) {
-        for (int i = 0; i < getChildCount(); i++) {
-            ITagView child = (ITagView) getChildAt(i);
-            if (child.getDirection() != DIRECTION.CENTER && mRectArray[(int) child.getTag()].contains(x, y)) {
-                return child; // 如果child不是ripple而且该child所在矩形区域包括触摸点，则返回该child
-            }
-        }
-        return null;
+        final long start = TagMetrics.begin(TagMetrics.SPAN_HIT_TEST);
+        final int index = mHitIndex.query(x, y); // 只检查触摸点所在格子中的Tag
+        TagMetrics.end(TagMetrics.SPAN_HIT_TEST, start);
+        return index >= 0 ? mTagViews[index] : null;
     }
 
     /**
@@ -472,24 +1147,137 @@ public class TagViewGroup extends ViewGroup {
         mHideAnimator.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
-                setVisibility(INVISIBLE); // 播放完毕设为不可见
-                setHidden(true); // 保存不可见标志变量
-                updateDirection(); // 更新方向
-                requestLayout(); // 更新布局
-                setVisibility(View.VISIBLE); // 设置可见
-                mShowAnimator.start(); // 开始动画
+                onHideAnimationEnd();
             }
         });
         return this;
     }
 
+    private void onHideAnimationEnd() {
+        setVisibility(INVISIBLE); // 播放完毕设为不可见
+        setHidden(true); // 保存不可见标志变量
+        updateDirection(); // 更新方向
+        requestLayout(); // 更新布局
+        setVisibility(View.VISIBLE); // 设置可见
+        if (mClockAnimation) { // 开始动画
+            TagAnimationClock.getInstance().startShow(this);
+        } else {
+            mShowAnimator.start();
+        }
+    }
+
+    /**
+     * 设置显示隐藏动画是否由共用的 {@link TagAnimationClock} 推进
+     * <p>
+     * 开启后不需要设置 {@link #setShowAnimator}、{@link #setHideAnimator}，
+     * 时间轴与 {@link AnimatorUtils} 相同，所有标签组共用一个帧回调，不创建 Animator
+     */
+    public TagViewGroup setClockAnimation(boolean enabled) {
+        if (!enabled && mClockAnimation) {
+            TagAnimationClock.getInstance().cancel(this);
+        }
+        mClockAnimation = enabled;
+        return this;
+    }
+
+    public boolean isClockAnimation() {
+        return mClockAnimation;
+    }
+
+    /**
+     * {@link TagAnimationClock} 的显示动画结束
+     */
+    void onClockShowEnd() {
+        setHidden(false);
+    }
+
+    /**
+     * {@link TagAnimationClock} 的隐藏动画结束
+     */
+    void onClockHideEnd() {
+        onHideAnimationEnd();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mRippleReleased) { // 离开窗口时放回的水波纹，不是新添加的
+            mRippleReleased = false;
+            attachRipple();
+            mRippleView.startRipple();
+        }
+        if (mViewPoolEnabled && mTagCount == 0 && mBoundModel != null) { // 离开窗口时放回的标签按模型重新创建
+            bind(mBoundModel);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mClockAnimation) {
+            TagAnimationClock.getInstance().cancel(this);
+        }
+        if (mBitmapCacheEnabled) { // 不在屏幕上时释放位图
+            TagBitmapCache.getInstance().remove(mBitmapCacheKey);
+            mBitmapDirty = true;
+        }
+        if (mViewPoolEnabled) {
+            releasePooledViews();
+        }
+        cancelDrag();
+    }
+
+    /**
+     * 离开窗口时收不到松手事件，丢弃还没应用的移动并结束拖动，否则位图缓存一直不可用
+     */
+    private void cancelDrag() {
+        if (mDragFramePending) {
+            removeCallbacks(mDragFrame);
+            mDragFramePending = false;
+        }
+        if (mDragging) {
+            mDragging = false;
+            requestLayout();
+        }
+    }
+
+    /**
+     * 离开窗口时把水波纹与按模型创建的标签放回复用池，重新关联窗口时再取出。
+     * 有调用方添加的标签时所有标签都保留，重新关联窗口时不会打乱标签顺序
+     */
+    private void releasePooledViews() {
+        if (mRippleView != null) {
+            removeViewInLayout(mRippleView);
+            TagViewPool.getInstance().release(mRippleView);
+            mRippleView = null;
+            mRippleReleased = true;
+        }
+        if (mBoundModel != null && mTagCount > 0 && allTagsPooled()) { // 调用方添加的标签不放回，也就无法按模型重新创建
+            detachTags(0);
+            bumpGeneration();
+        }
+    }
+
+    private boolean allTagsPooled() {
+        for (int i = 0; i < mTagCount; i++) {
+            if (!mPooledTags[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 设置TagGroup为可见并播放动画
      */
     public void showWithAnimation() {
         if (!checkAnimating()) {
             setVisibility(View.VISIBLE);
-            mShowAnimator.start();
+            if (mClockAnimation) {
+                TagAnimationClock.getInstance().startShow(this);
+            } else {
+                mShowAnimator.start();
+            }
         }
     }
 
@@ -498,42 +1286,57 @@ public class TagViewGroup extends ViewGroup {
      */
     public void hideWithAnimation() {
         if (!checkAnimating()) {
-            mHideAnimator.start();
+            if (mClockAnimation) {
+                TagAnimationClock.getInstance().startHide(this);
+            } else {
+                mHideAnimator.start();
+            }
         }
     }
 
     /**
-     * 属性 CircleRadius 的属性动画调用，设置中心圆的半径
+     * 属性 {@link #CIRCLE_RADIUS} 与 {@link TagAnimationClock} 调用，设置中心圆的半径
      */
-    @SuppressWarnings("unused")
     public void setCircleRadius(int radius) {
+        mBitmapDirty = true;
+        final int oldRadius = mRadius;
         mRadius = radius;
-        invalidate();
+        if (mStaticLayer != null && getWidth() > 0) { // 中心圆可能超出折线的范围
+            layoutStaticLayer();
+        }
+        invalidateCircle(Math.max(oldRadius, radius)); // 只重绘新旧圆中较大的范围
     }
 
     /**
-     * 属性 CircleInnerRadius 的属性动画调用,设置中心内圆半径
+     * 属性 {@link #CIRCLE_INNER_RADIUS} 与 {@link TagAnimationClock} 调用,设置中心内圆半径
      */
-    @SuppressWarnings("unused")
     public void setCircleInnerRadius(int innerRadius) {
+        bumpGeneration();
+        mBitmapDirty = true;
+        invalidateLines(); // 内圆半径决定末端小圆，新旧折线范围都要重绘
         mInnerRadius = innerRadius;
-        invalidate();
+        mLinesDirty = true;
+        if (mStaticLayer != null && getWidth() > 0) { // 末端小圆决定折线的范围
+            layoutStaticLayer();
+        }
+        invalidateLines();
     }
 
     /**
-     * 属性 LinesRatio 的属性动画调用，设置线条显示比例
+     * 属性 {@link #LINES_RATIO} 与 {@link TagAnimationClock} 调用，设置线条显示比例
      */
-    @SuppressWarnings("unused")
     public void setLinesRatio(float ratio) {
+        mBitmapDirty = true;
         mLinesRatio = ratio;
-        invalidate();
+        invalidateLines();
     }
 
     /**
-     * 属性 TagAlpha 的属性动画调用，设置 Tag 的透明度
+     * 属性 {@link #TAG_ALPHA} 与 {@link TagAnimationClock} 调用，设置 Tag 的透明度
      */
-    @SuppressWarnings("unused")
     public void setTagAlpha(float alpha) {
+        mBitmapDirty = true;
+        mTagAlpha = alpha;
         drawTagAlpha(alpha);
     }
 
@@ -544,6 +1347,9 @@ public class TagViewGroup extends ViewGroup {
 
     public void setHidden(boolean hidden) {
         mIsHidden = hidden;
+        if (mRippleView != null) { // 隐藏时暂停水波纹
+            TagAnimationClock.getInstance().requestVisibilityCheck();
+        }
     }
 
     @Override
@@ -555,11 +1361,74 @@ public class TagViewGroup extends ViewGroup {
                 // 如果触碰在中心点上或者tag上就拦截，否则不拦截使上下滑动可行，解决无法上下滑动的bug
                 getParent().requestDisallowInterceptTouchEvent(mDisallowIntercept);
             }
-            return mGestureDetector.onTouchEvent(event);
+            final boolean handled = mGestureDetector.onTouchEvent(event);
+            final int action = event.getActionMasked();
+            if (mDragging && (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)) {
+                endDrag();
+            }
+            return handled;
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * 把圆心移到拖动的目标位置：子控件与 Tag 边界直接平移，不测量也不布局
+     */
+    private void applyDrag() {
+        mPercentX = mDragX / getMeasuredWidth();
+        mPercentY = mDragY / getMeasuredHeight();
+        // 与 onMeasure 相同的取整方式，松手后重新布局时圆心不会跳动
+        final int dx = TagLayoutSolver.center(getMeasuredWidth(), mPercentX) - mCenterX;
+        final int dy = TagLayoutSolver.center(getMeasuredHeight(), mPercentY) - mCenterY;
+        if (dx != 0 || dy != 0) {
+            mCenterX += dx;
+            mCenterY += dy;
+            mCenterRect.offset(dx, dy);
+            for (int i = 0; i < mPackedCount; i++) {
+                if (mChildDirections[i] == DIRECTION.CENTER) { // 水波纹铺满 TagViewGroup，静态层在下面重新布局
+                    continue;
+                }
+                final View child = getChildAt(i);
+                child.offsetLeftAndRight(dx);
+                child.offsetTopAndBottom(dy);
+                final int offset = i * TagLayoutSolver.RECT_STRIDE;
+                mChildRects[offset] += dx;
+                mChildRects[offset + 1] += dy;
+                mChildRects[offset + 2] += dx;
+                mChildRects[offset + 3] += dy;
+            }
+            if (mRippleView != null) {
+                mRippleView.setCenterPoint(mCenterX, mCenterY);
+                mRippleView.invalidate();
+            }
+            refreshTagsRect();
+            mLinesDirty = true;
+            mBitmapDirty = true;
+            if (mStaticLayer != null) {
+                layoutStaticLayer();
+                mStaticLayer.invalidate();
+            }
+            invalidate();
+        }
+        mClickListener.onScroll(TagViewGroup.this, mPercentX, mPercentY);
+    }
+
+    /**
+     * 松手时应用最后一次移动，再按新的圆心正常布局一次
+     */
+    private void endDrag() {
+        if (mDragFramePending) {
+            removeCallbacks(mDragFrame);
+            mDragFramePending = false;
+            applyDrag();
+        }
+        mDragging = false;
+        if (mDirectionPlan != null) { // 只重新规划被拖动的标签组
+            mDirectionPlan.replan(this);
+        }
+        requestLayout();
+    }
+
     public void setOnTagGroupClickListener(OnTagGroupClickListener listener) {
         mClickListener = listener;
     }
@@ -605,14 +1474,20 @@ public class TagViewGroup extends ViewGroup {
 
         @Override
         public boolean onScroll(MotionEvent e1, MotionEvent e2, float distanceX, float distanceY) {
-            float currentX = mCenterX - distanceX; // 新的中心坐标是原中心坐标减去每次移动的距离
-            float currentY = mCenterY - distanceY;
-            currentX = Math.min(Math.max(currentX, mChildUsed[0]), getMeasuredWidth() - mChildUsed[2]);
-            currentY = Math.min(Math.max(currentY, mChildUsed[1]), getMeasuredHeight() - mChildUsed[3]);
-            mPercentX = currentX / getMeasuredWidth();
-            mPercentY = currentY / getMeasuredHeight();
-            requestLayout();
-            mClickListener.onScroll(TagViewGroup.this, mPercentX, mPercentY);
+            if (!mDragging) {
+                mDragging = true;
+                mDragX = mCenterX;
+                mDragY = mCenterY;
+            }
+            float currentX = mDragX - distanceX; // 新的中心坐标是原中心坐标减去每次移动的距离
+            float currentY = mDragY - distanceY;
+            // 拖动时子控件尺寸不变，直接使用测量时得到的各个方向的宽度
+            mDragX = Math.min(Math.max(currentX, mChildUsed[TagLayoutSolver.USED_LEFT]), getMeasuredWidth() - mChildUsed[TagLayoutSolver.USED_RIGHT]);
+            mDragY = Math.min(Math.max(currentY, mChildUsed[TagLayoutSolver.USED_TOP]), getMeasuredHeight() - mChildUsed[TagLayoutSolver.USED_BOTTOM]);
+            if (!mDragFramePending) { // 每帧最多更新一次
+                mDragFramePending = true;
+                postOnAnimation(mDragFrame);
+            }
             return true;
         }
 
@@ -631,6 +1506,7 @@ public class TagViewGroup extends ViewGroup {
      * 设置线条宽度
      */
     public void setLineWidth(int lineWidth) {
+        mBitmapDirty = true;
         mLinesWidth = lineWidth;
     }
 
@@ -645,6 +1521,7 @@ public class TagViewGroup extends ViewGroup {
      * 设置中心外圆半径
      */
     public void setRadius(int radius) {
+        mBitmapDirty = true;
         mRadius = radius;
     }
 
@@ -656,7 +1533,9 @@ public class TagViewGroup extends ViewGroup {
     }
 
     public void setInnerRadius(int innerRadius) {
+        bumpGeneration();
         mInnerRadius = innerRadius;
+        mLinesDirty = true;
     }
 
     public int getInnerRadius() {
@@ -669,6 +1548,7 @@ public class TagViewGroup extends ViewGroup {
      * @param vDistance 垂直距离
      */
     public void setVDistance(int vDistance) {
+        bumpGeneration();
         mVerDistance = vDistance;
     }
 
@@ -682,6 +1562,7 @@ public class TagViewGroup extends ViewGroup {
      * @param tiltDistance 垂直距离
      */
     public void setTiltDistance(int tiltDistance) {
+        bumpGeneration();
         mTiltDistance = tiltDistance;
     }
 
@@ -726,23 +1607,195 @@ public class TagViewGroup extends ViewGroup {
 
     private void updateDirection() {
         setVisibility(View.INVISIBLE);
-        final int tagCount = getTagCount(); // tag数目
-        final List<DIRECTION[][]> modes = DirectionUtil.getInstance().getModes();
-        final DIRECTION[][] directions = modes.get(tagCount - 1); // 获取tag数目对应的方向模式
-        mDirectionMode = (++mDirectionMode) % 4; // 取值[0,3)
-        for (int i = 0; i < getChildCount(); i++) {
-            final ITagView child = (ITagView) getChildAt(i);
-            if (child.getDirection() != DIRECTION.CENTER) { // 如果不是ripple
-                child.setDirection(directions[mDirectionMode][i]);
-//                tagList.get(i).setDirection(directions[mDirectionMode][i].getValue()); // 修改保存的模型列表的值
-            }
+        final DirectionUtil directionUtil = DirectionUtil.getInstance();
+        mDirectionMode = (++mDirectionMode) % DirectionUtil.MODE_COUNT; // 取值[0,MODE_COUNT)
+        for (int i = 0; i < mTagCount; i++) { // 按 Tag 下标取方向，不包括水波纹等子控件
+            mTagViews[i].setDirection(directionUtil.getDirection(mTagCount, mDirectionMode, i)); // 获取tag数目对应的方向模式
+        }
+        writeBackDirections(); // 修改保存的模型列表的值
+    }
+
+    /**
+     * 把 Tag 当前的方向写回绑定的模型
+     */
+    private void writeBackDirections() {
+        if (mBoundModel == null) {
+            return;
+        }
+        final List<TagGroupModel.Tag> tags = mBoundModel.getTags();
+        final int count = Math.min(mTagCount, tags.size());
+        for (int i = 0; i < count; i++) {
+            tags.get(i).setDirection(mTagViews[i].getDirection().getValue());
         }
     }
 
+    /**
+     * 为叠放在同一容器中的多个标签组一次规划方向，使标签不超出标签组且尽量不与其他标签组重叠，
+     * 不播放隐藏显示动画，需要在标签组测量之后调用
+     * <p>
+     * 每组按自己的线条长度与在父控件中的位置规划。之后拖动其中一组，松手时只重新规划这一组；
+     * 标签增减后需要再次调用
+     */
+    public static void planDirections(@NonNull List<TagViewGroup> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        final DirectionPlan plan = new DirectionPlan(groups);
+        plan.plan();
+    }
+
+    private void applyPlannedDirections(DIRECTION[] directions, int start, int mode) {
+        for (int i = 0; i < mPackedCount; i++) {
+            ((ITagView) getChildAt(i)).setDirection(directions[start + i]);
+        }
+        mDirectionMode = mode;
+        writeBackDirections();
+        requestLayout();
+    }
+
     /**
      * 设置是否允许父布局拦截onTouchEvent，在设置了OnTagGroupClickListener的情况下才生效
      */
     public void setDisallowIntercept(boolean disallowIntercept) {
         mDisallowIntercept = disallowIntercept;
     }
+
+    /**
+     * {@link #planDirections} 一次规划的多个标签组，保存 {@link TagDirectionPlanner} 与紧凑数组，
+     * 其中一组拖动后用 {@link TagDirectionPlanner#replan} 只重新规划这一组
+     */
+    private static final class DirectionPlan {
+        private final TagViewGroup[] mGroups;
+        private final TagDirectionPlanner mPlanner = new TagDirectionPlanner();
+        private final TagLayoutSolver[] mSolvers;
+        /**
+         * 每组在父控件中的范围 {left, top, right, bottom, ...}
+         */
+        private final int[] mBounds;
+        /**
+         * 每组在父控件中的圆心 {x, y, ...}
+         */
+        private final int[] mCenters;
+        private final int[] mGroupStart;
+        private final int[] mSizes;
+        private final DIRECTION[] mDirections;
+
+        DirectionPlan(List<TagViewGroup> groups) {
+            final int groupCount = groups.size();
+            mGroups = groups.toArray(new TagViewGroup[groupCount]);
+            int childCount = 0;
+            for (TagViewGroup group : mGroups) {
+                if (group.mDirectionPlan != null) { // 标签组只属于最近一次规划
+                    group.mDirectionPlan.release();
+                }
+                childCount += group.mPackedCount;
+            }
+            mSolvers = new TagLayoutSolver[groupCount];
+            mBounds = new int[groupCount * TagLayoutSolver.RECT_STRIDE];
+            mCenters = new int[groupCount * 2];
+            mGroupStart = new int[groupCount + 1];
+            mSizes = new int[childCount * TagLayoutSolver.SIZE_STRIDE];
+            mDirections = new DIRECTION[childCount];
+            int index = 0;
+            for (int g = 0; g < groupCount; g++) {
+                final TagViewGroup group = mGroups[g];
+                group.mDirectionPlan = this;
+                mSolvers[g] = group.mLayoutSolver;
+                mGroupStart[g] = index;
+                System.arraycopy(group.mChildSizes, 0, mSizes, index * TagLayoutSolver.SIZE_STRIDE,
+                        group.mPackedCount * TagLayoutSolver.SIZE_STRIDE);
+                System.arraycopy(group.mChildDirections, 0, mDirections, index, group.mPackedCount);
+                index += group.mPackedCount;
+                updateGeometry(g);
+            }
+            mGroupStart[groupCount] = index;
+        }
+
+        void plan() {
+            mPlanner.plan(mSolvers, mBounds, mCenters, mGroupStart, mGroups.length, mSizes, mDirections);
+            for (int g = 0; g < mGroups.length; g++) {
+                mGroups[g].applyPlannedDirections(mDirections, mGroupStart[g], mPlanner.getMode(g));
+            }
+        }
+
+        /**
+         * 标签组移动后重新规划这一组，标签数量与规划时不同时不再参与规划
+         */
+        void replan(TagViewGroup group) {
+            final int g = indexOf(group);
+            if (g < 0) {
+                return;
+            }
+            if (group.mPackedCount != mGroupStart[g + 1] - mGroupStart[g]) {
+                group.mDirectionPlan = null;
+                return;
+            }
+            updateGeometry(g);
+            group.applyPlannedDirections(mDirections, mGroupStart[g], mPlanner.replan(g));
+        }
+
+        /**
+         * 更新第 g 组的范围与圆心，换算到父控件的坐标
+         */
+        private void updateGeometry(int g) {
+            final TagViewGroup group = mGroups[g];
+            final int offset = g * TagLayoutSolver.RECT_STRIDE;
+            mBounds[offset] = group.getLeft();
+            mBounds[offset + 1] = group.getTop();
+            mBounds[offset + 2] = group.getLeft() + group.getMeasuredWidth();
+            mBounds[offset + 3] = group.getTop() + group.getMeasuredHeight();
+            mCenters[g * 2] = group.getLeft() + group.mCenterX;
+            mCenters[g * 2 + 1] = group.getTop() + group.mCenterY;
+        }
+
+        private int indexOf(TagViewGroup group) {
+            for (int g = 0; g < mGroups.length; g++) {
+                if (mGroups[g] == group) {
+                    return g;
+                }
+            }
+            return -1;
+        }
+
+        private void release() {
+            for (TagViewGroup group : mGroups) {
+                if (group.mDirectionPlan == this) {
+                    group.mDirectionPlan = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 分层模式下的静态层，与水波纹一样方向为 CENTER，由 {@link #layoutStaticLayer} 布局在折线与中心圆的范围
+     */
+    private class StaticLayerView extends View implements ITagView {
+
+        StaticLayerView(Context context) {
+            super(context);
+        }
+
+        /**
+         * 尺寸在布局时确定，测量时使用上次布局的尺寸
+         */
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            setMeasuredDimension(mStaticBounds.width(), mStaticBounds.height());
+        }
+
+        @Override
+        protected void onDraw(Canvas canvas) {
+            canvas.translate(-getLeft(), -getTop()); // 折线与中心圆使用 TagViewGroup 的坐标
+            drawStatic(canvas);
+        }
+
+        @Override
+        public void setDirection(DIRECTION direction) {
+        }
+
+        @Override
+        public DIRECTION getDirection() {
+            return DIRECTION.CENTER;
+        }
+    }
 }
@@ -0,0 +1,297 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+import android.support.annotation.MainThread;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * TagTextView 与 RippleView 的复用池，所有 TagViewGroup 共用
+ * <p>
+ * 开启了 {@link TagViewGroup#setViewPoolEnabled} 的标签组按模型创建标签与添加水波纹时从池中取出，
+ * 移除或离开窗口时放回。放回时清除方向、透明度、下标、文字与动画状态，池满时直接丢弃。
+ * 池中的 View 持有创建时的 Context，只复用给同一 Context 的标签组。第一次放回 Activity 的 View 时注册
+ * {@link Application.ActivityLifecycleCallbacks}，Activity 销毁时移除它的 View，不会持有已销毁的 Activity；
+ * 无法注册时不放回 Activity 的 View
+ */
+@MainThread
+public final class TagViewPool {
+    public static final int DEFAULT_MAX_TAG_VIEWS = 32;
+    public static final int DEFAULT_MAX_RIPPLE_VIEWS = 8;
+
+    private static TagViewPool mInstance;
+
+    private final ArrayList<TagTextView> mTagViews = new ArrayList<>(DEFAULT_MAX_TAG_VIEWS);
+    private final ArrayList<RippleView> mRippleViews = new ArrayList<>(DEFAULT_MAX_RIPPLE_VIEWS);
+    private int mMaxTagViews = DEFAULT_MAX_TAG_VIEWS;
+    private int mMaxRippleViews = DEFAULT_MAX_RIPPLE_VIEWS;
+    private int mTagHitCount;
+    private int mTagMissCount;
+    private int mRippleHitCount;
+    private int mRippleMissCount;
+    /**
+     * 已经注册了 Activity 销毁回调的 Application
+     */
+    private Application mApplication;
+
+    private TagViewPool() {
+    }
+
+    public static TagViewPool getInstance() {
+        if (mInstance == null) {
+            mInstance = new TagViewPool();
+        }
+        return mInstance;
+    }
+
+    /**
+     * 取出一个 TagTextView，池中没有同一 Context 的 View 时新建
+     */
+    public TagTextView acquireTagView(Context context) {
+        final TagTextView view = take(mTagViews, context);
+        if (view != null) {
+            mTagHitCount++;
+            return view;
+        }
+        mTagMissCount++;
+        return new TagTextView(context);
+    }
+
+    /**
+     * 取出一个 RippleView，池中没有同一 Context 的 View 时新建
+     */
+    public RippleView acquireRippleView(Context context) {
+        final RippleView view = take(mRippleViews, context);
+        if (view != null) {
+            mRippleHitCount++;
+            return view;
+        }
+        mRippleMissCount++;
+        return new RippleView(context);
+    }
+
+    /**
+     * 放回 TagTextView，View 必须已经从父布局中移除
+     *
+     * @return 是否放入池中，池满或 View 仍有父布局时返回 false
+     */
+    public boolean release(TagTextView view) {
+        if (view.getParent() != null || mTagViews.size() >= mMaxTagViews || mTagViews.contains(view)
+                || !canHold(view.getContext())) {
+            return false;
+        }
+        resetView(view);
+        view.setText(null);
+        mTagViews.add(view);
+        return true;
+    }
+
+    /**
+     * 放回 RippleView，View 必须已经从父布局中移除
+     *
+     * @return 是否放入池中，池满或 View 仍有父布局时返回 false
+     */
+    public boolean release(RippleView view) {
+        if (view.getParent() != null || mRippleViews.size() >= mMaxRippleViews || mRippleViews.contains(view)
+                || !canHold(view.getContext())) {
+            return false;
+        }
+        view.stopRipple();
+        resetView(view);
+        mRippleViews.add(view);
+        return true;
+    }
+
+    /**
+     * 池中能否保存这个 Context 创建的 View：不属于 Activity，或者 Activity 销毁时能收到回调
+     */
+    private boolean canHold(Context context) {
+        if (findActivity(context) == null) {
+            return true;
+        }
+        final Context application = context.getApplicationContext();
+        if (!(application instanceof Application)) {
+            return false;
+        }
+        if (application != mApplication) {
+            mApplication = (Application) application;
+            mApplication.registerActivityLifecycleCallbacks(new ActivityDestroyedCallback());
+        }
+        return true;
+    }
+
+    /**
+     * Context 所属的 Activity，不属于 Activity 时返回 null
+     */
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * 移除 activity 创建的 View
+     */
+    private void remove(Activity activity) {
+        removeViews(mTagViews, activity);
+        removeViews(mRippleViews, activity);
+    }
+
+    private static void removeViews(ArrayList<? extends View> views, Activity activity) {
+        for (int i = views.size() - 1; i >= 0; i--) {
+            if (findActivity(views.get(i).getContext()) == activity) {
+                views.remove(i);
+            }
+        }
+    }
+
+    /**
+     * 清除标签组设置过的状态
+     */
+    private static void resetView(View view) {
+        ((ITagView) view).setDirection(null);
+        view.setTag(null);
+        view.setAlpha(1);
+        view.setVisibility(View.VISIBLE);
+        view.setLayerType(View.LAYER_TYPE_NONE, null);
+    }
+
+    /**
+     * 从后往前取出同一 Context 创建的 View
+     */
+    private static <T extends View> T take(ArrayList<T> views, Context context) {
+        for (int i = views.size() - 1; i >= 0; i--) {
+            if (views.get(i).getContext() == context) {
+                return views.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 设置池的最大容量，超出的 View 被丢弃
+     */
+    public void setMaxSizes(int maxTagViews, int maxRippleViews) {
+        mMaxTagViews = maxTagViews;
+        mMaxRippleViews = maxRippleViews;
+        trim(mTagViews, maxTagViews);
+        trim(mRippleViews, maxRippleViews);
+    }
+
+    private static void trim(ArrayList<? extends View> views, int maxSize) {
+        while (views.size() > maxSize) {
+            views.remove(views.size() - 1);
+        }
+    }
+
+    public int getMaxTagViews() {
+        return mMaxTagViews;
+    }
+
+    public int getMaxRippleViews() {
+        return mMaxRippleViews;
+    }
+
+    /**
+     * 池中空闲的 TagTextView 数量
+     */
+    public int getTagViewCount() {
+        return mTagViews.size();
+    }
+
+    /**
+     * 池中空闲的 RippleView 数量
+     */
+    public int getRippleViewCount() {
+        return mRippleViews.size();
+    }
+
+    public int getTagHitCount() {
+        return mTagHitCount;
+    }
+
+    public int getTagMissCount() {
+        return mTagMissCount;
+    }
+
+    public int getRippleHitCount() {
+        return mRippleHitCount;
+    }
+
+    public int getRippleMissCount() {
+        return mRippleMissCount;
+    }
+
+    /**
+     * 取出 View 时命中的比例，没有取出过时为 0
+     */
+    public float getHitRate() {
+        final int total = mTagHitCount + mTagMissCount + mRippleHitCount + mRippleMissCount;
+        return total == 0 ? 0 : (float) (mTagHitCount + mRippleHitCount) / total;
+    }
+
+    public void resetStats() {
+        mTagHitCount = 0;
+        mTagMissCount = 0;
+        mRippleHitCount = 0;
+        mRippleMissCount = 0;
+    }
+
+    /**
+     * 清空池中的 View
+     */
+    public void clear() {
+        mTagViews.clear();
+        mRippleViews.clear();
+    }
+
+    /**
+     * Activity 销毁时移除它的 View
+     */
+    private class ActivityDestroyedCallback implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+            remove(activity);
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TagViewPool{tags=" + mTagViews.size() + "/" + mMaxTagViews + ", ripples=" + mRippleViews.size()
+                + "/" + mMaxRippleViews + ", tagHit=" + mTagHitCount + ", tagMiss=" + mTagMissCount
+                + ", rippleHit=" + mRippleHitCount + ", rippleMiss=" + mRippleMissCount + '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.timshinlee.tagviewgroup;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 统计当前线程在一段代码中分配的堆内存字节数
+ * <p>
+ * 依赖 HotSpot 的 com.sun.management.ThreadMXBean，测量本身的开销会先校准再扣除
+ */
+public class AllocationCounter {
+    private final com.sun.management.ThreadMXBean mThreadBean;
+    private final long mThreadId;
+    private final long mOverhead;
+
+    public AllocationCounter() {
+        mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!mThreadBean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("Thread allocated memory is not supported by this JVM");
+        }
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        mThreadId = Thread.currentThread().getId();
+        mOverhead = calibrate();
+    }
+
+    /**
+     * 执行 warmUp 次后再执行 frames 次，返回后 frames 次中分配的字节数
+     */
+    public long count(Runnable frame, int warmUp, int frames) {
+        for (int i = 0; i < warmUp; i++) {
+            frame.run();
+        }
+        final long start = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            frame.run();
+        }
+        final long end = allocatedBytes();
+        return Math.max(0, end - start - mOverhead);
+    }
+
+    /**
+     * 每次执行 scenario 前先执行 setUp，setUp 中的分配不计入，执行 warmUp 次后返回后 runs 次 scenario 中分配的字节数
+     */
+    public long count(Runnable setUp, Runnable scenario, int warmUp, int runs) {
+        for (int i = 0; i < warmUp; i++) {
+            setUp.run();
+            scenario.run();
+        }
+        long total = 0;
+        for (int i = 0; i < runs; i++) {
+            setUp.run();
+            final long start = allocatedBytes();
+            scenario.run();
+            final long end = allocatedBytes();
+            total += Math.max(0, end - start - mOverhead);
+        }
+        return total;
+    }
+
+    private long allocatedBytes() {
+        return mThreadBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * 测量两次连续读取之间的固定开销
+     */
+    private long calibrate() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            final long start = allocatedBytes();
+            final long end = allocatedBytes();
+            overhead = Math.min(overhead, end - start);
+        }
+        return overhead;
+    }
+}
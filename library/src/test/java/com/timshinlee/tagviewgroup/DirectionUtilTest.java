@@ -0,0 +1,98 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DirectionUtil 在标签数超过三个时的方向分配，以及分配结果经 TagLayoutSolver 堆叠后不重叠，在普通 JVM 上运行
+ */
+public class DirectionUtilTest {
+    private static final int MAX_TAG_COUNT = 12;
+
+    private final DirectionUtil mDirectionUtil = DirectionUtil.getInstance();
+
+    @Test
+    public void getDirection_upToThreeTagsUsesFixedModes() {
+        for (int tagCount = 1; tagCount <= 3; tagCount++) {
+            final DIRECTION[][] modes = mDirectionUtil.getModes().get(tagCount - 1);
+            for (int mode = 0; mode < DirectionUtil.MODE_COUNT; mode++) {
+                for (int i = 0; i < tagCount; i++) {
+                    assertEquals(modes[mode][i], mDirectionUtil.getDirection(tagCount, mode, i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getDirection_moreThanThreeTagsSplitsIntoTopCenterBottom() {
+        for (int tagCount = 4; tagCount <= MAX_TAG_COUNT; tagCount++) {
+            for (int mode = 0; mode < DirectionUtil.MODE_COUNT; mode++) {
+                final int[] bandCounts = new int[3];
+                int lastRank = 0;
+                for (int i = 0; i < tagCount; i++) {
+                    final int rank = TagLayoutSolver.verticalRank(mDirectionUtil.getDirection(tagCount, mode, i));
+                    assertTrue("rank " + rank, rank == 0 || rank == 2 || rank == 4);
+                    assertTrue("tag " + i + " of " + tagCount + " above previous", rank >= lastRank);
+                    bandCounts[rank / 2]++;
+                    lastRank = rank;
+                }
+                for (int band = 0; band < 3; band++) {
+                    assertTrue(bandCounts[band] >= tagCount / 3 && bandCounts[band] <= tagCount / 3 + 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getDirection_moreThanThreeTagsChoosesSideByMode() {
+        for (int tagCount = 4; tagCount <= MAX_TAG_COUNT; tagCount++) {
+            for (int i = 0; i < tagCount; i++) {
+                assertFalse(TagLayoutSolver.isLeft(mDirectionUtil.getDirection(tagCount, 0, i)));
+                assertEquals(i % 2 == 0, TagLayoutSolver.isLeft(mDirectionUtil.getDirection(tagCount, 1, i)));
+                assertEquals(i % 2 != 0, TagLayoutSolver.isLeft(mDirectionUtil.getDirection(tagCount, 2, i)));
+                assertTrue(TagLayoutSolver.isLeft(mDirectionUtil.getDirection(tagCount, 3, i)));
+            }
+        }
+    }
+
+    @Test
+    public void stackedLayout_moreThanThreeTagsDoesNotOverlap() {
+        final TagLayoutSolver solver = new TagLayoutSolver(4, 20, 30);
+        for (int tagCount = 4; tagCount <= MAX_TAG_COUNT; tagCount++) {
+            final int[] sizes = new int[tagCount * TagLayoutSolver.SIZE_STRIDE];
+            for (int mode = 0; mode < DirectionUtil.MODE_COUNT; mode++) {
+                final DIRECTION[] directions = new DIRECTION[tagCount];
+                for (int i = 0; i < tagCount; i++) {
+                    directions[i] = mDirectionUtil.getDirection(tagCount, mode, i);
+                }
+                final boolean stacked = TagLayoutSolver.needsStacking(directions, 0, tagCount);
+                if (mode == 0 || mode == DirectionUtil.MODE_COUNT - 1) {
+                    assertTrue(stacked);
+                }
+                for (int i = 0; i < tagCount; i++) {
+                    sizes[i * 2] = 80 + i * 10;
+                    // 堆叠时有的比斜线长；固定位置与原来相同，只在不高于斜线时不重叠
+                    sizes[i * 2 + 1] = stacked ? 10 + i % 3 * 15 : 10 + i % 3 * 5;
+                }
+                final int[] rects = new int[tagCount * TagLayoutSolver.RECT_STRIDE];
+                solver.layout(500, 400, directions, sizes, tagCount, rects);
+                for (int i = 0; i < tagCount; i++) {
+                    for (int j = i + 1; j < tagCount; j++) {
+                        assertFalse(tagCount + " tags, mode " + mode + ": tag " + i + " overlaps tag " + j,
+                                intersects(rects, i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean intersects(int[] rects, int i, int j) {
+        final int a = i * TagLayoutSolver.RECT_STRIDE;
+        final int b = j * TagLayoutSolver.RECT_STRIDE;
+        return rects[a] < rects[b + 2] && rects[b] < rects[a + 2]
+                && rects[a + 1] < rects[b + 3] && rects[b + 1] < rects[a + 3];
+    }
+}
@@ -0,0 +1,64 @@
+package com.timshinlee.tagviewgroup;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowChoreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按固定帧间隔执行回调的 Choreographer
+ * <p>
+ * Robolectric 默认的 Choreographer 立即执行帧回调，一次推进就会播放完整个动画。开启后帧回调推迟到下一个
+ * {@link #FRAME_MILLIS} 的整数倍时刻，帧时间取当前时钟，与设备上按 vsync 执行相同；
+ * {@link #mSkipTraversals} 为 true 时忽略 ViewRootImpl 的布局请求，由测试自己按固定的窗口尺寸布局。
+ * <p>
+ * 通过 robolectric.properties 注册到所有测试，不同的影子配置会让 Robolectric 在同一进程中创建多个沙箱而加载失败，
+ * 未开启时行为与默认的 Choreographer 相同
+ */
+@Implements(Choreographer.class)
+public class ShadowFrameChoreographer extends ShadowChoreographer {
+    static final int FRAME_MILLIS = 16;
+    /**
+     * Choreographer.CALLBACK_TRAVERSAL，隐藏的常量
+     */
+    private static final int CALLBACK_TRAVERSAL = 2;
+
+    static boolean mEnabled;
+    static boolean mSkipTraversals;
+
+    static void disable() {
+        mEnabled = false;
+        mSkipTraversals = false;
+    }
+
+    @Implementation
+    @Override
+    public void postCallbackDelayed(int callbackType, Runnable action, Object token, long delayMillis) {
+        if (!mEnabled) {
+            super.postCallbackDelayed(callbackType, action, token, delayMillis);
+        } else if (callbackType != CALLBACK_TRAVERSAL || !mSkipTraversals) {
+            super.postCallbackDelayed(callbackType, action, token, untilNextFrame(delayMillis));
+        }
+    }
+
+    @Implementation
+    @Override
+    public void postFrameCallbackDelayed(Choreographer.FrameCallback callback, long delayMillis) {
+        super.postFrameCallbackDelayed(callback, mEnabled ? untilNextFrame(delayMillis) : delayMillis);
+    }
+
+    @Implementation
+    @Override
+    public long getFrameTimeNanos() {
+        return mEnabled ? TimeUnit.MILLISECONDS.toNanos(SystemClock.uptimeMillis()) : super.getFrameTimeNanos();
+    }
+
+    private static long untilNextFrame(long delayMillis) {
+        final long now = SystemClock.uptimeMillis();
+        return ((now + delayMillis) / FRAME_MILLIS + 1) * FRAME_MILLIS - now;
+    }
+}
@@ -0,0 +1,351 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagCanvasView 在一个 View 中布局、绘制多个标签组，触摸时找到最上面的标签组或标签，拖动时只重新布局被拖动的标签组
+ * <p>
+ * 标签位置通过 {@link RecordingCanvas} 记录的文字坐标得到，期望位置按 TagCanvasView 相同的尺寸由 {@link TagLayoutSolver} 计算
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagCanvasViewTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    /**
+     * 已创建的标签组数量，用来生成唯一的标签文字
+     */
+    private static int mModelCount;
+
+    private Activity mActivity;
+    private TagCanvasView mView;
+    private RecordingListener mListener;
+    private TagLayoutSolver mSolver;
+    private Paint mTextPaint;
+    private Paint.FontMetricsInt mFontMetrics;
+    private int mPaddingH;
+    private int mPaddingV;
+    private long mDownTime;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mView = new TagCanvasView(mActivity);
+        mView.setRippleEnabled(false);
+        mListener = new RecordingListener();
+        mView.setOnTagGroupClickListener(mListener);
+        mSolver = new TagLayoutSolver(DipConvertUtils.dip2px(mActivity, TagViewGroup.DEFAULT_INNER_RADIUS),
+                DipConvertUtils.dip2px(mActivity, TagViewGroup.DEFAULT_TILT_DISTANCE),
+                DipConvertUtils.dip2px(mActivity, TagViewGroup.DEFAULT_V_DISTANCE));
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 13,
+                mActivity.getResources().getDisplayMetrics()));
+        mFontMetrics = mTextPaint.getFontMetricsInt();
+        mPaddingH = DipConvertUtils.dip2px(mActivity, 4);
+        mPaddingV = DipConvertUtils.dip2px(mActivity, 2);
+    }
+
+    @Test
+    public void layout_packsGroupsAroundTheirOwnCenters() {
+        final TagGroupModel first = createModel(0.3f, 0.2f, DIRECTION.LEFT_CENTER, DIRECTION.RIGHT_TOP_TILT);
+        final TagGroupModel second = createModel(0.6f, 0.7f, DIRECTION.RIGHT_CENTER, DIRECTION.LEFT_BOTTOM_TILT,
+                DIRECTION.TOP_RIGHT);
+        setGroups(first, second);
+        assertEquals(5, mView.getTagCount());
+
+        final RecordingCanvas canvas = draw(null);
+        assertEquals(5, canvas.mTexts.size());
+        assertEquals(2, canvas.mCircles.size()); // 每组一个中心圆
+        assertTextsAt(canvas, first);
+        assertTextsAt(canvas, second);
+        assertArrayEquals(new float[]{center(WIDTH, 0.3f), center(HEIGHT, 0.2f)}, canvas.mCircles.get(0), 0);
+        assertArrayEquals(new float[]{center(WIDTH, 0.6f), center(HEIGHT, 0.7f)}, canvas.mCircles.get(1), 0);
+    }
+
+    @Test
+    public void draw_skipsGroupsOutsideClipBounds() {
+        final TagGroupModel top = createModel(0.5f, 0.1f, DIRECTION.RIGHT_CENTER);
+        final TagGroupModel middle = createModel(0.5f, 0.5f, DIRECTION.RIGHT_CENTER);
+        final TagGroupModel bottom = createModel(0.5f, 0.9f, DIRECTION.RIGHT_CENTER);
+        setGroups(top, middle, bottom);
+
+        final RecordingCanvas canvas = draw(new Rect(0, HEIGHT / 3, WIDTH, HEIGHT * 2 / 3));
+        assertEquals(1, canvas.mTexts.size());
+        assertEquals(name(middle, 0), canvas.mTexts.get(0).mText);
+        assertEquals(1, canvas.mCircles.size());
+    }
+
+    @Test
+    public void touch_dispatchesToTopMostGroupOrTag() {
+        // 两组圆心相同，后添加的一组在上面，只有一个向右的标签
+        final TagGroupModel below = createModel(0.5f, 0.5f, DIRECTION.LEFT_CENTER, DIRECTION.RIGHT_CENTER);
+        final TagGroupModel above = createModel(0.5f, 0.5f, DIRECTION.RIGHT_CENTER);
+        setGroups(below, above);
+
+        tap(center(WIDTH, 0.5f), center(HEIGHT, 0.5f));
+        assertEquals(Arrays.asList("circle 1"), mListener.mEvents);
+
+        mListener.mEvents.clear();
+        final int[] right = expectedRect(above, 0);
+        tap((right[0] + right[2]) / 2f, (right[1] + right[3]) / 2f); // 两组的标签重叠，上面的一组优先
+        assertEquals(Arrays.asList("tag 1 0"), mListener.mEvents);
+
+        mListener.mEvents.clear();
+        final int[] left = expectedRect(below, 0);
+        tap((left[0] + left[2]) / 2f, (left[1] + left[3]) / 2f);
+        assertEquals(Arrays.asList("tag 0 0"), mListener.mEvents);
+
+        mListener.mEvents.clear();
+        assertFalse("touch outside groups not consumed", tap(10, 10));
+        assertTrue(mListener.mEvents.isEmpty());
+    }
+
+    @Test
+    public void drag_relayoutsOnlyTheDraggedGroup() {
+        final TagGroupModel dragged = createModel(0.3f, 0.3f, DIRECTION.RIGHT_CENTER, DIRECTION.LEFT_CENTER);
+        final TagGroupModel other = createModel(0.7f, 0.7f, DIRECTION.RIGHT_CENTER, DIRECTION.LEFT_CENTER);
+        setGroups(dragged, other);
+        final RecordingCanvas before = draw(null);
+
+        final float x = center(WIDTH, 0.3f);
+        final float y = center(HEIGHT, 0.3f);
+        final int step = 40;
+        dispatch(MotionEvent.ACTION_DOWN, x, y, 0);
+        dispatch(MotionEvent.ACTION_MOVE, x + step, y + step, 16);
+        dispatch(MotionEvent.ACTION_MOVE, x + 2 * step, y + 2 * step, 32);
+        dispatch(MotionEvent.ACTION_UP, x + 2 * step, y + 2 * step, 48);
+
+        final RecordingCanvas after = draw(null);
+        final int dx = center(WIDTH, dragged.getPercentX()) - (int) x;
+        final int dy = center(HEIGHT, dragged.getPercentY()) - (int) y;
+        assertTrue("group moved", dx > 0 && dy > 0);
+        for (int i = 0; i < dragged.getTags().size(); i++) {
+            final TextEvent from = before.find(name(dragged, i));
+            final TextEvent to = after.find(name(dragged, i));
+            assertEquals(from.mX + dx, to.mX, 0);
+            assertEquals(from.mY + dy, to.mY, 0);
+        }
+        for (int i = 0; i < other.getTags().size(); i++) {
+            final TextEvent from = before.find(name(other, i));
+            final TextEvent to = after.find(name(other, i));
+            assertEquals(from.mX, to.mX, 0);
+            assertEquals(from.mY, to.mY, 0);
+        }
+        assertEquals(0.7f, other.getPercentX(), 0);
+        assertEquals(0.7f, other.getPercentY(), 0);
+        final String last = mListener.mEvents.get(mListener.mEvents.size() - 1);
+        assertEquals("scroll 0 " + dragged.getPercentX() + " " + dragged.getPercentY(), last);
+    }
+
+    @Test
+    public void listener_receivesClickLongPressAndScroll() {
+        final TagGroupModel model = createModel(0.5f, 0.5f, DIRECTION.RIGHT_CENTER);
+        setGroups(createModel(0.2f, 0.2f, DIRECTION.RIGHT_CENTER), model);
+        final float x = center(WIDTH, 0.5f);
+        final float y = center(HEIGHT, 0.5f);
+
+        tap(x, y);
+        final int[] rect = expectedRect(model, 0);
+        tap((rect[0] + rect[2]) / 2f, (rect[1] + rect[3]) / 2f);
+        assertEquals(Arrays.asList("circle 1", "tag 1 0"), mListener.mEvents);
+
+        mListener.mEvents.clear();
+        dispatch(MotionEvent.ACTION_DOWN, x, y, 0);
+        Robolectric.getForegroundThreadScheduler().advanceBy(ViewConfiguration.getLongPressTimeout()
+                + ViewConfiguration.getTapTimeout(), TimeUnit.MILLISECONDS);
+        dispatch(MotionEvent.ACTION_UP, x, y, ViewConfiguration.getLongPressTimeout() + ViewConfiguration.getTapTimeout());
+        assertEquals(Arrays.asList("longPress 1"), mListener.mEvents);
+
+        mListener.mEvents.clear();
+        dispatch(MotionEvent.ACTION_DOWN, x, y, 0);
+        dispatch(MotionEvent.ACTION_MOVE, x + 100, y, 16);
+        dispatch(MotionEvent.ACTION_UP, x + 100, y, 32);
+        assertEquals(1, mListener.mEvents.size());
+        assertTrue(mListener.mEvents.get(0), mListener.mEvents.get(0).startsWith("scroll 1 "));
+        assertTrue(model.getPercentX() > 0.5f);
+    }
+
+    private void setGroups(TagGroupModel... groups) {
+        mView.setTagGroups(Arrays.asList(groups));
+        mView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 调用 onDraw 记录绘制的文字与圆，clip 为 null 时可见区域是整个 View
+     */
+    private RecordingCanvas draw(Rect clip) {
+        final RecordingCanvas canvas = new RecordingCanvas(clip != null ? clip : new Rect(0, 0, WIDTH, HEIGHT));
+        mView.onDraw(canvas);
+        return canvas;
+    }
+
+    /**
+     * @return 按下事件是否被处理
+     */
+    private boolean tap(float x, float y) {
+        final boolean handled = dispatch(MotionEvent.ACTION_DOWN, x, y, 0);
+        dispatch(MotionEvent.ACTION_UP, x, y, 16);
+        return handled;
+    }
+
+    private boolean dispatch(int action, float x, float y, long offset) {
+        if (action == MotionEvent.ACTION_DOWN) {
+            mDownTime = SystemClock.uptimeMillis();
+        }
+        final MotionEvent event = MotionEvent.obtain(mDownTime, mDownTime + offset, action, x, y, 0);
+        final boolean handled = mView.onTouchEvent(event);
+        event.recycle();
+        return handled;
+    }
+
+    private void assertTextsAt(RecordingCanvas canvas, TagGroupModel model) {
+        for (int i = 0; i < model.getTags().size(); i++) {
+            final int[] rect = expectedRect(model, i);
+            final TextEvent text = canvas.find(name(model, i));
+            assertEquals(rect[0] + mPaddingH, text.mX, 0);
+            assertEquals(rect[1] + mPaddingV - mFontMetrics.top, text.mY, 0);
+        }
+    }
+
+    /**
+     * 与 TagCanvasView 相同的尺寸计算第 index 个标签的位置 {left, top, right, bottom}
+     */
+    private int[] expectedRect(TagGroupModel model, int index) {
+        final TagGroupModel.Tag tag = model.getTags().get(index);
+        final int width = (int) Math.ceil(mTextPaint.measureText(tag.getName())) + 2 * mPaddingH;
+        final int height = mFontMetrics.bottom - mFontMetrics.top + 2 * mPaddingV;
+        final int[] rect = new int[TagLayoutSolver.RECT_STRIDE];
+        mSolver.layoutChild(center(WIDTH, model.getPercentX()), center(HEIGHT, model.getPercentY()),
+                DIRECTION.valueOf(tag.getDirection()), width, height, rect, 0);
+        return rect;
+    }
+
+    private static int center(int size, float percent) {
+        return TagLayoutSolver.center(size, percent);
+    }
+
+    private static String name(TagGroupModel model, int index) {
+        return model.getTags().get(index).getName();
+    }
+
+    /**
+     * 标签文字在所有标签组中唯一
+     */
+    private static TagGroupModel createModel(float percentX, float percentY, DIRECTION... directions) {
+        final int id = mModelCount++;
+        final List<TagGroupModel.Tag> tags = new ArrayList<>();
+        for (int i = 0; i < directions.length; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName("Group " + id + " tag " + i);
+            tag.setDirection(directions[i].getValue());
+            tags.add(tag);
+        }
+        final TagGroupModel model = new TagGroupModel();
+        model.setTags(tags);
+        model.setPercentX(percentX);
+        model.setPercentY(percentY);
+        return model;
+    }
+
+    private static class TextEvent {
+        final String mText;
+        final float mX;
+        final float mY;
+
+        TextEvent(String text, float x, float y) {
+            mText = text;
+            mX = x;
+            mY = y;
+        }
+    }
+
+    /**
+     * 记录文字与圆的绘制位置，可见区域固定为 clip
+     */
+    private static class RecordingCanvas extends Canvas {
+        final List<TextEvent> mTexts = new ArrayList<>();
+        final List<float[]> mCircles = new ArrayList<>();
+        private final Rect mClip;
+
+        RecordingCanvas(Rect clip) {
+            mClip = clip;
+        }
+
+        @Override
+        public boolean getClipBounds(Rect bounds) {
+            bounds.set(mClip);
+            return true;
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            mTexts.add(new TextEvent(text, x, y));
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            mCircles.add(new float[]{cx, cy});
+        }
+
+        TextEvent find(String text) {
+            for (TextEvent event : mTexts) {
+                if (event.mText.equals(text)) {
+                    return event;
+                }
+            }
+            throw new AssertionError(text + " not drawn");
+        }
+    }
+
+    private static class RecordingListener implements TagCanvasView.OnTagGroupClickListener {
+        final List<String> mEvents = new ArrayList<>();
+
+        @Override
+        public void onCircleClick(TagCanvasView view, int groupIndex) {
+            mEvents.add("circle " + groupIndex);
+        }
+
+        @Override
+        public void onTagClick(TagCanvasView view, int groupIndex, int tagIndex) {
+            mEvents.add("tag " + groupIndex + " " + tagIndex);
+        }
+
+        @Override
+        public void onLongPress(TagCanvasView view, int groupIndex) {
+            mEvents.add("longPress " + groupIndex);
+        }
+
+        @Override
+        public void onScroll(TagCanvasView view, int groupIndex, float percentX, float percentY) {
+            mEvents.add("scroll " + groupIndex + " " + percentX + " " + percentY);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagDirectionPlanner 按超出容器与重叠面积选择模式，各组可以使用不同的线条长度与范围，单组重新规划与整体规划结果一致，在普通 JVM 上运行
+ */
+public class TagDirectionPlannerTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 800;
+
+    private final TagDirectionPlanner mPlanner = new TagDirectionPlanner(new TagLayoutSolver(4, 20, 30));
+
+    @Test
+    public void plan_keepsDefaultModeWhenItFits() {
+        final DIRECTION[] directions = plan(mPlanner, new int[]{100, 400}, 3, 200, 40);
+        assertEquals(0, mPlanner.getMode(0));
+        for (DIRECTION direction : directions) {
+            assertFalse(TagLayoutSolver.isLeft(direction));
+        }
+    }
+
+    @Test
+    public void plan_avoidsOverflowingTheContainer() {
+        final DIRECTION[] directions = plan(mPlanner, new int[]{900, 400}, 3, 200, 40);
+        assertEquals(DirectionUtil.MODE_COUNT - 1, mPlanner.getMode(0));
+        for (DIRECTION direction : directions) {
+            assertTrue(TagLayoutSolver.isLeft(direction));
+        }
+    }
+
+    @Test
+    public void plan_avoidsOverlappingOtherGroups() {
+        final DIRECTION[] directions = plan(mPlanner, new int[]{450, 400, 550, 400}, 1, 150, 40);
+        assertTrue(TagLayoutSolver.isLeft(directions[0]));
+        assertFalse(TagLayoutSolver.isLeft(directions[1]));
+    }
+
+    @Test
+    public void plan_prefersOverlapToOverflow() {
+        // 右边的组向左会与左边的组重叠，向右会超出容器，超出的代价更高
+        final DIRECTION[] directions = plan(mPlanner, new int[]{900, 400, 800, 400}, 1, 150, 40);
+        assertTrue(TagLayoutSolver.isLeft(directions[0]));
+    }
+
+    @Test
+    public void replan_matchesFullPlan() {
+        final int[] centers = {150, 150, 500, 400, 850, 650};
+        final int[] groupStart = {0, 3, 7, 10};
+        final int[] sizes = new int[groupStart[3] * TagLayoutSolver.SIZE_STRIDE];
+        for (int i = 0; i < groupStart[3]; i++) {
+            sizes[i * 2] = 100 + i * 5;
+            sizes[i * 2 + 1] = 30;
+        }
+        final DIRECTION[] directions = newDirections(groupStart[3]);
+        directions[groupStart[1]] = DIRECTION.CENTER; // 水波纹不参与规划
+        mPlanner.plan(WIDTH, HEIGHT, centers, groupStart, 3, sizes, directions);
+
+        // 不移动时保持原来的模式
+        for (int g = 0; g < 3; g++) {
+            assertEquals(mPlanner.getMode(g), mPlanner.replan(g));
+        }
+
+        centers[2] = 950;
+        final int mode = mPlanner.replan(1);
+
+        final TagDirectionPlanner full = new TagDirectionPlanner(new TagLayoutSolver(4, 20, 30));
+        final DIRECTION[] expected = newDirections(groupStart[3]);
+        expected[groupStart[1]] = DIRECTION.CENTER;
+        full.plan(WIDTH, HEIGHT, centers, groupStart, 3, sizes, expected);
+        assertEquals(full.getMode(1), mode);
+        assertArrayEquals(expected, directions);
+        assertEquals(DIRECTION.CENTER, directions[groupStart[1]]);
+        for (int g = 0; g < 3; g++) {
+            assertEquals(full.getMode(g), mPlanner.getMode(g));
+        }
+    }
+
+    @Test
+    public void plan_usesEachGroupsBounds() {
+        // 两组圆心横坐标相同，只有第一组的范围在右边截止
+        final TagLayoutSolver solver = new TagLayoutSolver(4, 20, 30);
+        final int[] bounds = {0, 0, WIDTH, HEIGHT / 2, 0, HEIGHT / 2, WIDTH * 2, HEIGHT};
+        final DIRECTION[] directions = planGroups(new TagLayoutSolver[]{solver, solver}, bounds,
+                new int[]{900, 200, 900, 600});
+        assertEquals(DirectionUtil.MODE_COUNT - 1, mPlanner.getMode(0));
+        assertEquals(0, mPlanner.getMode(1));
+        assertTrue(TagLayoutSolver.isLeft(directions[0]));
+        assertFalse(TagLayoutSolver.isLeft(directions[3]));
+    }
+
+    @Test
+    public void plan_usesEachGroupsDistances() {
+        final TagLayoutSolver shortLines = new TagLayoutSolver(4, 20, 30);
+        final TagLayoutSolver longLines = new TagLayoutSolver(60, 20, 30);
+        // 圆心右侧刚好放下短线条的标签组
+        final DIRECTION[] defaults = newDirections(3);
+        for (int i = 0; i < 3; i++) {
+            defaults[i] = DirectionUtil.getInstance().getDirection(3, 0, i);
+        }
+        final int[] sizes = newSizes(3);
+        final int[] used = new int[4];
+        shortLines.computeUsed(defaults, sizes, 0, 3, used);
+        final int x = WIDTH - used[TagLayoutSolver.USED_RIGHT];
+        final int[] bounds = {0, 0, WIDTH, HEIGHT / 2, 0, HEIGHT / 2, WIDTH, HEIGHT};
+        planGroups(new TagLayoutSolver[]{shortLines, longLines}, bounds, new int[]{x, 200, x, 600});
+        assertEquals(0, mPlanner.getMode(0));
+        assertEquals(DirectionUtil.MODE_COUNT - 1, mPlanner.getMode(1));
+
+        // 重新规划时读取当时的线条长度
+        shortLines.setDistances(60, 20, 30);
+        assertEquals(DirectionUtil.MODE_COUNT - 1, mPlanner.replan(0));
+    }
+
+    /**
+     * 每组 3 个 200x40 的标签，使用 mPlanner 按每组的 TagLayoutSolver 与范围规划
+     */
+    private DIRECTION[] planGroups(TagLayoutSolver[] solvers, int[] bounds, int[] centers) {
+        final int groupCount = solvers.length;
+        final int[] groupStart = new int[groupCount + 1];
+        for (int g = 0; g <= groupCount; g++) {
+            groupStart[g] = g * 3;
+        }
+        final DIRECTION[] directions = newDirections(groupCount * 3);
+        mPlanner.plan(solvers, bounds, centers, groupStart, groupCount, newSizes(groupCount * 3), directions);
+        return directions;
+    }
+
+    private static int[] newSizes(int count) {
+        final int[] sizes = new int[count * TagLayoutSolver.SIZE_STRIDE];
+        for (int i = 0; i < count; i++) {
+            sizes[i * 2] = 200;
+            sizes[i * 2 + 1] = 40;
+        }
+        return sizes;
+    }
+
+    /**
+     * 每组 tagCount 个相同尺寸的标签
+     */
+    private static DIRECTION[] plan(TagDirectionPlanner planner, int[] centers, int tagCount, int width, int height) {
+        final int groupCount = centers.length / 2;
+        final int[] groupStart = new int[groupCount + 1];
+        for (int g = 0; g <= groupCount; g++) {
+            groupStart[g] = g * tagCount;
+        }
+        final int[] sizes = new int[groupCount * tagCount * TagLayoutSolver.SIZE_STRIDE];
+        for (int i = 0; i < groupCount * tagCount; i++) {
+            sizes[i * 2] = width;
+            sizes[i * 2 + 1] = height;
+        }
+        final DIRECTION[] directions = newDirections(groupCount * tagCount);
+        planner.plan(WIDTH, HEIGHT, centers, groupStart, groupCount, sizes, directions);
+        return directions;
+    }
+
+    private static DIRECTION[] newDirections(int count) {
+        final DIRECTION[] directions = new DIRECTION[count];
+        Arrays.fill(directions, DIRECTION.RIGHT_CENTER);
+        return directions;
+    }
+}
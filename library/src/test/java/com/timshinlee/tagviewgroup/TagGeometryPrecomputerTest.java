@@ -0,0 +1,172 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 预计算的文字尺寸与 TagViewGroup 中的标签测量结果一致，绑定快照时标签命中文字缓存并直接使用快照中的位置，
+ * 尺寸不一致时退回正常的布局
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagGeometryPrecomputerTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    private Activity mActivity;
+    private TagGeometryPrecomputer mPrecomputer;
+    private TagTextMeasureCache mCache;
+    private TagMetrics.HistogramSink mMetrics;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mPrecomputer = new TagGeometryPrecomputer(new TagViewGroup(mActivity), DIRECT);
+        mCache = TagTextMeasureCache.getInstance();
+        mCache.clear();
+        mMetrics = new TagMetrics.HistogramSink();
+        TagMetrics.setSink(mMetrics);
+    }
+
+    @After
+    public void tearDown() {
+        TagMetrics.setSink(null);
+        mCache.clear();
+    }
+
+    @Test
+    public void compute_sizesMatchTagTextView() {
+        final TagGroupModel model = createModel("Brand", "Price 199", "A much longer label");
+        final TagGeometrySnapshot snapshot = mPrecomputer.compute(model, WIDTH, HEIGHT);
+        assertEquals(3, snapshot.getTagCount());
+        for (int i = 0; i < snapshot.getTagCount(); i++) {
+            final TagTextView tag = new TagTextView(mActivity);
+            tag.setMeasureCacheEnabled(false);
+            tag.setText(snapshot.getName(i));
+            tag.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.AT_MOST),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+            assertEquals(tag.getMeasuredWidth(), snapshot.getTagWidth(i));
+            assertEquals(tag.getMeasuredHeight(), snapshot.getTagHeight(i));
+        }
+    }
+
+    @Test
+    public void applySnapshot_usesSnapshotWithoutMeasuringText() {
+        final TagGeometrySnapshot snapshot = mPrecomputer.compute(createModel("Brand", "Price 199"), WIDTH, HEIGHT);
+        final int misses = mCache.getMissCount();
+        final TagViewGroup group = new TagViewGroup(mActivity);
+        group.applySnapshot(snapshot);
+        measureAndLayout(group);
+        assertEquals(misses, mCache.getMissCount()); // 标签的尺寸都来自预计算写入的缓存
+        assertEquals(1, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_HIT));
+        assertEquals(0, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_MISS));
+        assertTagRects(snapshot, group);
+    }
+
+    @Test
+    public void applySnapshot_trimsExtraTags() {
+        final TagViewGroup group = new TagViewGroup(mActivity);
+        group.bind(createModel("Brand", "Price 199", "Size", "Color"));
+        measureAndLayout(group);
+        final TagGeometrySnapshot snapshot = mPrecomputer.compute(createModel("Shoes", "Bag"), WIDTH, HEIGHT);
+        group.applySnapshot(snapshot);
+        measureAndLayout(group);
+        assertEquals(2, group.getTagCount());
+        assertEquals(1, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_HIT));
+        assertTagRects(snapshot, group);
+    }
+
+    @Test
+    public void applySnapshot_fallsBackWhenSizesDiffer() {
+        final TagGroupModel model = createModel("Brand", "Price 199");
+        final TagGeometrySnapshot snapshot = mPrecomputer.compute(model, WIDTH, HEIGHT);
+        final TagViewGroup group = new TagViewGroup(mActivity);
+        group.applySnapshot(snapshot);
+        final TagTextView tag = (TagTextView) group.getTagList().get(0);
+        tag.setPadding(0, 0, 0, 0);
+        measureAndLayout(group);
+        assertEquals(0, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_HIT));
+        assertEquals(1, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_MISS));
+
+        // 与没有快照时绑定相同数据的布局一致
+        final TagViewGroup expected = new TagViewGroup(mActivity);
+        expected.bind(model);
+        ((TagTextView) expected.getTagList().get(0)).setPadding(0, 0, 0, 0);
+        measureAndLayout(expected);
+        final List<ITagView> tags = group.getTagList();
+        final List<ITagView> expectedTags = expected.getTagList();
+        for (int i = 0; i < tags.size(); i++) {
+            final View view = (View) tags.get(i);
+            final View expectedView = (View) expectedTags.get(i);
+            assertEquals(expectedView.getLeft(), view.getLeft());
+            assertEquals(expectedView.getTop(), view.getTop());
+            assertEquals(expectedView.getRight(), view.getRight());
+            assertEquals(expectedView.getBottom(), view.getBottom());
+        }
+    }
+
+    @Test
+    public void applySnapshot_fallsBackWhenDistancesDiffer() {
+        final TagGeometrySnapshot snapshot = mPrecomputer.compute(createModel("Brand", "Price 199"), WIDTH, HEIGHT);
+        final TagViewGroup group = new TagViewGroup(mActivity);
+        group.setInnerRadius(group.getInnerRadius() + 1);
+        group.applySnapshot(snapshot);
+        measureAndLayout(group);
+        assertEquals(1, mMetrics.getCounter(TagMetrics.COUNTER_SNAPSHOT_MISS));
+    }
+
+    private static TagGroupModel createModel(String... names) {
+        final List<TagGroupModel.Tag> tags = new ArrayList<>();
+        for (String name : names) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName(name);
+            tags.add(tag);
+        }
+        final TagGroupModel model = new TagGroupModel();
+        model.setTags(tags);
+        model.setPercentX(0.4f);
+        model.setPercentY(0.6f);
+        return model;
+    }
+
+    private static void measureAndLayout(TagViewGroup group) {
+        group.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        group.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static void assertTagRects(TagGeometrySnapshot snapshot, TagViewGroup group) {
+        final List<ITagView> tags = group.getTagList();
+        assertEquals(snapshot.getTagCount(), tags.size());
+        final int[] rect = new int[TagLayoutSolver.RECT_STRIDE];
+        for (int i = 0; i < tags.size(); i++) {
+            final View view = (View) tags.get(i);
+            snapshot.getTagRect(i, rect, 0);
+            assertEquals(rect[0], view.getLeft());
+            assertEquals(rect[1], view.getTop());
+            assertEquals(rect[2], view.getRight());
+            assertEquals(rect[3], view.getBottom());
+        }
+    }
+}
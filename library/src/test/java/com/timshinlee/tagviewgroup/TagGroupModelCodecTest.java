@@ -0,0 +1,88 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * TagGroupModelCodec 编码后解码得到相同的模型，长度与 sizeOf 一致
+ */
+public class TagGroupModelCodecTest {
+    @Test
+    public void decode_returnsEncodedModel() {
+        final TagGroupModel model = createModel(0.25f, 0.75f, "Brand", "价格 ¥99", "Emoji 😀", null);
+        final byte[] bytes = TagGroupModelCodec.encode(model);
+        assertEquals(TagGroupModelCodec.sizeOf(model), bytes.length);
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        assertModelEquals(model, TagGroupModelCodec.decode(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void decodeList_returnsEncodedModels() {
+        final List<TagGroupModel> models = new ArrayList<>();
+        models.add(createModel(0.1f, 0.2f, "A"));
+        models.add(createModel(0.3f, 0.4f));
+        models.add(createModel(0.5f, 0.6f, "B", "C", "D"));
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TagGroupModelCodec.sizeOf(models));
+        TagGroupModelCodec.encode(models, buffer);
+        assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        final List<TagGroupModel> decoded = TagGroupModelCodec.decodeList(buffer);
+        assertEquals(models.size(), decoded.size());
+        for (int i = 0; i < models.size(); i++) {
+            assertModelEquals(models.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    public void decode_rejectsNewerVersionAndTruncatedData() {
+        final byte[] bytes = TagGroupModelCodec.encode(createModel(0.5f, 0.5f, "Brand"));
+        try {
+            TagGroupModelCodec.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)));
+            fail("truncated data decoded");
+        } catch (IllegalArgumentException expected) {
+        }
+        bytes[0] = TagGroupModelCodec.VERSION + 1;
+        try {
+            TagGroupModelCodec.decode(ByteBuffer.wrap(bytes));
+            fail("newer version decoded");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static TagGroupModel createModel(float percentX, float percentY, String... names) {
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName(names[i]);
+            tag.setDirection(DirectionUtil.getInstance().getDirection(names.length, 0, i).getValue());
+            tags.add(tag);
+        }
+        final TagGroupModel model = new TagGroupModel();
+        model.setTags(tags);
+        model.setPercentX(percentX);
+        model.setPercentY(percentY);
+        return model;
+    }
+
+    private static void assertModelEquals(TagGroupModel expected, TagGroupModel actual) {
+        assertEquals(expected.getPercentX(), actual.getPercentX(), 0);
+        assertEquals(expected.getPercentY(), actual.getPercentY(), 0);
+        assertEquals(expected.getTags().size(), actual.getTags().size());
+        for (int i = 0; i < expected.getTags().size(); i++) {
+            final TagGroupModel.Tag tag = actual.getTags().get(i);
+            assertEquals(expected.getTags().get(i).getName(), tag.getName());
+            assertEquals(expected.getTags().get(i).getDirection(), tag.getDirection());
+        }
+    }
+}
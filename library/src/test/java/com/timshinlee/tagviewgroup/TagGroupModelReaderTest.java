@@ -0,0 +1,94 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * TagGroupModelReader 从 JSON 流读取标签组，android.util.JsonReader 需要在 Robolectric 中运行
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagGroupModelReaderTest {
+    private static final String PAGE = "["
+            + "{\"percentX\": 0.25, \"percentY\": 0.5, \"id\": 7, \"extra\": {\"a\": [1, 2]},"
+            + " \"tags\": [{\"name\": \"Brand\", \"direction\": 3}, {\"name\": \"价格\", \"direction\": 4, \"link\": null}]},"
+            + "{\"percentX\": 0.75, \"percentY\": 1, \"tags\": [{\"name\": \"Brand\", \"direction\": 42}, {\"name\": null}]}"
+            + "]";
+
+    @Test
+    public void readGroups_mapsFieldsAndSkipsUnknownOnes() throws IOException {
+        final List<TagGroupModel> models = new TagGroupModelReader(new StringReader(PAGE)).readGroups();
+        assertEquals(2, models.size());
+
+        final TagGroupModel first = models.get(0);
+        assertEquals(0.25f, first.getPercentX(), 0);
+        assertEquals(0.5f, first.getPercentY(), 0);
+        assertEquals(2, first.getTags().size());
+        assertEquals("Brand", first.getTags().get(0).getName());
+        assertEquals(DIRECTION.RIGHT_CENTER.getValue(), first.getTags().get(0).getDirection());
+        assertEquals("价格", first.getTags().get(1).getName());
+        assertEquals(DIRECTION.RIGHT_BOTTOM_TILT.getValue(), first.getTags().get(1).getDirection());
+
+        final TagGroupModel second = models.get(1);
+        assertEquals(DIRECTION.CENTER.getValue(), second.getTags().get(0).getDirection()); // 未知的方向视为未设置
+        assertNull(second.getTags().get(1).getName());
+        assertSame(first.getTags().get(0).getName(), second.getTags().get(0).getName());
+    }
+
+    @Test
+    public void readGroup_skipsNullFields() throws IOException {
+        final TagGroupModel model = new TagGroupModelReader(new StringReader(
+                "{\"percentX\": null, \"percentY\": 0.5, \"tags\": null}")).readGroup();
+        assertEquals(0, model.getPercentX(), 0);
+        assertEquals(0.5f, model.getPercentY(), 0);
+        assertEquals(0, model.getTags().size());
+
+        final TagGroupModel other = new TagGroupModelReader(new StringReader(
+                "{\"percentY\": null, \"tags\": [{\"name\": \"Brand\", \"direction\": null}]}")).readGroup();
+        assertEquals(0, other.getPercentY(), 0);
+        assertEquals("Brand", other.getTags().get(0).getName());
+    }
+
+    @Test
+    public void readGroups_deliversEachGroupToListener() throws IOException {
+        final List<TagGroupModel> received = new ArrayList<>();
+        final List<Integer> indexes = new ArrayList<>();
+        final int count = new TagGroupModelReader(new ByteArrayInputStream(PAGE.getBytes("UTF-8")))
+                .readGroups(new TagGroupModelReader.OnGroupReadListener() {
+                    @Override
+                    public void onGroupRead(TagGroupModel model, int index) {
+                        received.add(model);
+                        indexes.add(index);
+                    }
+                });
+        assertEquals(2, count);
+        assertEquals(2, received.size());
+        assertEquals(Integer.valueOf(1), indexes.get(1));
+        assertEquals("价格", received.get(0).getTags().get(1).getName());
+    }
+
+    @Test
+    public void getJsonReader_positionsAtWrappedArray() throws IOException {
+        final TagGroupModelReader reader = new TagGroupModelReader(
+                new StringReader("{\"page\": 2, \"groups\": " + PAGE + "}"));
+        reader.getJsonReader().beginObject();
+        while (!"groups".equals(reader.getJsonReader().nextName())) {
+            reader.getJsonReader().skipValue();
+        }
+        assertEquals(2, reader.readGroups().size());
+        reader.getJsonReader().endObject();
+        reader.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * TagGroupStore 按列保存的标签组与原来的 TagGroupModel 一致，视图的修改写回列中
+ */
+public class TagGroupStoreTest {
+    @Test
+    public void addAll_keepsGroupsAndSharesNames() {
+        final List<TagGroupModel> models = new ArrayList<>();
+        models.add(createModel(0.1f, "Brand", "Price"));
+        models.add(createModel(0.2f));
+        models.add(createModel(0.3f, "Brand", null, "Watch"));
+        final TagGroupStore store = new TagGroupStore(1, 1);
+        store.addAll(models);
+
+        assertEquals(3, store.getGroupCount());
+        assertEquals(5, store.getTagCount());
+        assertEquals(3, store.getNameCount());
+        for (int i = 0; i < models.size(); i++) {
+            assertModelEquals(models.get(i), store.getGroup(i));
+        }
+        assertSame(store.getName(0), store.getName(2));
+        assertNull(store.getName(3));
+    }
+
+    @Test
+    public void removeRange_shiftsFollowingGroups() {
+        final TagGroupStore store = new TagGroupStore();
+        final List<TagGroupModel> models = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            models.add(createModel(i / 10f, "Tag " + i, "Shared"));
+            store.add(models.get(i));
+        }
+        store.removeRange(1, 3);
+        store.remove(0);
+
+        assertEquals(2, store.getGroupCount());
+        assertEquals(4, store.getTagCount());
+        assertModelEquals(models.get(3), store.getGroup(0));
+        assertModelEquals(models.get(4), store.getGroup(1));
+
+        store.compact();
+        assertEquals(3, store.getNameCount());
+        assertModelEquals(models.get(4), store.getGroup(1));
+    }
+
+    @Test
+    public void groupView_writesThroughAndSerializesAsModel() throws IOException, ClassNotFoundException {
+        final TagGroupStore store = new TagGroupStore();
+        store.add(createModel(0.5f, "Brand", "Price"));
+        final TagGroupModel view = store.getGroup(0);
+        view.setPercentX(0.25f);
+        view.getTags().get(1).setDirection(DIRECTION.LEFT_CENTER.getValue());
+        view.getTags().get(0).setName("Renamed");
+
+        assertEquals(0.25f, store.getPercentX(0), 0);
+        assertEquals(DIRECTION.LEFT_CENTER, store.getDirection(1));
+        assertEquals("Renamed", store.getName(0));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(view);
+        out.close();
+        final TagGroupModel copy = (TagGroupModel) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(TagGroupModel.class, copy.getClass());
+        assertModelEquals(view, copy);
+    }
+
+    @Test
+    public void groupView_failsFastAfterRemove() {
+        final TagGroupStore store = new TagGroupStore();
+        store.add(createModel(0.1f, "A"));
+        store.add(createModel(0.2f, "B"));
+        final TagGroupModel view = store.getGroup(1);
+        final TagGroupModel.Tag tag = view.getTags().get(0);
+        store.remove(0);
+        try {
+            view.setPercentX(0.5f);
+            fail("stale view wrote percentX");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            tag.setDirection(DIRECTION.LEFT_CENTER.getValue());
+            fail("stale tag wrote direction");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(0.2f, store.getPercentX(0), 0);
+        assertModelEquals(createModel(0.2f, "B"), store.getGroup(0));
+    }
+
+    private static TagGroupModel createModel(float percent, String... names) {
+        final TagGroupModel model = new TagGroupModel();
+        model.setPercentX(percent);
+        model.setPercentY(1 - percent);
+        for (int i = 0; i < names.length; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName(names[i]);
+            tag.setDirection(DirectionUtil.getInstance().getDirection(names.length, 1, i).getValue());
+            model.getTags().add(tag);
+        }
+        return model;
+    }
+
+    private static void assertModelEquals(TagGroupModel expected, TagGroupModel actual) {
+        assertEquals(expected.getPercentX(), actual.getPercentX(), 0);
+        assertEquals(expected.getPercentY(), actual.getPercentY(), 0);
+        assertEquals(expected.getTags().size(), actual.getTags().size());
+        for (int i = 0; i < expected.getTags().size(); i++) {
+            assertEquals(expected.getTags().get(i).getName(), actual.getTags().get(i).getName());
+            assertEquals(expected.getTags().get(i).getDirection(), actual.getTags().get(i).getDirection());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 网格索引的 Tag 点击检测与线性扫描的结果一致，分别在 10/100/1000 个 Tag 下检查
+ */
+public class TagHitIndexTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int TAG_WIDTH = 160;
+    private static final int TAG_HEIGHT = 48;
+    private static final int QUERIES = 4096;
+
+    @Test
+    public void query_matchesLinearScan() {
+        for (int tagCount : new int[]{10, 100, 1000}) {
+            check(tagCount);
+        }
+    }
+
+    private static void check(int tagCount) {
+        final Random random = new Random(tagCount);
+        final TagHitIndex index = new TagHitIndex();
+        index.resize(WIDTH, HEIGHT);
+        for (int i = 0; i < tagCount; i++) {
+            final float left = random.nextInt(WIDTH - TAG_WIDTH);
+            final float top = random.nextInt(HEIGHT - TAG_HEIGHT);
+            index.set(i, left, top, left + TAG_WIDTH, top + TAG_HEIGHT);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            final float x = random.nextFloat() * WIDTH;
+            final float y = random.nextFloat() * HEIGHT;
+            assertEquals("tags=" + tagCount + " x=" + x + " y=" + y, linearQuery(index, x, y), index.query(x, y));
+        }
+    }
+
+    /**
+     * 原来 isTouchingTags 的做法：按顺序检查每个 Tag
+     */
+    private static int linearQuery(TagHitIndex index, float x, float y) {
+        for (int i = 0; i < index.size(); i++) {
+            if (index.contains(i, x, y)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
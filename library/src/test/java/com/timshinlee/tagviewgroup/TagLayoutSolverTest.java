@@ -0,0 +1,127 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagLayoutSolver 的固定位置布局、堆叠布局与各方向宽度，在普通 JVM 上运行
+ */
+public class TagLayoutSolverTest {
+    private static final int INNER_RADIUS = 4;
+    private static final int TILT_DISTANCE = 20;
+    private static final int VER_DISTANCE = 30;
+    private static final int CENTER_X = 500;
+    private static final int CENTER_Y = 400;
+
+    private final TagLayoutSolver mSolver = new TagLayoutSolver(INNER_RADIUS, TILT_DISTANCE, VER_DISTANCE);
+
+    @Test
+    public void center_truncatesLikeLayout() {
+        assertEquals(540, TagLayoutSolver.center(1080, 0.5f));
+        assertEquals(33, TagLayoutSolver.center(100, 0.339f));
+        assertEquals(0, TagLayoutSolver.center(1080, 0));
+    }
+
+    @Test
+    public void layoutChild_placesTagsAtFixedPositions() {
+        final int[] rect = new int[TagLayoutSolver.RECT_STRIDE];
+        mSolver.layoutChild(CENTER_X, CENTER_Y, DIRECTION.RIGHT_CENTER, 100, 40, rect, 0);
+        assertRect(CENTER_X + TILT_DISTANCE, CENTER_Y - 40, 100, 40, rect, 0);
+        mSolver.layoutChild(CENTER_X, CENTER_Y, DIRECTION.LEFT_TOP_TILT, 100, 40, rect, 0);
+        assertRect(CENTER_X - 100 - TILT_DISTANCE, CENTER_Y - TILT_DISTANCE - 40, 100, 40, rect, 0);
+        mSolver.layoutChild(CENTER_X, CENTER_Y, DIRECTION.RIGHT_BOTTOM, 100, 40, rect, 0);
+        assertRect(CENTER_X, CENTER_Y + VER_DISTANCE - 40, 100, 40, rect, 0);
+    }
+
+    @Test
+    public void computeUsed_fixedDirectionsKeepOriginalMeasure() {
+        final DIRECTION[] directions = {DIRECTION.RIGHT_TOP_TILT, DIRECTION.LEFT_CENTER, DIRECTION.RIGHT_BOTTOM_TILT,
+                DIRECTION.CENTER};
+        final int[] sizes = {100, 40, 60, 40, 80, 40, 10, 10};
+        assertFalse(TagLayoutSolver.needsStacking(directions, 0, directions.length));
+
+        final int[] used = new int[4];
+        mSolver.computeUsed(directions, sizes, directions.length, used);
+        assertEquals(TILT_DISTANCE + 100 + 2 * INNER_RADIUS, used[TagLayoutSolver.USED_RIGHT]);
+        assertEquals(60 + 2 * INNER_RADIUS, used[TagLayoutSolver.USED_LEFT]);
+        assertEquals(40 + TILT_DISTANCE, used[TagLayoutSolver.USED_TOP]);
+        assertEquals(TILT_DISTANCE, used[TagLayoutSolver.USED_BOTTOM]); // 下斜线覆盖初始值，与原来的测量相同
+    }
+
+    @Test
+    public void layout_stacksTagsSharingARegion() {
+        final DIRECTION[] directions = {DIRECTION.CENTER, DIRECTION.RIGHT_CENTER, DIRECTION.RIGHT_TOP_TILT,
+                DIRECTION.RIGHT_CENTER, DIRECTION.RIGHT_CENTER, DIRECTION.LEFT_CENTER};
+        final int[] sizes = {10, 10, 100, 40, 120, 30, 80, 50, 90, 40, 70, 40};
+        assertTrue(TagLayoutSolver.needsStacking(directions, 0, directions.length));
+
+        final int[] rects = new int[directions.length * TagLayoutSolver.RECT_STRIDE];
+        mSolver.layout(CENTER_X, CENTER_Y, directions, sizes, directions.length, rects);
+        for (int i = 1; i < directions.length; i++) {
+            assertEquals(sizes[i * 2], rects[i * 4 + 2] - rects[i * 4]);
+            assertEquals(sizes[i * 2 + 1], rects[i * 4 + 3] - rects[i * 4 + 1]);
+            for (int j = i + 1; j < directions.length; j++) {
+                assertFalse("tag " + i + " overlaps tag " + j, intersects(rects, i, j));
+            }
+        }
+        // 右侧按上下顺序排列：上斜线在最上面，同一区域的标签保持原来的顺序
+        assertTrue(rects[2 * 4 + 3] <= rects[1 * 4 + 1]);
+        assertTrue(rects[1 * 4 + 3] <= rects[3 * 4 + 1]);
+        assertTrue(rects[3 * 4 + 3] <= rects[4 * 4 + 1]);
+        assertContainedInUsed(directions, sizes, directions.length);
+    }
+
+    @Test
+    public void layout_withStartWritesTheSameIndexes() {
+        final DIRECTION[] directions = {DIRECTION.RIGHT_CENTER, DIRECTION.LEFT_CENTER, DIRECTION.RIGHT_CENTER,
+                DIRECTION.RIGHT_CENTER};
+        final int[] sizes = {100, 40, 60, 40, 80, 40, 90, 40};
+        final int[] grouped = new int[directions.length * TagLayoutSolver.RECT_STRIDE];
+        mSolver.layout(CENTER_X, CENTER_Y, directions, sizes, 1, 3, grouped);
+
+        final DIRECTION[] alone = {DIRECTION.LEFT_CENTER, DIRECTION.RIGHT_CENTER, DIRECTION.RIGHT_CENTER};
+        final int[] aloneSizes = {60, 40, 80, 40, 90, 40};
+        final int[] rects = new int[alone.length * TagLayoutSolver.RECT_STRIDE];
+        mSolver.layout(CENTER_X, CENTER_Y, alone, aloneSizes, alone.length, rects);
+        for (int i = 0; i < rects.length; i++) {
+            assertEquals(rects[i], grouped[TagLayoutSolver.RECT_STRIDE + i]);
+        }
+    }
+
+    /**
+     * 堆叠布局的结果在 computeUsed 得到的各方向宽度之内
+     */
+    private void assertContainedInUsed(DIRECTION[] directions, int[] sizes, int count) {
+        final int[] used = new int[4];
+        mSolver.computeUsed(directions, sizes, count, used);
+        final int[] rects = new int[count * TagLayoutSolver.RECT_STRIDE];
+        mSolver.layout(CENTER_X, CENTER_Y, directions, sizes, count, rects);
+        for (int i = 0; i < count; i++) {
+            if (directions[i] == DIRECTION.CENTER) {
+                continue;
+            }
+            final int offset = i * TagLayoutSolver.RECT_STRIDE;
+            assertTrue("left of tag " + i, rects[offset] >= CENTER_X - used[TagLayoutSolver.USED_LEFT]);
+            assertTrue("top of tag " + i, rects[offset + 1] >= CENTER_Y - used[TagLayoutSolver.USED_TOP]);
+            assertTrue("right of tag " + i, rects[offset + 2] <= CENTER_X + used[TagLayoutSolver.USED_RIGHT]);
+            assertTrue("bottom of tag " + i, rects[offset + 3] <= CENTER_Y + used[TagLayoutSolver.USED_BOTTOM]);
+        }
+    }
+
+    private static boolean intersects(int[] rects, int i, int j) {
+        final int a = i * TagLayoutSolver.RECT_STRIDE;
+        final int b = j * TagLayoutSolver.RECT_STRIDE;
+        return rects[a] < rects[b + 2] && rects[b] < rects[a + 2]
+                && rects[a + 1] < rects[b + 3] && rects[b + 1] < rects[a + 3];
+    }
+
+    private static void assertRect(int left, int top, int width, int height, int[] rects, int offset) {
+        assertEquals(left, rects[offset]);
+        assertEquals(top, rects[offset + 1]);
+        assertEquals(left + width, rects[offset + 2]);
+        assertEquals(top + height, rects[offset + 3]);
+    }
+}
@@ -0,0 +1,102 @@
+package com.timshinlee.tagviewgroup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TagTextMeasureCache 的命中、未命中、最近最少使用淘汰与尺寸打包，在普通 JVM 上运行
+ */
+public class TagTextMeasureCacheTest {
+    private static final float TEXT_SIZE = 36f;
+    private static final int PADDING = 8;
+    private static final int SPEC = 0;
+
+    private TagTextMeasureCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new TagTextMeasureCache(TagTextMeasureCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void get_returnsPutSizeAndCountsHitsAndMisses() {
+        assertEquals(TagTextMeasureCache.MISS, get("Brand", TEXT_SIZE));
+        put("Brand", TEXT_SIZE, 120, 48);
+
+        final long size = get("Brand", TEXT_SIZE);
+        assertEquals(120, TagTextMeasureCache.unpackWidth(size));
+        assertEquals(48, TagTextMeasureCache.unpackHeight(size));
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(1, mCache.getMissCount());
+    }
+
+    @Test
+    public void get_missesWhenAnyMeasureInputDiffers() {
+        put("Brand", TEXT_SIZE, 120, 48);
+        assertEquals(TagTextMeasureCache.MISS, get("Brand ", TEXT_SIZE));
+        assertEquals(TagTextMeasureCache.MISS, get("Brand", TEXT_SIZE + 1));
+        assertEquals(TagTextMeasureCache.MISS, mCache.get("Brand", TEXT_SIZE, 1f, 0, null, PADDING, PADDING, PADDING,
+                PADDING, 2, SPEC, SPEC));
+        assertEquals(TagTextMeasureCache.MISS, mCache.get("Brand", TEXT_SIZE, 1f, 0, null, PADDING, PADDING, PADDING,
+                PADDING, 1, 500, SPEC));
+        assertEquals(TagTextMeasureCache.MISS, mCache.get("Brand", TEXT_SIZE, 2f, 0, null, PADDING, PADDING, PADDING,
+                PADDING, 1, SPEC, SPEC));
+        assertEquals(TagTextMeasureCache.MISS, mCache.get("Brand", TEXT_SIZE, 1f, 0.1f, null, PADDING, PADDING,
+                PADDING, PADDING, 1, SPEC, SPEC));
+        assertEquals(6, mCache.getMissCount());
+        assertEquals(0, mCache.getHitCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        mCache.setMaxSize(2);
+        put("A", TEXT_SIZE, 10, 10);
+        put("B", TEXT_SIZE, 20, 20);
+        get("A", TEXT_SIZE); // A 变为最近使用
+        put("C", TEXT_SIZE, 30, 30);
+
+        assertEquals(2, mCache.size());
+        assertEquals(1, mCache.getEvictionCount());
+        assertEquals(TagTextMeasureCache.MISS, get("B", TEXT_SIZE));
+        assertEquals(10, TagTextMeasureCache.unpackWidth(get("A", TEXT_SIZE)));
+        assertEquals(30, TagTextMeasureCache.unpackWidth(get("C", TEXT_SIZE)));
+    }
+
+    @Test
+    public void setMaxSize_shrinkEvictsImmediately() {
+        for (int i = 0; i < 5; i++) {
+            put("Tag " + i, TEXT_SIZE, i, i);
+        }
+        mCache.setMaxSize(2);
+        assertEquals(2, mCache.size());
+        assertEquals(3, mCache.getEvictionCount());
+        assertEquals(TagTextMeasureCache.MISS, get("Tag 2", TEXT_SIZE));
+        assertEquals(4, TagTextMeasureCache.unpackWidth(get("Tag 4", TEXT_SIZE)));
+
+        mCache.clear();
+        assertEquals(0, mCache.size());
+        assertEquals(0, mCache.getEvictionCount());
+    }
+
+    @Test
+    public void pack_roundTripsLargeAndNegativeValues() {
+        final int[] values = {0, 1, 48, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int width : values) {
+            for (int height : values) {
+                final long size = TagTextMeasureCache.pack(width, height);
+                assertEquals(width, TagTextMeasureCache.unpackWidth(size));
+                assertEquals(height, TagTextMeasureCache.unpackHeight(size));
+            }
+        }
+    }
+
+    private long get(String text, float textSize) {
+        return mCache.get(text, textSize, 1f, 0, null, PADDING, PADDING, PADDING, PADDING, 1, SPEC, SPEC);
+    }
+
+    private void put(String text, float textSize, int width, int height) {
+        mCache.put(text, textSize, 1f, 0, null, PADDING, PADDING, PADDING, PADDING, 1, SPEC, SPEC, width, height);
+    }
+}
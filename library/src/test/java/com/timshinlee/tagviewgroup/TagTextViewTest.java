@@ -0,0 +1,113 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TagTextView 只在缓存的键之外影响测量的设置都是默认值时使用 {@link TagTextMeasureCache}，带图片等样式的标签不会拿到其他标签的尺寸
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagTextViewTest {
+    private static final String LABEL = "Brand";
+    private static final int SPEC = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+    private Activity mActivity;
+    private TagTextMeasureCache mCache;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mCache = TagTextMeasureCache.getInstance();
+        mCache.clear();
+    }
+
+    @After
+    public void tearDown() {
+        mCache.clear();
+    }
+
+    @Test
+    public void measure_plainLabelUsesCachedSize() {
+        final TagTextView first = measure(createTag());
+        final TagTextView second = measure(createTag());
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(first.getMeasuredWidth(), second.getMeasuredWidth());
+        assertEquals(first.getMeasuredHeight(), second.getMeasuredHeight());
+    }
+
+    @Test
+    public void setText_afterCacheHitRemeasures() {
+        measure(createTag());
+        final TagTextView tag = measure(createTag());
+        assertEquals(1, mCache.getHitCount());
+        tag.setText(LABEL + LABEL);
+        measure(tag); // 规格相同，没有请求重新测量时 View.measure 直接沿用上次的尺寸
+        assertEquals(2, mCache.getMissCount());
+    }
+
+    @Test
+    public void measure_compoundDrawableSkipsCache() {
+        final int plainWidth = measure(createTag()).getMeasuredWidth();
+        final Drawable icon = new ColorDrawable();
+        icon.setBounds(0, 0, 40, 40);
+        final TagTextView tag = createTag();
+        tag.setCompoundDrawables(icon, null, null, null);
+        tag.setCompoundDrawablePadding(8);
+        measure(tag);
+        assertEquals(0, mCache.getHitCount());
+        assertTrue(tag.getMeasuredWidth() >= plainWidth + 48);
+    }
+
+    @Test
+    public void measure_nonDefaultTextSettingsSkipCache() {
+        measure(createTag());
+        final TagTextView[] tags = new TagTextView[8];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = createTag();
+        }
+        tags[0].setEllipsize(TextUtils.TruncateAt.END);
+        tags[1].setLineSpacing(10, 1.5f);
+        tags[2].setMinWidth(500);
+        tags[3].setMaxWidth(10);
+        tags[4].setEms(20);
+        tags[5].setIncludeFontPadding(false);
+        tags[6].setAllCaps(true);
+        tags[7].setMinimumHeight(200);
+        for (TagTextView tag : tags) {
+            measure(tag);
+        }
+        assertEquals(0, mCache.getHitCount());
+        assertEquals(500, tags[2].getMeasuredWidth());
+        assertEquals(200, tags[7].getMeasuredHeight());
+    }
+
+    private TagTextView createTag() {
+        final TagTextView tag = new TagTextView(mActivity);
+        tag.setText(LABEL);
+        return tag;
+    }
+
+    /**
+     * 与父控件相同，测量后布局，布局清除重新测量的标记
+     */
+    private static TagTextView measure(TagTextView tag) {
+        tag.measure(SPEC, SPEC);
+        tag.layout(0, 0, tag.getMeasuredWidth(), tag.getMeasuredHeight());
+        return tag;
+    }
+}
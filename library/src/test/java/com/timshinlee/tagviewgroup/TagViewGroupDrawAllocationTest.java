@@ -0,0 +1,128 @@
+package com.timshinlee.tagviewgroup;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 稳定状态下 TagViewGroup 绘制过程不应分配内存
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagViewGroupDrawAllocationTest {
+    private static final int WARM_UP_FRAMES = 100; // Robolectric 的影子类在前几十次调用中会分配内存
+    private static final int FRAMES = 200;
+
+    private TagViewGroup mGroup;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mGroup = new TagViewGroup(RuntimeEnvironment.application);
+        mGroup.setPercent(0.5f, 0.5f);
+        mGroup.addTag(createTag("Brand", DIRECTION.RIGHT_TOP_TILT));
+        mGroup.addTag(createTag("Product", DIRECTION.RIGHT_CENTER));
+        mGroup.addTag(createTag("Price", DIRECTION.LEFT_BOTTOM_TILT));
+        mGroup.addRipple();
+        mGroup.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY));
+        mGroup.layout(0, 0, 1080, 1080);
+        mCanvas = new NoOpCanvas();
+    }
+
+    @Test
+    public void dispatchDraw_steadyState_doesNotAllocate() {
+        long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.dispatchDraw(mCanvas);
+            }
+        }, WARM_UP_FRAMES, FRAMES);
+        assertEquals("bytes allocated in " + FRAMES + " frames", 0, allocated);
+    }
+
+    @Test
+    public void dispatchDraw_linesRevealing_doesNotAllocate() {
+        long allocated = new AllocationCounter().count(new Runnable() {
+            private int mFrame;
+
+            @Override
+            public void run() {
+                mGroup.setLinesRatio((mFrame++ % 100) / 100f); // 模拟线条显示动画
+                mGroup.dispatchDraw(mCanvas);
+            }
+        }, WARM_UP_FRAMES, FRAMES);
+        assertEquals("bytes allocated in " + FRAMES + " frames", 0, allocated);
+    }
+
+    @Test
+    public void dispatchDraw_bitmapOverBudget_doesNotRasterizeEachFrame() {
+        final TagBitmapCache cache = TagBitmapCache.getInstance();
+        final long maxBytes = cache.getMaxBytes();
+        cache.setMaxBytes(0);
+        try {
+            mGroup.setBitmapCacheEnabled(true);
+            long allocated = new AllocationCounter().count(new Runnable() {
+                @Override
+                public void run() {
+                    mGroup.dispatchDraw(mCanvas);
+                }
+            }, WARM_UP_FRAMES, FRAMES);
+            assertEquals("bytes allocated in " + FRAMES + " frames", 0, allocated);
+        } finally {
+            mGroup.setBitmapCacheEnabled(false);
+            cache.setMaxBytes(maxBytes);
+        }
+    }
+
+    private TagTextView createTag(String text, DIRECTION direction) {
+        TagTextView tag = new TagTextView(RuntimeEnvironment.application);
+        tag.setText(text);
+        tag.setDirection(direction);
+        return tag;
+    }
+
+    /**
+     * 不做实际绘制的 Canvas，避免把 Robolectric 记录绘制指令的开销算进去
+     */
+    private static class NoOpCanvas extends Canvas {
+        @Override
+        public void drawPath(Path path, Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        }
+    }
+}
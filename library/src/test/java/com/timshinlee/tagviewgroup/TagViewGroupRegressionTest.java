@@ -0,0 +1,596 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在 Robolectric 中运行真实的 TagViewGroup 场景，限制每个场景的测量、布局、绘制次数与内存分配
+ * <p>
+ * 通过 {@link ShadowFrameChoreographer} 每 {@link #FRAME_MILLIS} 毫秒一帧：执行动画与 post 的任务，窗口需要布局时按固定尺寸测量布局，标签组被标记重绘时绘制一次。
+ * 次数通过 {@link TagMetrics.HistogramSink} 统计，内存分配通过 {@link AllocationCounter} 统计，
+ * 分配上限包含 Robolectric 调度任务的开销，约为当前实测值的两倍
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagViewGroupRegressionTest {
+    private static final int FRAME_MILLIS = ShadowFrameChoreographer.FRAME_MILLIS;
+    private static final int MAX_FRAMES = 600;
+    private static final int WINDOW_WIDTH = 1080;
+    private static final int WINDOW_HEIGHT = 1920;
+    private static final int TAG_COUNT = 3;
+    private static final int DRAG_STEPS = 20;
+    private static final int DRAG_STEP_PX = 4;
+    private static final int WARM_UP_RUNS = 3;
+    private static final int RUNS = 5;
+
+    /**
+     * 绘制上限为当前实测值，略多于按动画时长计算的帧数(显示 900ms 约 57 帧，隐藏 800ms 约 50 帧)，
+     * 不依赖场景经过的帧数，每帧重复绘制会使次数翻倍
+     */
+    private static final int MAX_SHOW_DRAWS = 61;
+    private static final int MAX_HIDE_SHOW_DRAWS = 115;
+    /**
+     * 拖动时每次移动最多绘制一次，超过触摸阈值之前不绘制
+     */
+    private static final int MAX_DRAG_DRAWS = DRAG_STEPS;
+
+    private static final long MAX_ADD_TAG_LIST_BYTES = 400 * 1024;
+    private static final long MAX_CHANGE_DIRECTION_BYTES = 2 * 1024 * 1024;
+    private static final long MAX_DRAG_BYTES = 40 * 1024;
+    private static final long MAX_SHOW_BYTES = 1200 * 1024;
+    private static final long MAX_HIDE_BYTES = 2 * 1024 * 1024;
+
+    private Activity mActivity;
+    private Container mContainer;
+    private Scheduler mScheduler;
+    private Canvas mCanvas;
+    private TagMetrics.HistogramSink mMetrics;
+    private TagViewGroup mGroup;
+    private RecordingClickListener mClickListener;
+    private List<ITagView> mPendingTags;
+    private int mFrameCount;
+
+    @Before
+    public void setUp() {
+        ShadowFrameChoreographer.mEnabled = true;
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mContainer = new Container(mActivity);
+        mActivity.setContentView(mContainer);
+        mScheduler = Robolectric.getForegroundThreadScheduler();
+        mCanvas = new Canvas();
+        mMetrics = new TagMetrics.HistogramSink();
+        TagMetrics.setSink(mMetrics);
+        settle(); // 第一次布局把 View 树关联到窗口
+        ShadowFrameChoreographer.mSkipTraversals = true;
+    }
+
+    @After
+    public void tearDown() {
+        TagMetrics.setSink(null);
+        ShadowFrameChoreographer.disable();
+    }
+
+    @Test
+    public void addTagList_measuresAndLaysOutOnce() {
+        attachGroup(false);
+        mPendingTags = createTags(TAG_COUNT);
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.addTagList(mPendingTags);
+            }
+        });
+        assertEquals(TAG_COUNT, mGroup.getTagCount());
+        assertSpansAtMost(1, 1, 1, frames);
+
+        final long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                attachGroup(false);
+                mPendingTags = createTags(TAG_COUNT);
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                mGroup.addTagList(mPendingTags);
+                settle();
+            }
+        }, WARM_UP_RUNS, RUNS);
+        assertAllocatedAtMost(MAX_ADD_TAG_LIST_BYTES, allocated / RUNS);
+    }
+
+    @Test
+    public void addTagsFromModel_measuresAndLaysOutOnce() {
+        attachGroup(false);
+        final TagGroupModel model = createModel(TAG_COUNT);
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.addTags(model);
+            }
+        });
+        assertEquals(TAG_COUNT, mGroup.getTagCount());
+        for (int i = 0; i < TAG_COUNT; i++) {
+            final ITagView tag = mGroup.getTagList().get(i);
+            assertEquals("Tag " + i, ((TagTextView) tag).getText().toString());
+            assertEquals(model.getTags().get(i).getDirection(), tag.getDirection().getValue());
+        }
+        assertSpansAtMost(1, 1, 1, frames);
+    }
+
+    @Test
+    public void bind_reusesTagsAndRelayoutsOnlyWhenChanged() {
+        attachGroup(false);
+        final TagGroupModel model = createModel(TAG_COUNT);
+        mGroup.bind(model);
+        settle();
+        final List<ITagView> tags = mGroup.getTagList();
+
+        int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.bind(model);
+            }
+        });
+        assertSpansAtMost(0, 0, 0, frames);
+
+        final TagGroupModel renamed = createModel(TAG_COUNT - 1);
+        renamed.getTags().get(0).setName("Renamed");
+        frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.bind(renamed);
+            }
+        });
+        assertSpansAtMost(1, 1, 1, frames);
+        assertEquals(TAG_COUNT - 1, mGroup.getTagCount());
+        assertEquals(TAG_COUNT - 1, mGroup.getChildCount());
+        assertTrue("tag reused", mGroup.getTagList().get(0) == tags.get(0));
+        assertEquals("Renamed", ((TagTextView) tags.get(0)).getText().toString());
+    }
+
+    @Test
+    public void addTagList_growingDuringAnimationKeepsLastLayout() {
+        attachGroup(true);
+        mGroup.addTagList(createTags(TAG_COUNT)); // 超过预分配的数量，扩容后还没有重新测量
+        TagViewGroup.CIRCLE_INNER_RADIUS.set(mGroup, TagViewGroup.CIRCLE_INNER_RADIUS.get(mGroup) + 1); // 动画帧在测量之前更新折线
+        settle();
+        assertEquals(TAG_COUNT * 2, mGroup.getTagCount());
+    }
+
+    @Test
+    public void changeDirection_writesDirectionsBackToBoundModel() {
+        attachGroup(false);
+        final TagGroupModel model = createModel(TAG_COUNT);
+        mGroup.bind(model);
+        mGroup.setShowAnimator(AnimatorUtils.getTagShowAnimator(mGroup));
+        mGroup.setHideAnimator(AnimatorUtils.getTagHideAnimator(mGroup));
+        settle();
+        mGroup.changeDirection(model.getTags());
+        settle();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            assertEquals(mGroup.getTagList().get(i).getDirection().getValue(), model.getTags().get(i).getDirection());
+        }
+
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.bind(model);
+            }
+        });
+        assertSpansAtMost(0, 0, 0, frames);
+    }
+
+    @Test
+    public void changeDirection_relayoutsOnceAndDrawsAtMostOncePerFrame() {
+        attachGroup(true);
+        final List<TagGroupModel.Tag> tags = Collections.emptyList();
+        final DIRECTION before = mGroup.getTagList().get(0).getDirection();
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.changeDirection(tags);
+            }
+        });
+        assertTrue("direction changed", mGroup.getTagList().get(0).getDirection() != before);
+        assertSpansAtMost(1, 1, MAX_HIDE_SHOW_DRAWS, frames);
+
+        final long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.changeDirection(tags);
+                settle();
+            }
+        }, WARM_UP_RUNS, RUNS);
+        assertAllocatedAtMost(MAX_CHANGE_DIRECTION_BYTES, allocated / RUNS);
+    }
+
+    @Test
+    public void drag_doesNotRelayoutUntilRelease() {
+        attachGroup(true);
+        final MotionEvent[] events = createDrag();
+        mMetrics.reset();
+        final int startFrame = mFrameCount;
+        for (int i = 0; i < events.length - 1; i++) { // 松手之前不应测量与布局
+            mGroup.dispatchTouchEvent(events[i]);
+            frame();
+        }
+        assertSpansAtMost(0, 0, MAX_DRAG_DRAWS, mFrameCount - startFrame);
+        final View tag = (View) mGroup.getTagList().get(0);
+        final int draggedLeft = tag.getLeft();
+        final int draggedTop = tag.getTop();
+        mGroup.dispatchTouchEvent(events[events.length - 1]);
+        settle();
+        assertSpansAtMost(1, 1, MAX_DRAG_DRAWS + 1, mFrameCount - startFrame);
+        assertEquals("layout after release keeps the dragged position", draggedLeft, tag.getLeft());
+        assertEquals("layout after release keeps the dragged position", draggedTop, tag.getTop());
+        assertTrue("group moved", mClickListener.mPercentX > 0.5f && mClickListener.mPercentY > 0.5f);
+
+        final long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                for (MotionEvent event : events) {
+                    mGroup.dispatchTouchEvent(event);
+                    frame();
+                }
+                settle();
+            }
+        }, WARM_UP_RUNS, RUNS);
+        assertAllocatedAtMost(MAX_DRAG_BYTES, allocated / RUNS);
+    }
+
+    @Test
+    public void layeredRendering_staticLayerCoversLinesAndCircleOnly() {
+        attachGroup(true);
+        mGroup.setLayeredRendering(true);
+        settle();
+        final View layer = mGroup.getChildAt(mGroup.getChildCount() - 1); // 静态层始终在最上面
+        final View tag = (View) mGroup.getTagList().get(0);
+        assertTrue("layer smaller than group", layer.getWidth() < mGroup.getWidth() && layer.getHeight() < mGroup.getHeight());
+        assertTrue("layer covers circle", layer.getLeft() < mGroup.getWidth() / 2 && layer.getRight() > mGroup.getWidth() / 2
+                && layer.getTop() < mGroup.getHeight() / 2 && layer.getBottom() > mGroup.getHeight() / 2);
+        for (ITagView each : mGroup.getTagList()) {
+            assertEquals("tags are not layered", View.LAYER_TYPE_NONE, ((View) each).getLayerType());
+        }
+
+        final int offsetX = layer.getLeft() - tag.getLeft();
+        final int offsetY = layer.getTop() - tag.getTop();
+        final int tagLeft = tag.getLeft();
+        final MotionEvent[] events = createDrag();
+        for (int i = 0; i < events.length - 1; i++) {
+            mGroup.dispatchTouchEvent(events[i]);
+            frame();
+        }
+        assertTrue("tag moved", tag.getLeft() != tagLeft);
+        assertEquals("layer follows drag", offsetX, layer.getLeft() - tag.getLeft());
+        assertEquals("layer follows drag", offsetY, layer.getTop() - tag.getTop());
+        mGroup.dispatchTouchEvent(events[events.length - 1]);
+        settle();
+        assertEquals("layer kept after release", offsetX, layer.getLeft() - tag.getLeft());
+    }
+
+    @Test
+    public void planDirections_dragReplansOnlyTheDraggedGroup() {
+        attachGroup(true);
+        // 右边的标签组在拖动终点右侧不远处，拖动后向右的标签会与它重叠
+        final float endX = mGroup.getWidth() / 2f + DRAG_STEPS * DRAG_STEP_PX;
+        final TagViewGroup other = new TagViewGroup(mActivity);
+        other.addTagList(createTags(TAG_COUNT));
+        other.setPercent((endX + 30) / mGroup.getWidth(), 0.5f + DRAG_STEPS * DRAG_STEP_PX / (float) mGroup.getHeight());
+        mContainer.addView(other, 0, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT)); // 在被拖动的标签组下面
+        settle();
+        final List<TagViewGroup> groups = new ArrayList<>();
+        groups.add(mGroup);
+        groups.add(other);
+        TagViewGroup.planDirections(groups);
+        settle();
+        final List<DIRECTION> directions = directionsOf(mGroup);
+        final List<DIRECTION> otherDirections = directionsOf(other);
+        for (DIRECTION direction : directions) {
+            assertFalse("dragged group starts on the right", TagLayoutSolver.isLeft(direction));
+        }
+
+        final MotionEvent[] events = createDrag();
+        for (MotionEvent event : events) {
+            mGroup.dispatchTouchEvent(event);
+            frame();
+        }
+        settle();
+        assertFalse("dragged group replanned", directions.equals(directionsOf(mGroup)));
+        assertEquals("other group not replanned", otherDirections, directionsOf(other));
+        final View otherTag = (View) other.getTagList().get(0);
+        for (ITagView tag : mGroup.getTagList()) {
+            assertTrue("dragged group does not overlap the other group", ((View) tag).getRight() <= otherTag.getLeft());
+        }
+
+        // 与重新整体规划的结果一致
+        final List<DIRECTION> replanned = directionsOf(mGroup);
+        TagViewGroup.planDirections(groups);
+        assertEquals(replanned, directionsOf(mGroup));
+        assertEquals(otherDirections, directionsOf(other));
+    }
+
+    @Test
+    public void detachWhileDragging_dropsPendingMoveAndEndsDrag() {
+        attachGroup(true);
+        mGroup.setBitmapCacheEnabled(true);
+        final MotionEvent[] events = createDrag();
+        for (int i = 0; i < events.length - 1; i++) { // 最后一次移动还没有应用
+            mGroup.dispatchTouchEvent(events[i]);
+            if (i < events.length - 2) {
+                frame();
+            }
+        }
+        final float percentX = mClickListener.mPercentX;
+        final TagViewGroup group = mGroup;
+        mGroup = null; // 离开窗口后不会被绘制
+        mContainer.removeView(group);
+        settle();
+        assertEquals(percentX, mClickListener.mPercentX, 0);
+
+        mGroup = group;
+        mContainer.addView(group);
+        settle();
+        mMetrics.reset();
+        group.invalidate();
+        settle();
+        assertTrue("bitmap cache used after reattach", mMetrics.getCounter(TagMetrics.COUNTER_BITMAP_CACHE_HIT)
+                + mMetrics.getCounter(TagMetrics.COUNTER_BITMAP_CACHE_MISS) > 0);
+    }
+
+    @Test
+    public void showAnimation_doesNotRelayout() {
+        attachGroup(true);
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.showWithAnimation();
+            }
+        });
+        assertSpansAtMost(0, 0, MAX_SHOW_DRAWS, frames);
+
+        final long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.showWithAnimation();
+                settle();
+            }
+        }, WARM_UP_RUNS, RUNS);
+        assertAllocatedAtMost(MAX_SHOW_BYTES, allocated / RUNS);
+    }
+
+    @Test
+    public void hideAnimation_relayoutsOnceAndDrawsAtMostOncePerFrame() {
+        attachGroup(true);
+        final int frames = runScenario(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.hideWithAnimation();
+            }
+        });
+        assertTrue("visible after hide and show", mGroup.getVisibility() == View.VISIBLE);
+        assertSpansAtMost(1, 1, MAX_HIDE_SHOW_DRAWS, frames); // 隐藏结束时更新方向重新布局一次，再播放显示动画
+
+        final long allocated = new AllocationCounter().count(new Runnable() {
+            @Override
+            public void run() {
+                mGroup.hideWithAnimation();
+                settle();
+            }
+        }, WARM_UP_RUNS, RUNS);
+        assertAllocatedAtMost(MAX_HIDE_BYTES, allocated / RUNS);
+    }
+
+    @Test
+    public void hideAnimation_assignsDirectionsByTagIndex() {
+        attachGroup(false);
+        mGroup.addRipple(); // 水波纹在标签之前，子控件下标与标签下标不同
+        ((RippleView) mGroup.getChildAt(0)).stopRipple(); // 水波纹一直播放，推进不到空闲
+        mGroup.addTagList(createTags(TAG_COUNT));
+        mGroup.setShowAnimator(AnimatorUtils.getTagShowAnimator(mGroup));
+        mGroup.setHideAnimator(AnimatorUtils.getTagHideAnimator(mGroup));
+        settle();
+        mGroup.hideWithAnimation();
+        settle();
+        final List<ITagView> tags = mGroup.getTagList();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            assertEquals(DirectionUtil.getInstance().getDirection(TAG_COUNT, 1, i), tags.get(i).getDirection());
+        }
+    }
+
+    /**
+     * 清空统计后执行 scenario 并推进到空闲
+     *
+     * @return 经过的帧数
+     */
+    private int runScenario(Runnable scenario) {
+        mMetrics.reset();
+        final int startFrame = mFrameCount;
+        scenario.run();
+        settle();
+        return mFrameCount - startFrame;
+    }
+
+    /**
+     * 测量次数包括因为没有变化而跳过子控件测量的次数，frames 只用于失败信息
+     */
+    private void assertSpansAtMost(int measures, int layouts, int draws, int frames) {
+        final long measureCount = mMetrics.getSpanCount(TagMetrics.SPAN_MEASURE);
+        final long layoutCount = mMetrics.getSpanCount(TagMetrics.SPAN_LAYOUT);
+        final long drawCount = mMetrics.getSpanCount(TagMetrics.SPAN_DRAW);
+        final String counts = "measure=" + measureCount + " layout=" + layoutCount + " draw=" + drawCount
+                + " frames=" + frames;
+        assertTrue(counts, measureCount <= measures);
+        assertTrue(counts, layoutCount <= layouts);
+        assertTrue(counts, drawCount <= draws);
+    }
+
+    private static void assertAllocatedAtMost(long maxBytes, long bytes) {
+        assertTrue("allocated " + bytes + " bytes per run, limit " + maxBytes, bytes <= maxBytes);
+    }
+
+    /**
+     * 新建标签组添加到窗口中并完成第一次布局，withTags 为 true 时添加标签并设置 {@link AnimatorUtils} 的显示隐藏动画
+     */
+    private void attachGroup(boolean withTags) {
+        mContainer.removeAllViews();
+        mGroup = new TagViewGroup(mActivity);
+        mGroup.setPercent(0.5f, 0.5f);
+        mClickListener = new RecordingClickListener();
+        mGroup.setOnTagGroupClickListener(mClickListener);
+        if (withTags) {
+            mGroup.addTagList(createTags(TAG_COUNT));
+            mGroup.setShowAnimator(AnimatorUtils.getTagShowAnimator(mGroup));
+            mGroup.setHideAnimator(AnimatorUtils.getTagHideAnimator(mGroup));
+        }
+        mContainer.addView(mGroup, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        settle();
+    }
+
+    private static List<DIRECTION> directionsOf(TagViewGroup group) {
+        final List<DIRECTION> directions = new ArrayList<>();
+        for (ITagView tag : group.getTagList()) {
+            directions.add(tag.getDirection());
+        }
+        return directions;
+    }
+
+    private List<ITagView> createTags(int count) {
+        final List<ITagView> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final TagTextView tag = new TagTextView(mActivity);
+            tag.setText("Tag " + i);
+            tag.setDirection(DirectionUtil.getInstance().getDirection(count, 0, i));
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private static TagGroupModel createModel(int count) {
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName("Tag " + i);
+            tag.setDirection(DirectionUtil.getInstance().getDirection(count, 0, i).getValue());
+            tags.add(tag);
+        }
+        final TagGroupModel model = new TagGroupModel();
+        model.setTags(tags);
+        model.setPercentX(0.5f);
+        model.setPercentY(0.5f);
+        return model;
+    }
+
+    /**
+     * 从圆心按下，每帧向右下移动一步，共 {@link #DRAG_STEPS} 步后抬起
+     */
+    private MotionEvent[] createDrag() {
+        final float x = mGroup.getWidth() / 2f;
+        final float y = mGroup.getHeight() / 2f;
+        final long downTime = SystemClock.uptimeMillis();
+        final MotionEvent[] events = new MotionEvent[DRAG_STEPS + 2];
+        events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+        for (int i = 1; i <= DRAG_STEPS; i++) {
+            events[i] = MotionEvent.obtain(downTime, downTime + i * FRAME_MILLIS, MotionEvent.ACTION_MOVE,
+                    x + i * DRAG_STEP_PX, y + i * DRAG_STEP_PX, 0);
+        }
+        events[DRAG_STEPS + 1] = MotionEvent.obtain(downTime, downTime + (DRAG_STEPS + 1) * FRAME_MILLIS,
+                MotionEvent.ACTION_UP, x + DRAG_STEPS * DRAG_STEP_PX, y + DRAG_STEPS * DRAG_STEP_PX, 0);
+        return events;
+    }
+
+    /**
+     * 推进一帧：执行这一帧的动画与任务，窗口需要布局时布局一次，标签组需要重绘时绘制一次
+     */
+    private void frame() {
+        mScheduler.advanceBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        final View root = mActivity.getWindow().getDecorView();
+        if (root.isLayoutRequested()) {
+            root.measure(View.MeasureSpec.makeMeasureSpec(WINDOW_WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(WINDOW_HEIGHT, View.MeasureSpec.EXACTLY));
+            root.layout(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
+        }
+        if (mGroup != null && mGroup.isDirty()) {
+            mContainer.drawChildren(mCanvas);
+        }
+        mFrameCount++;
+    }
+
+    /**
+     * 推进帧直到没有待执行的任务、布局与重绘
+     */
+    private void settle() {
+        final View root = mActivity.getWindow().getDecorView();
+        for (int i = 0; i < MAX_FRAMES; i++) {
+            frame();
+            if (mScheduler.size() == 0 && !root.isLayoutRequested() && (mGroup == null || !mGroup.isDirty())) {
+                return;
+            }
+        }
+        throw new AssertionError("not idle after " + MAX_FRAMES + " frames");
+    }
+
+    /**
+     * Robolectric 的 View.draw 只绘制背景，通过 drawChild 按软件绘制的流程调用 dispatchDraw 并清除重绘标记
+     */
+    private static class Container extends FrameLayout {
+        Container(Context context) {
+            super(context);
+        }
+
+        void drawChildren(Canvas canvas) {
+            for (int i = 0; i < getChildCount(); i++) {
+                drawChild(canvas, getChildAt(i), getDrawingTime());
+            }
+        }
+    }
+
+    private static class RecordingClickListener implements TagViewGroup.OnTagGroupClickListener {
+        float mPercentX = 0.5f;
+        float mPercentY = 0.5f;
+
+        @Override
+        public void onCircleClick(TagViewGroup group) {
+        }
+
+        @Override
+        public void onTagClick(TagViewGroup group, ITagView tag, int index) {
+        }
+
+        @Override
+        public void onLongPress(TagViewGroup group) {
+        }
+
+        @Override
+        public void onScroll(TagViewGroup group, float percentX, float percentY) {
+            mPercentX = percentX;
+            mPercentY = percentY;
+        }
+    }
+}
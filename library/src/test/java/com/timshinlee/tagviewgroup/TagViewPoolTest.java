@@ -0,0 +1,174 @@
+package com.timshinlee.tagviewgroup;
+
+import android.app.Activity;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 标签组离开窗口时把标签与水波纹放回复用池，重新关联窗口或绑定其他标签组时从池中取出
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class TagViewPoolTest {
+    private static final int TAG_COUNT = 3;
+
+    private Activity mActivity;
+    private FrameLayout mContainer;
+    private TagViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mContainer = new FrameLayout(mActivity);
+        mActivity.setContentView(mContainer);
+        mPool = TagViewPool.getInstance();
+        mPool.clear();
+        mPool.resetStats();
+        mPool.setMaxSizes(TagViewPool.DEFAULT_MAX_TAG_VIEWS, TagViewPool.DEFAULT_MAX_RIPPLE_VIEWS);
+    }
+
+    @After
+    public void tearDown() {
+        mPool.clear();
+        TagMetrics.setSink(null);
+    }
+
+    @Test
+    public void detach_releasesViewsAndAttachReacquiresThem() {
+        final TagViewGroup group = createGroup();
+        mContainer.addView(group);
+        final List<ITagView> tags = group.getTagList();
+        assertEquals(TAG_COUNT, mPool.getTagMissCount());
+        assertEquals(1, mPool.getRippleMissCount());
+
+        mContainer.removeView(group);
+        assertEquals(0, group.getTagCount());
+        assertEquals(0, group.getChildCount());
+        assertEquals(TAG_COUNT, mPool.getTagViewCount());
+        assertEquals(1, mPool.getRippleViewCount());
+
+        mContainer.addView(group);
+        assertEquals(TAG_COUNT, group.getTagCount());
+        assertEquals(TAG_COUNT + 1, group.getChildCount());
+        assertEquals(TAG_COUNT, mPool.getTagHitCount());
+        assertEquals(1, mPool.getRippleHitCount());
+        assertEquals(0, mPool.getTagViewCount());
+        assertTrue("tag reused", tags.contains(group.getTagList().get(0)));
+        assertEquals("Tag 0", ((TagTextView) group.getTagList().get(0)).getText().toString());
+    }
+
+    @Test
+    public void reattach_restartsRippleWithoutCountingNewRipple() {
+        final TagMetrics.HistogramSink metrics = new TagMetrics.HistogramSink();
+        TagMetrics.setSink(metrics);
+        final TagViewGroup group = createGroup();
+        mContainer.addView(group);
+        final int ripples = TagAnimationClock.getInstance().getRippleCount();
+
+        mContainer.removeView(group);
+        assertEquals(ripples - 1, TagAnimationClock.getInstance().getRippleCount());
+        mContainer.addView(group);
+        assertEquals(ripples, TagAnimationClock.getInstance().getRippleCount());
+        assertEquals(1, metrics.getCounter(TagMetrics.COUNTER_RIPPLES));
+    }
+
+    @Test
+    public void detach_keepsTagsWhenCallerAddedTags() {
+        final TagViewGroup group = createGroup();
+        final TagTextView own = new TagTextView(mActivity);
+        own.setDirection(DIRECTION.RIGHT_BOTTOM);
+        group.addTag(own);
+        mContainer.addView(group);
+        final List<ITagView> tags = group.getTagList();
+
+        mContainer.removeView(group);
+        assertEquals(TAG_COUNT + 1, group.getTagCount());
+        assertEquals(0, mPool.getTagViewCount());
+        assertEquals(1, mPool.getRippleViewCount());
+
+        mContainer.addView(group);
+        assertEquals(tags, group.getTagList());
+    }
+
+    @Test
+    public void activityDestroy_dropsItsViews() {
+        final ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).setup();
+        assertTrue(mPool.release(new TagTextView(controller.get())));
+        assertTrue(mPool.release(new TagTextView(mActivity)));
+
+        controller.pause().stop().destroy();
+        assertEquals(1, mPool.getTagViewCount());
+        assertSame(mActivity, mPool.acquireTagView(mActivity).getContext());
+    }
+
+    @Test
+    public void release_resetsGroupState() {
+        final TagViewGroup group = createGroup();
+        mContainer.addView(group);
+        final TagTextView tag = (TagTextView) group.getTagList().get(TAG_COUNT - 1); // 最后放回，最先取出
+        tag.setAlpha(0.5f);
+        mContainer.removeView(group);
+
+        assertNull(tag.getDirection());
+        assertNull(tag.getTag());
+        assertEquals(1f, tag.getAlpha(), 0);
+        assertEquals(0, tag.getText().length());
+        assertSame(tag, mPool.acquireTagView(mActivity));
+    }
+
+    @Test
+    public void release_dropsViewsBeyondMaxSizeOrStillAttached() {
+        mPool.setMaxSizes(1, 1);
+        assertTrue(mPool.release(new TagTextView(mActivity)));
+        assertFalse(mPool.release(new TagTextView(mActivity)));
+        assertEquals(1, mPool.getTagViewCount());
+
+        final TagTextView attached = new TagTextView(mActivity);
+        mContainer.addView(attached);
+        mPool.setMaxSizes(2, 1);
+        assertFalse(mPool.release(attached));
+    }
+
+    @Test
+    public void acquire_onlyReusesViewsOfTheSameContext() {
+        mPool.release(new TagTextView(mActivity));
+        final Activity other = Robolectric.setupActivity(Activity.class);
+        final TagTextView view = mPool.acquireTagView(other);
+        assertSame(other, view.getContext());
+        assertEquals(1, mPool.getTagMissCount());
+        assertEquals(1, mPool.getTagViewCount());
+    }
+
+    private TagViewGroup createGroup() {
+        final TagViewGroup group = new TagViewGroup(mActivity);
+        group.setViewPoolEnabled(true);
+        group.addRipple();
+        final List<TagGroupModel.Tag> tags = new ArrayList<>(TAG_COUNT);
+        for (int i = 0; i < TAG_COUNT; i++) {
+            final TagGroupModel.Tag tag = new TagGroupModel.Tag();
+            tag.setName("Tag " + i);
+            tags.add(tag);
+        }
+        final TagGroupModel model = new TagGroupModel();
+        model.setTags(tags);
+        group.bind(model);
+        return group;
+    }
+}